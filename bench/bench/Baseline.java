@@ -0,0 +1,273 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Benchmark results stored as JSON, together with the machine and JVM
+ * they were measured on, so later runs can be compared against them.
+ *
+ * {
+ *   "environment": {"java": "17.0.9", "vm": "...", "os": "...", "cpus": 8},
+ *   "results": [
+ *     {"id": "polynomial.mul[degree=64]", "nsPerOp": 2948.8, "stdDev": 312.5,
+ *      "error": 254.6, "iterations": 10, "bytesPerOp": 536.0}
+ *   ]
+ * }
+ */
+public final class Baseline {
+    private final Map<String, String> environment;
+    private final Map<String, Result> results;
+
+    private Baseline(Map<String, String> environment, Map<String, Result> results) {
+        this.environment = environment;
+        this.results = results;
+    }
+
+    /**
+     * Wraps results measured on the running JVM
+     * @param results results of a run
+     * @return baseline of the run
+     */
+    public static Baseline of(List<Result> results) {
+        Map<String, Result> byId = new LinkedHashMap<>();
+        for (Result r : results) {
+            byId.put(r.getId(), r);
+        }
+        return new Baseline(currentEnvironment(), byId);
+    }
+
+    /**
+     * Describes the running JVM and machine
+     * @return environment keys and values
+     */
+    public static Map<String, String> currentEnvironment() {
+        Map<String, String> env = new LinkedHashMap<>();
+        env.put("java", System.getProperty("java.version"));
+        env.put("vm", System.getProperty("java.vm.name"));
+        env.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        env.put("cpus", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        return env;
+    }
+
+    public Map<String, String> getEnvironment() {
+        return environment;
+    }
+
+    public Map<String, Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Writes the baseline as JSON
+     * @param file file to write
+     * @throws IOException if writing fails
+     */
+    public void write(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder("{\n  \"environment\": {");
+        int i = 0;
+        for (Map.Entry<String, String> e : environment.entrySet()) {
+            sb.append(i++ > 0 ? ", " : "").append(quote(e.getKey())).append(": ");
+            sb.append(e.getKey().equals("cpus") ? e.getValue() : quote(e.getValue()));
+        }
+        sb.append("},\n  \"results\": [\n");
+        i = 0;
+        for (Result r : results.values()) {
+            sb.append(i++ > 0 ? ",\n" : "").append(String.format(Locale.ROOT,
+                    "    {\"id\": %s, \"nsPerOp\": %.3f, \"stdDev\": %.3f, \"error\": %.3f, "
+                            + "\"iterations\": %d, \"bytesPerOp\": %.1f}",
+                    quote(r.getId()), r.getNsPerOp(), r.getStdDev(), r.getError(),
+                    r.getIterations(), r.getBytesPerOp()));
+        }
+        sb.append("\n  ]\n}\n");
+
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Files.writeString(file, sb.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a baseline written by write
+     * @param file JSON file
+     * @return baseline
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if the file is not a baseline
+     */
+    @SuppressWarnings("unchecked")
+    public static Baseline read(Path file) throws IOException {
+        Object json = new Json(Files.readString(file, StandardCharsets.UTF_8)).value();
+        if (!(json instanceof Map)) {
+            throw new IllegalArgumentException(file + " is not a benchmark baseline");
+        }
+        Map<String, Object> root = (Map<String, Object>) json;
+
+        Map<String, String> env = new LinkedHashMap<>();
+        Object e = root.get("environment");
+        if (e instanceof Map) {
+            for (Map.Entry<String, Object> kv : ((Map<String, Object>) e).entrySet()) {
+                Object v = kv.getValue();
+                env.put(kv.getKey(), v instanceof Double && (Double) v == Math.rint((Double) v)
+                        ? String.valueOf(((Double) v).longValue())
+                        : String.valueOf(v));
+            }
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        Object rs = root.get("results");
+        if (!(rs instanceof List)) {
+            throw new IllegalArgumentException(file + " has no results");
+        }
+        for (Object o : (List<Object>) rs) {
+            Map<String, Object> r = (Map<String, Object>) o;
+            String id = (String) r.get("id");
+            results.put(id, new Result(id, number(r, "nsPerOp"), number(r, "stdDev"), number(r, "error"),
+                    number(r, "bytesPerOp"), (int) number(r, "iterations")));
+        }
+        return new Baseline(env, results);
+    }
+
+    private static double number(Map<String, Object> r, String key) {
+        Object v = r.get(key);
+        if (!(v instanceof Double)) {
+            throw new IllegalArgumentException("Result " + r.get("id") + " has no " + key);
+        }
+        return (Double) v;
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * Minimal JSON reader for baseline files: objects, arrays, strings,
+     * numbers, true, false and null
+     */
+    private static final class Json {
+        private final String s;
+        private int i = 0;
+
+        private Json(String s) {
+            this.s = s;
+        }
+
+        Object value() {
+            skip();
+            if (i >= s.length()) {
+                throw error("unexpected end");
+            }
+            char c = s.charAt(i);
+            if (c == '{') {
+                Map<String, Object> m = new LinkedHashMap<>();
+                i++;
+                skip();
+                if (peek('}')) {
+                    return m;
+                }
+                do {
+                    skip();
+                    String key = string();
+                    skip();
+                    expect(':');
+                    m.put(key, value());
+                    skip();
+                } while (peek(','));
+                expect('}');
+                return m;
+            }
+            if (c == '[') {
+                List<Object> l = new ArrayList<>();
+                i++;
+                skip();
+                if (peek(']')) {
+                    return l;
+                }
+                do {
+                    l.add(value());
+                    skip();
+                } while (peek(','));
+                expect(']');
+                return l;
+            }
+            if (c == '"') {
+                return string();
+            }
+            if (s.startsWith("true", i)) {
+                i += 4;
+                return Boolean.TRUE;
+            }
+            if (s.startsWith("false", i)) {
+                i += 5;
+                return Boolean.FALSE;
+            }
+            if (s.startsWith("null", i)) {
+                i += 4;
+                return null;
+            }
+            int start = i;
+            while (i < s.length() && "+-.eE0123456789".indexOf(s.charAt(i)) >= 0) {
+                i++;
+            }
+            if (start == i) {
+                throw error("unexpected '" + c + "'");
+            }
+            return Double.parseDouble(s.substring(start, i));
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (i < s.length() && s.charAt(i) != '"') {
+                char c = s.charAt(i++);
+                if (c == '\\' && i < s.length()) {
+                    char e = s.charAt(i++);
+                    switch (e) {
+                        case 'n' -> sb.append('\n');
+                        case 't' -> sb.append('\t');
+                        case 'u' -> {
+                            sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                            i += 4;
+                        }
+                        default -> sb.append(e);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            expect('"');
+            return sb.toString();
+        }
+
+        private boolean peek(char c) {
+            if (i < s.length() && s.charAt(i) == c) {
+                i++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        private void skip() {
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+        }
+
+        private IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException("Bad baseline JSON at " + i + ": " + msg);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Command line entry point of the benchmarks.
+ * ex: java -cp out bench.BenchMain polynomial.mul -wi 5 -i 10 -t 500
+ * Arguments: an optional regex selecting benchmark ids, -wi warm up
+ * iterations, -i measured iterations, -t milliseconds per iteration,
+ * -l lists the ids without running.
+ * Regression tracking runs the core cases only:
+ * -save FILE records the run as a baseline,
+ * -baseline FILE compares the run against one and exits with 1 on a
+ * regression, -tolerance the allowed slowdown (default 0.15).
+ * ex: java -cp out bench.BenchMain -baseline bench/baselines/core.json
+ */
+public class BenchMain {
+
+    public static void main(String[] args) throws IOException {
+        int warmup = 5;
+        int iterations = 10;
+        long millis = 300;
+        boolean list = false;
+        Path save = null;
+        Path baseline = null;
+        double tolerance = 0.15;
+        Pattern filter = Pattern.compile(".*");
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi" -> warmup = Integer.parseInt(args[++i]);
+                case "-i" -> iterations = Integer.parseInt(args[++i]);
+                case "-t" -> millis = Long.parseLong(args[++i]);
+                case "-l" -> list = true;
+                case "-save" -> save = Path.of(args[++i]);
+                case "-baseline" -> baseline = Path.of(args[++i]);
+                case "-tolerance" -> tolerance = Double.parseDouble(args[++i]);
+                default -> filter = Pattern.compile(args[i]);
+            }
+        }
+
+        Pattern f = filter;
+        // read first so a bad path fails before the run
+        Baseline stored = baseline == null ? null : Baseline.read(baseline);
+        boolean core = save != null || stored != null;
+        List<Benchmark> selected = (core ? Suites.core() : Suites.all()).stream()
+                .filter(b -> f.matcher(b.getId()).find())
+                .collect(Collectors.toList());
+
+        if (list) {
+            selected.forEach(b -> System.out.println(b.getId()));
+            return;
+        }
+
+        System.out.printf("%d benchmarks, %d warm up and %d measured iterations of %d ms, %s %s%n",
+                selected.size(), warmup, iterations, millis,
+                System.getProperty("java.vm.name"), System.getProperty("java.version"));
+        List<Result> results = new Harness(warmup, iterations, millis).runAll(selected);
+
+        if (save != null) {
+            Baseline.of(results).write(save);
+            System.out.println("Saved baseline to " + save);
+        }
+        if (stored != null) {
+            RegressionCheck check = new RegressionCheck(tolerance, RegressionCheck.DEFAULT_T_THRESHOLD);
+            List<RegressionCheck.Row> rows = check.compare(stored, results);
+            // cases left out by the id filter are not missing
+            rows.removeIf(r -> r.getVerdict() == RegressionCheck.Verdict.MISSING && !f.matcher(r.getId()).find());
+            System.out.println();
+            System.out.print(check.report(stored, rows));
+            if (RegressionCheck.failed(rows)) {
+                System.exit(1);
+            }
+        }
+    }
+}
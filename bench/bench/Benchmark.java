@@ -0,0 +1,55 @@
+package bench;
+
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * One benchmark case, an operation measured at one parameter value.
+ * The setup runs once before measuring and builds the operation, so
+ * input data is not part of the timing. The operation returns a value
+ * derived from its result, the harness consumes it so the JIT cannot
+ * drop the work.
+ */
+public final class Benchmark {
+    private final String group;
+    private final String name;
+    private final String param;
+    private final Supplier<LongSupplier> setup;
+
+    /**
+     * @param group suite the case belongs to, ex: "polynomial"
+     * @param name operation, ex: "mul"
+     * @param param parameter value, ex: "degree=64", empty if none
+     * @param setup builds the operation to measure
+     */
+    public Benchmark(String group, String name, String param, Supplier<LongSupplier> setup) {
+        this.group = group;
+        this.name = name;
+        this.param = param;
+        this.setup = setup;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * Full id, ex: "polynomial.mul[degree=64]"
+     * @return id used for filtering and reports
+     */
+    public String getId() {
+        return group + "." + name + (param.isEmpty() ? "" : "[" + param + "]");
+    }
+
+    LongSupplier setUp() {
+        return setup.get();
+    }
+}
@@ -0,0 +1,139 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs benchmarks in the style of JMH, without needing JMH on the class
+ * path: warm up iterations let the JIT compile the code, then measured
+ * iterations each run the operation in batches for a fixed time. The
+ * batch size is picked during warm up so System.nanoTime is called about
+ * once a millisecond, not once per operation. Allocation per operation
+ * comes from the per thread allocation counter of the HotSpot
+ * ThreadMXBean.
+ */
+public class Harness {
+    // z value of a two sided 99% interval
+    private static final double Z99 = 2.576;
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+
+    // results are folded in here so the JIT must compute them
+    private long sink;
+
+    /**
+     * @param warmupIterations iterations run before measuring
+     * @param iterations measured iterations
+     * @param iterationMillis length of one iteration
+     */
+    public Harness(int warmupIterations, int iterations, long iterationMillis) {
+        if (iterations < 2) {
+            throw new IllegalArgumentException("at least 2 measured iterations are needed");
+        }
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    /**
+     * Runs one benchmark case
+     * @param b benchmark
+     * @return measured result
+     */
+    public Result run(Benchmark b) {
+        LongSupplier op = b.setUp();
+
+        // batch size doubles until a batch takes about a millisecond
+        int batch = 1;
+        while (batch < (1 << 24)) {
+            long t0 = System.nanoTime();
+            runBatch(op, batch);
+            if (System.nanoTime() - t0 > 1_000_000L) {
+                break;
+            }
+            batch *= 2;
+        }
+
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(op, batch);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean hotspot = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads
+                : null;
+        long tid = Thread.currentThread().getId();
+
+        double[] nsPerOp = new double[iterations];
+        long totalOps = 0;
+        long bytesBefore = hotspot != null ? hotspot.getThreadAllocatedBytes(tid) : -1;
+        for (int i = 0; i < iterations; i++) {
+            long[] r = iteration(op, batch);
+            nsPerOp[i] = (double) r[0] / r[1];
+            totalOps += r[1];
+        }
+        long bytesAfter = hotspot != null ? hotspot.getThreadAllocatedBytes(tid) : -1;
+
+        double mean = 0;
+        for (double v : nsPerOp) {
+            mean += v;
+        }
+        mean /= iterations;
+        double var = 0;
+        for (double v : nsPerOp) {
+            var += (v - mean) * (v - mean);
+        }
+        double sd = Math.sqrt(var / (iterations - 1));
+        double bytes = bytesBefore >= 0 ? (double) (bytesAfter - bytesBefore) / totalOps : -1;
+
+        return new Result(b.getId(), mean, sd, Z99 * sd / Math.sqrt(iterations), bytes, iterations);
+    }
+
+    /**
+     * Runs every benchmark and prints each result as it is done
+     * @param benchmarks benchmarks to run
+     * @return results in the same order
+     */
+    public List<Result> runAll(List<Benchmark> benchmarks) {
+        List<Result> results = new ArrayList<>();
+        for (Benchmark b : benchmarks) {
+            Result r = run(b);
+            System.out.println(r);
+            results.add(r);
+        }
+        // keeps the sink alive
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return results;
+    }
+
+    /**
+     * One iteration, batches until the iteration time is used up
+     * @return elapsed nanoseconds and operation count
+     */
+    private long[] iteration(LongSupplier op, int batch) {
+        long ops = 0;
+        long start = System.nanoTime();
+        long now;
+        do {
+            runBatch(op, batch);
+            ops += batch;
+            now = System.nanoTime();
+        } while (now - start < iterationNanos);
+        return new long[] {now - start, ops};
+    }
+
+    private void runBatch(LongSupplier op, int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) {
+            s += op.getAsLong();
+        }
+        sink += s;
+    }
+}
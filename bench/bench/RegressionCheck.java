@@ -0,0 +1,209 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a run against a stored baseline. A case regresses when it is
+ * slower by more than the tolerance and the slowdown is statistically
+ * significant by Welch's t-test over the per iteration means, so noise
+ * alone does not fail the check. Allocation per operation regresses when
+ * it grows by more than the tolerance plus a small absolute slack.
+ */
+public class RegressionCheck {
+    // |t| above this is treated as significant, about p < 0.01 for 10+10 iterations
+    public static final double DEFAULT_T_THRESHOLD = 3.0;
+
+    // bytes per op a case may grow by before the relative tolerance applies
+    private static final double ALLOCATION_SLACK = 16;
+
+    private final double tolerance;
+    private final double tThreshold;
+
+    /**
+     * @param tolerance allowed relative slowdown, ex: 0.15 for 15%
+     * @param tThreshold t statistic above which a change is significant
+     */
+    public RegressionCheck(double tolerance, double tThreshold) {
+        this.tolerance = tolerance;
+        this.tThreshold = tThreshold;
+    }
+
+    /**
+     * Timing outcome of one case, allocation is judged separately
+     */
+    public enum Verdict {
+        OK,
+        FASTER,
+        SLOWER,
+        NEW,
+        MISSING
+    }
+
+    /**
+     * Comparison of one case
+     */
+    public static final class Row {
+        final String id;
+        final Result base;
+        final Result current;
+        final double change;
+        final double t;
+        final Verdict verdict;
+        final boolean moreAllocation;
+
+        private Row(String id, Result base, Result current, double change, double t,
+                    Verdict verdict, boolean moreAllocation) {
+            this.id = id;
+            this.base = base;
+            this.current = current;
+            this.change = change;
+            this.t = t;
+            this.verdict = verdict;
+            this.moreAllocation = moreAllocation;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        /**
+         * True if the case allocates more per op than the baseline,
+         * whatever its timing verdict
+         * @return true for an allocation regression
+         */
+        public boolean isMoreAllocation() {
+            return moreAllocation;
+        }
+
+        /**
+         * True if the case is slower or allocates more
+         * @return true for a regression
+         */
+        public boolean isRegression() {
+            return verdict == Verdict.SLOWER || moreAllocation;
+        }
+    }
+
+    /**
+     * Compares every case of the run with the baseline
+     * @param baseline stored results
+     * @param current results of this run
+     * @return one row per case in either set
+     */
+    public List<Row> compare(Baseline baseline, List<Result> current) {
+        List<Row> rows = new ArrayList<>();
+        Map<String, Result> base = baseline.getResults();
+
+        for (Result c : current) {
+            Result b = base.get(c.getId());
+            if (b == null) {
+                rows.add(new Row(c.getId(), null, c, 0, 0, Verdict.NEW, false));
+                continue;
+            }
+            double change = c.getNsPerOp() / b.getNsPerOp() - 1;
+            double t = welch(b, c);
+
+            Verdict v = Verdict.OK;
+            if (change > tolerance && t > tThreshold) {
+                v = Verdict.SLOWER;
+            } else if (change < -tolerance && t < -tThreshold) {
+                v = Verdict.FASTER;
+            }
+            // checked on its own, a faster case may still allocate more
+            boolean moreAllocation = b.getBytesPerOp() >= 0 && c.getBytesPerOp()
+                    > b.getBytesPerOp() * (1 + tolerance) + ALLOCATION_SLACK;
+            rows.add(new Row(c.getId(), b, c, change, t, v, moreAllocation));
+        }
+        for (Result b : base.values()) {
+            if (current.stream().noneMatch(c -> c.getId().equals(b.getId()))) {
+                rows.add(new Row(b.getId(), b, null, 0, 0, Verdict.MISSING, false));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Welch's t statistic of current against base, positive when slower
+     */
+    static double welch(Result base, Result current) {
+        double vb = base.getStdDev() * base.getStdDev() / base.getIterations();
+        double vc = current.getStdDev() * current.getStdDev() / current.getIterations();
+        double se = Math.sqrt(vb + vc);
+        double diff = current.getNsPerOp() - base.getNsPerOp();
+        if (se == 0) {
+            return diff == 0 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, diff);
+        }
+        return diff / se;
+    }
+
+    /**
+     * Returns true if any row is a regression
+     * @param rows comparison rows
+     * @return true if a case got slower or allocates more
+     */
+    public static boolean failed(List<Row> rows) {
+        return rows.stream().anyMatch(Row::isRegression);
+    }
+
+    /**
+     * Formats the comparison as a table followed by a summary of the
+     * regressions, if any
+     * @param baseline stored results
+     * @param rows comparison rows
+     * @return report text
+     */
+    public String report(Baseline baseline, List<Row> rows) {
+        StringBuilder sb = new StringBuilder();
+        Map<String, String> env = Baseline.currentEnvironment();
+        if (!env.equals(baseline.getEnvironment())) {
+            sb.append("WARNING: baseline was recorded on ").append(baseline.getEnvironment())
+                    .append(",\n         this run is on ").append(env)
+                    .append(", timings may not be comparable\n\n");
+        }
+
+        sb.append(String.format(Locale.ROOT, "%-44s %14s %14s %9s %8s %10s %10s  %s%n",
+                "benchmark", "base ns/op", "now ns/op", "change", "t", "base B/op", "now B/op", "verdict"));
+        for (Row r : rows) {
+            sb.append(String.format(Locale.ROOT, "%-44s %14s %14s %9s %8s %10s %10s  %s%n",
+                    r.id,
+                    r.base == null ? "-" : String.format(Locale.ROOT, "%.1f", r.base.getNsPerOp()),
+                    r.current == null ? "-" : String.format(Locale.ROOT, "%.1f", r.current.getNsPerOp()),
+                    r.base == null || r.current == null ? "-" : String.format(Locale.ROOT, "%+.1f%%", r.change * 100),
+                    r.base == null || r.current == null ? "-" : String.format(Locale.ROOT, "%.1f", r.t),
+                    r.base == null ? "-" : String.format(Locale.ROOT, "%.0f", r.base.getBytesPerOp()),
+                    r.current == null ? "-" : String.format(Locale.ROOT, "%.0f", r.current.getBytesPerOp()),
+                    r.moreAllocation ? r.verdict + ", MORE_ALLOCATION" : r.verdict));
+        }
+
+        List<Row> bad = rows.stream()
+                .filter(Row::isRegression)
+                .toList();
+        sb.append('\n');
+        if (bad.isEmpty()) {
+            sb.append(String.format(Locale.ROOT,
+                    "No regressions (tolerance %.0f%%, t > %.1f).%n", tolerance * 100, tThreshold));
+        } else {
+            sb.append(bad.size()).append(" regression(s):\n");
+            for (Row r : bad) {
+                if (r.verdict == Verdict.SLOWER) {
+                    sb.append(String.format(Locale.ROOT,
+                            "  %s is %.1f%% slower: %.1f -> %.1f ns/op (t = %.1f, allowed %.0f%%)%n",
+                            r.id, r.change * 100, r.base.getNsPerOp(), r.current.getNsPerOp(), r.t, tolerance * 100));
+                }
+                if (r.moreAllocation) {
+                    sb.append(String.format(Locale.ROOT,
+                            "  %s allocates more: %.0f -> %.0f B/op%n",
+                            r.id, r.base.getBytesPerOp(), r.current.getBytesPerOp()));
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+/**
+ * Measured numbers of one benchmark case
+ */
+public final class Result {
+    private final String id;
+    private final double nsPerOp;
+    private final double stdDev;
+    private final double error;
+    private final double bytesPerOp;
+    private final int iterations;
+
+    /**
+     * @param id benchmark id
+     * @param nsPerOp mean time per operation over the iterations
+     * @param stdDev standard deviation of the per iteration means
+     * @param error half width of the 99% confidence interval of the mean
+     * @param bytesPerOp bytes allocated per operation, -1 if unknown
+     * @param iterations number of measured iterations
+     */
+    public Result(String id, double nsPerOp, double stdDev, double error, double bytesPerOp, int iterations) {
+        this.id = id;
+        this.nsPerOp = nsPerOp;
+        this.stdDev = stdDev;
+        this.error = error;
+        this.bytesPerOp = bytesPerOp;
+        this.iterations = iterations;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getNsPerOp() {
+        return nsPerOp;
+    }
+
+    public double getStdDev() {
+        return stdDev;
+    }
+
+    public double getError() {
+        return error;
+    }
+
+    public double getBytesPerOp() {
+        return bytesPerOp;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getOpsPerSecond() {
+        return 1e9 / nsPerOp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-52s %14.1f +- %9.1f ns/op %14.0f ops/s %12s B/op",
+                id, nsPerOp, error, getOpsPerSecond(),
+                bytesPerOp < 0 ? "n/a" : String.format("%.1f", bytesPerOp));
+    }
+}
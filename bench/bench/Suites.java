@@ -0,0 +1,427 @@
+package bench;
+
+import Algebra.EquationSolver;
+import Algebra.ExactPolynomial;
+import Algebra.MultiPolynomial;
+import Algebra.Polynomial;
+import Graphing.CurveSampler;
+import Graphing.IntervalSampler;
+import Graphing.TileCache;
+import Graphing.Viewport;
+import Numeric.FastDoubleParser;
+import Numeric.FixedFormatter;
+import OperationsBundle.*;
+import Parser.EquationParser;
+import Parser.Lexer;
+import UnitConversion.Conversion;
+import UnitConversion.Unit;
+import UnitConversion.UnitConversion;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * The benchmark cases, grouped by the part of the calculator they cover.
+ * Sizes are parameters so scaling behaviour is visible, ex: polynomial
+ * multiplication at degree 4, 64 and 512.
+ */
+public final class Suites {
+    // parameter values
+    static final int[] EXPRESSION_TERMS = {10, 1000};
+    static final int[] DEGREES = {4, 64, 512};
+    static final int[] ARRAY_SIZES = {1_000, 1_000_000};
+
+    private static final BinaryStrategy ADD = new AddOp();
+    private static final BinaryStrategy SUB = new SubOp();
+    private static final BinaryStrategy MUL = new MultOp();
+    private static final BinaryStrategy DIV = new DivOp();
+    private static final UnaryStrategy NEG = new NegOp();
+    private static final PowStrategy POW = new PowOp();
+    private static final UnaryStrategy ROOT = new RootOp();
+
+    // the hot paths guarded by the stored baseline: parse, expand, solve, sample and convert
+    static final String CORE = "^(parser\\.parse\\[small\\]|parser\\.parseProduct|polynomial\\.(mul|pow)\\[(degree=64|exponent=32)\\]"
+            + "|solver\\.|sampling\\.(tilesPan|interval)|units\\.(convertCompound|convertBulk\\[size=1000\\]|formatFixed))";
+
+    private Suites() {}
+
+    /**
+     * Returns every benchmark case
+     * @return all cases in suite order
+     */
+    public static List<Benchmark> all() {
+        List<Benchmark> all = new ArrayList<>();
+        lexer(all);
+        parser(all);
+        polynomial(all);
+        solver(all);
+        sampling(all);
+        units(all);
+        exact(all);
+        return all;
+    }
+
+    /**
+     * Returns the core cases that regression checks run against the baseline
+     * @return core cases in suite order
+     */
+    public static List<Benchmark> core() {
+        Pattern core = Pattern.compile(CORE);
+        List<Benchmark> out = new ArrayList<>();
+        for (Benchmark b : all()) {
+            if (core.matcher(b.getId()).find()) {
+                out.add(b);
+            }
+        }
+        return out;
+    }
+
+    private static void lexer(List<Benchmark> out) {
+        for (int n : EXPRESSION_TERMS) {
+            out.add(new Benchmark("lexer", "tokenize", "terms=" + n, () -> {
+                String src = sumExpression(n);
+                return () -> {
+                    Lexer lx = new Lexer(src);
+                    long count = 0;
+                    while (lx.next().tok != Lexer.TOK.EOF) {
+                        count++;
+                    }
+                    return count;
+                };
+            }));
+        }
+    }
+
+    private static void parser(List<Benchmark> out) {
+        out.add(new Benchmark("parser", "parse", "small", () ->
+                () -> parse("3x^2 + 2(x - 1)^3 - 5").degree()));
+        for (int n : EXPRESSION_TERMS) {
+            out.add(new Benchmark("parser", "parseSum", "terms=" + n, () -> {
+                String src = sumExpression(n);
+                return () -> parse(src).degree();
+            }));
+        }
+        out.add(new Benchmark("parser", "parseProduct", "factors=32", () -> {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 32; i++) {
+                sb.append("(x").append(i % 2 == 0 ? "+" : "-").append(i % 5 + 1).append(')');
+            }
+            String src = sb.toString();
+            return () -> parse(src).degree();
+        }));
+        out.add(new Benchmark("parser", "parseSparse", "x^100000", () ->
+                () -> parse("(x^100000 + 1)(x^50000 - 2) + 3x").degree()));
+        out.add(new Benchmark("parser", "parseMultivariate", "(x+y+z+1)^12", () ->
+                () -> new EquationParser("(x + y + z + 1)^12 - 2xyz", ADD, SUB, MUL, DIV, NEG, POW, ROOT)
+                        .parseMultivariate().termCount()));
+    }
+
+    private static void polynomial(List<Benchmark> out) {
+        for (int d : DEGREES) {
+            String param = "degree=" + d;
+            out.add(new Benchmark("polynomial", "add", param, () -> {
+                Polynomial a = randomPolynomial(d, 1);
+                Polynomial b = randomPolynomial(d, 2);
+                return () -> a.add(b).degree();
+            }));
+            out.add(new Benchmark("polynomial", "mul", param, () -> {
+                Polynomial a = randomPolynomial(d, 1);
+                Polynomial b = randomPolynomial(d, 2);
+                return () -> a.mul(b).degree();
+            }));
+            out.add(new Benchmark("polynomial", "evaluate", param, () -> {
+                Polynomial a = randomPolynomial(d, 1);
+                return () -> Double.doubleToRawLongBits(a.evaluate(0.999));
+            }));
+        }
+        for (int e : new int[] {4, 32}) {
+            out.add(new Benchmark("polynomial", "pow", "exponent=" + e, () -> {
+                Polynomial p = Polynomial.of(1, 1, 1);
+                return () -> p.pow(e).degree();
+            }));
+        }
+
+        // few terms at a high degree, stored sparse
+        for (int t : new int[] {8, 64}) {
+            String param = "terms=" + t + ",degree=100000";
+            out.add(new Benchmark("polynomial", "sparseMul", param, () -> {
+                Polynomial a = randomSparsePolynomial(t, 100_000, 1);
+                Polynomial b = randomSparsePolynomial(t, 100_000, 2);
+                return () -> a.mul(b).termCount();
+            }));
+            out.add(new Benchmark("polynomial", "sparseEvaluate", param, () -> {
+                Polynomial a = randomSparsePolynomial(t, 100_000, 1);
+                return () -> Double.doubleToRawLongBits(a.evaluate(0.99999));
+            }));
+        }
+        // the same dense product on 1, 2, 4, ... cores, the ratio of the
+        // threads=1 time to the others is the speedup
+        for (int threads : threadCounts()) {
+            out.add(new Benchmark("polynomial", "mulParallel", "degree=8191,threads=" + threads, () -> {
+                Polynomial a = randomPolynomial(8191, 1);
+                Polynomial b = randomPolynomial(8191, 2);
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                return () -> a.mul(b, pool).degree();
+            }));
+        }
+        out.add(new Benchmark("polynomial", "multiMul", "terms=455", () -> {
+            // every monomial of total degree <= 12 in x, y and z
+            MultiPolynomial a = MultiPolynomial.x().add(MultiPolynomial.y()).add(MultiPolynomial.z())
+                    .add(MultiPolynomial.constant(1)).pow(12);
+            MultiPolynomial b = a.sub(MultiPolynomial.monomial(3, 2, 5, 1));
+            return () -> a.mul(b).termCount();
+        }));
+        out.add(new Benchmark("polynomial", "sparsePow", "x^100000+1,exponent=8", () -> {
+            Polynomial p = Polynomial.x().pow(100_000).add(Polynomial.constant(1));
+            return () -> p.pow(8).termCount();
+        }));
+    }
+
+    private static void solver(List<Benchmark> out) {
+        out.add(new Benchmark("solver", "solveForX", "linear", () ->
+                () -> EquationSolver.solveForX("3x - 7", ADD, SUB, MUL, DIV, NEG, POW, ROOT).length()));
+        out.add(new Benchmark("solver", "solveForX", "quadratic", () ->
+                () -> EquationSolver.solveForX("2x^2 - 3x - 5", ADD, SUB, MUL, DIV, NEG, POW, ROOT).length()));
+        for (int d : new int[] {5, 20}) {
+            out.add(new Benchmark("solver", "realRoots", "degree=" + d, () -> {
+                // product of (x - k) has d distinct real roots
+                Polynomial p = Polynomial.constant(1);
+                for (int k = 0; k < d; k++) {
+                    p = p.mul(Polynomial.of(k - d / 2, 1));
+                }
+                Polynomial q = p;
+                return () -> EquationSolver.realRoots(q).length;
+            }));
+        }
+    }
+
+    private static void sampling(List<Benchmark> out) {
+        out.add(new Benchmark("sampling", "tilesPan", "curves=8", () -> {
+            Map<String, Polynomial> polys = curves(8);
+            CurveSampler sampler = new CurveSampler(new TileCache(512));
+            Viewport[] frames = new Viewport[64];
+            Viewport v = Viewport.DEFAULT;
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = v;
+                v = v.pan(0.37);
+            }
+            int[] frame = {0};
+            // panning back and forth over cached tiles, like dragging the graph
+            return () -> {
+                int i = frame[0]++ & 127;
+                sampler.update(polys, frames[i < 64 ? i : 127 - i]);
+                return sampler.getX().length;
+            };
+        }));
+        out.add(new Benchmark("sampling", "tilesZoom", "curves=8", () -> {
+            Map<String, Polynomial> polys = curves(8);
+            TileCache tiles = new TileCache(4096);
+            CurveSampler sampler = new CurveSampler(tiles);
+            Viewport[] frames = new Viewport[32];
+            Viewport v = Viewport.DEFAULT;
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = v;
+                v = v.zoom(i < 16 ? 0.8 : 1.25, 0.3);
+            }
+            int[] frame = {0};
+            return () -> {
+                sampler.update(polys, frames[frame[0]++ & 31]);
+                return sampler.getX().length;
+            };
+        }));
+        out.add(new Benchmark("sampling", "uniform", "samples=1000", () -> {
+            Polynomial p = randomPolynomial(8, 3);
+            double[] y = new double[1000];
+            return () -> {
+                for (int i = 0; i < y.length; i++) {
+                    y[i] = p.evaluate(-10 + i * 0.02);
+                }
+                return Double.doubleToRawLongBits(y[500]);
+            };
+        }));
+        out.add(new Benchmark("sampling", "interval", "degree=8", () -> {
+            Polynomial p = randomPolynomial(8, 3);
+            return () -> IntervalSampler.sample(p, -10, 10).x().length;
+        }));
+    }
+
+    private static void units(List<Benchmark> out) {
+        out.add(new Benchmark("units", "convertNamed", "", () -> {
+            double[] v = {0.5};
+            return () -> Double.doubleToRawLongBits(UnitConversion.convert(v[0] += 1, Unit.FT, Unit.M));
+        }));
+        out.add(new Benchmark("units", "convertCompound", "", () -> {
+            double[] v = {0.5};
+            return () -> Double.doubleToRawLongBits(UnitConversion.compile("mi/h", "m/s").apply(v[0] += 1));
+        }));
+        for (int n : ARRAY_SIZES) {
+            out.add(new Benchmark("units", "convertBulk", "size=" + n, () -> {
+                double[] in = new Random(5).doubles(n, -1000, 1000).toArray();
+                double[] outArray = new double[n];
+                return () -> {
+                    UnitConversion.convert(Unit.F, Unit.C, in, outArray);
+                    return Double.doubleToRawLongBits(outArray[n / 2]);
+                };
+            }));
+        }
+        out.add(new Benchmark("units", "compiledBulk", "size=1000000", () -> {
+            double[] in = new Random(5).doubles(1_000_000, 0, 100).toArray();
+            double[] outArray = new double[in.length];
+            Conversion c = UnitConversion.compile("kWh", "BTU");
+            return () -> {
+                c.apply(in, outArray);
+                return Double.doubleToRawLongBits(outArray[7]);
+            };
+        }));
+        out.add(new Benchmark("units", "formatFixed", "", () -> {
+            double[] v = {0.123456};
+            return () -> FixedFormatter.format(v[0] += 1.37, 4).length();
+        }));
+        out.add(new Benchmark("units", "formatString", "", () -> {
+            double[] v = {0.123456};
+            return () -> String.format("%.4f", v[0] += 1.37).length();
+        }));
+        out.add(new Benchmark("units", "parseFast", "", () -> {
+            String[] s = samples();
+            int[] i = {0};
+            return () -> Double.doubleToRawLongBits(FastDoubleParser.parseDouble(s[i[0]++ & 1023]));
+        }));
+        out.add(new Benchmark("units", "parseJdk", "", () -> {
+            String[] s = samples();
+            int[] i = {0};
+            return () -> Double.doubleToRawLongBits(Double.parseDouble(s[i[0]++ & 1023]));
+        }));
+    }
+
+    private static void exact(List<Benchmark> out) {
+        // (3x + 7)^2000 has coefficients of up to 6387 bits
+        ExactPolynomial base = ExactPolynomial.of(BigInteger.valueOf(7), BigInteger.valueOf(3));
+        for (int threads : threadCounts()) {
+            out.add(new Benchmark("exact", "pow", "(3x+7)^2000,threads=" + threads, () -> {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                return () -> base.pow(2000, pool).get(1000).bitLength();
+            }));
+        }
+        out.add(new Benchmark("exact", "powSchoolbook", "(3x+7)^2000", () ->
+                () -> schoolbookPow(new BigInteger[] {BigInteger.valueOf(7), BigInteger.valueOf(3)}, 2000)[1000].bitLength()));
+        out.add(new Benchmark("exact", "mul", "degree=1023,bits=256", () -> {
+            Random r = new Random(4);
+            BigInteger[] a = new BigInteger[1024];
+            BigInteger[] b = new BigInteger[1024];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = new BigInteger(256, r).subtract(BigInteger.ONE.shiftLeft(255));
+                b[i] = new BigInteger(256, r).subtract(BigInteger.ONE.shiftLeft(255));
+            }
+            ExactPolynomial pa = ExactPolynomial.of(a);
+            ExactPolynomial pb = ExactPolynomial.of(b);
+            return () -> pa.mul(pb).degree();
+        }));
+    }
+
+    //------------------------------------------------------------
+
+    static Polynomial parse(String src) {
+        return new EquationParser(src, ADD, SUB, MUL, DIV, NEG, POW, ROOT).parse();
+    }
+
+    /**
+     * A sum of n terms, ex: "3x^2 + 7x - 4 + ..."
+     */
+    static String sumExpression(int n) {
+        Random r = new Random(n);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sb.append(r.nextBoolean() ? " + " : " - ");
+            }
+            sb.append(1 + r.nextInt(9)).append('x');
+            int e = r.nextInt(6);
+            if (e > 1) {
+                sb.append('^').append(e);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Polynomial of the given degree with small random coefficients
+     */
+    static Polynomial randomPolynomial(int degree, long seed) {
+        Random r = new Random(seed);
+        Polynomial.Builder b = Polynomial.builder();
+        for (int k = 0; k < degree; k++) {
+            b.set(k, r.nextInt(7) - 3);
+        }
+        return b.set(degree, 1 + r.nextInt(3)).build();
+    }
+
+    /**
+     * Polynomial with the given number of random terms below a degree,
+     * plus the leading term
+     */
+    static Polynomial randomSparsePolynomial(int terms, int degree, long seed) {
+        Random r = new Random(seed);
+        Polynomial.Builder b = Polynomial.builder();
+        for (int i = 1; i < terms; i++) {
+            b.set(r.nextInt(degree), 1 + r.nextInt(5));
+        }
+        return b.set(degree, 1).build();
+    }
+
+    /**
+     * Reference for the exact cases: multiplies by the base e - 1 times
+     * with one BigInteger product per pair of terms, which for a linear
+     * base is faster than squaring
+     */
+    static BigInteger[] schoolbookPow(BigInteger[] base, int e) {
+        BigInteger[] r = base;
+        for (int k = 1; k < e; k++) {
+            BigInteger[] next = new BigInteger[r.length + base.length - 1];
+            Arrays.fill(next, BigInteger.ZERO);
+            for (int i = 0; i < r.length; i++) {
+                for (int j = 0; j < base.length; j++) {
+                    next[i + j] = next[i + j].add(r[i].multiply(base[j]));
+                }
+            }
+            r = next;
+        }
+        return r;
+    }
+
+    /**
+     * Powers of two up to the number of cores, and the core count itself
+     */
+    static int[] threadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < cores; t *= 2) {
+            counts.add(t);
+        }
+        counts.add(cores);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Map<String, Polynomial> curves(int n) {
+        Map<String, Polynomial> polys = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            polys.put("f" + i, randomPolynomial(3 + i, i));
+        }
+        return polys;
+    }
+
+    private static String[] samples() {
+        Random r = new Random(9);
+        String[] s = new String[1024];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = FixedFormatter.format(r.nextDouble() * 10000, 4);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,12 @@
+#!/bin/sh
+# Compiles and runs the benchmarks, no build tool or network needed.
+# Only the classes the benchmarks use are compiled from src, so the
+# XChart library is not required.
+# ex: bench/run.sh polynomial -i 5
+set -e
+cd "$(dirname "$0")/.."
+out="${TMPDIR:-/tmp}/calculator-bench"
+rm -rf "$out"
+mkdir -p "$out"
+javac -encoding UTF-8 -d "$out" -sourcepath src:bench $(find bench -name '*.java')
+exec java -cp "$out" bench.BenchMain "$@"
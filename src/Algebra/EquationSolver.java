@@ -1,16 +1,31 @@
 package Algebra;
 
+import Numeric.FixedFormatter;
 import Parser.EquationParser;
 import OperationsBundle.BinaryStrategy;
 import OperationsBundle.UnaryStrategy;
 import OperationsBundle.PowStrategy;
+import Profiling.SolveEvent;
+
+import java.util.Arrays;
 
 /**
  * Solves equations of the form fx = gx for x by
  * parsing to a Polynomial Px = fx - gx and then
- * applying linear / quadratic formulas.
+ * applying linear / quadratic formulas. Also finds the
+ * real roots of polynomials of any degree numerically.
  */
 public class EquationSolver {
+    // largest degree realRoots accepts, it recurses once per degree and
+    // bisects every piece, so the work grows with the cube of the degree
+    public static final int MAX_DEGREE = 256;
+
+    // relative size of p at a turning point below which it counts as a double root
+    private static final double DOUBLE_ROOT_TOLERANCE = 1e-12;
+
+    // bisection steps, enough to shrink any double interval to adjacent values
+    private static final int MAX_BISECTIONS = 1100;
+
     /**
      * Private constructor for EquationSolver
      */
@@ -46,11 +61,31 @@ public class EquationSolver {
             PowStrategy powOp,
             UnaryStrategy rootOp) {
 
-        // Parse the equation and converts it to a polynomial Px = 0
-        EquationParser parser =
-                new EquationParser(expr, addOp, subOp, mulOp, divOp, negOp, powOp, rootOp);
-        Polynomial poly = parser.parse();
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        int deg = -1;
+        boolean solved = false;
+        try {
+            // Parse the equation and converts it to a polynomial Px = 0
+            EquationParser parser =
+                    new EquationParser(expr, addOp, subOp, mulOp, divOp, negOp, powOp, rootOp);
+            Polynomial poly = parser.parse();
+            deg = poly.degree();
 
+            String solution = solve(poly);
+            solved = true;
+            return solution;
+        } finally {
+            event.finish(expr.length(), deg, solved);
+        }
+    }
+
+    /**
+     * Solves a parsed linear or quadratic equation Px = 0
+     * @param poly left side minus right side of the equation
+     * @return String solutions for x
+     */
+    private static String solve(Polynomial poly) {
         // Check the degree of the polynomial (1 linear, 2 quadratic)
         int deg = poly.degree();
 
@@ -87,17 +122,187 @@ public class EquationSolver {
             if (disc < 0) {
                 double real = -b / (2.0 * a);
                 double imag = Math.sqrt(-disc) / (2.0 * a);
-                return String.format("x = %.4f ± %.4fi", real, imag);
+                return "x = " + FixedFormatter.format(real, 4) + " ± " + FixedFormatter.format(imag, 4) + "i";
             } else {
                 // else calculates real roots
                 double sqrtD = Math.sqrt(disc);
                 double x1 = (-b + sqrtD) / (2.0 * a);
                 double x2 = (-b - sqrtD) / (2.0 * a);
-                return String.format("x1 = %.4f, x2 = %.4f", x1, x2);
+                return "x1 = " + FixedFormatter.format(x1, 4) + ", x2 = " + FixedFormatter.format(x2, 4);
             }
         }
 
         // error handling, if anything other than liner or quad return error
         throw new IllegalArgumentException("Only linear and quadratic equations are supported");
     }
+
+    /**
+     * Finds the distinct real roots of a polynomial in increasing order.
+     * Degrees 1 and 2 use the linear and quadratic formulas. Higher degrees
+     * first find the roots of the derivative, p is monotonic between them,
+     * so each piece holds at most one root which is found by bisection.
+     * A zero polynomial has no isolated roots and returns an empty array.
+     * @param p polynomial to solve p(x) = 0
+     * @return sorted real roots
+     * @throws IllegalArgumentException if the degree exceeds MAX_DEGREE
+     */
+    public static double[] realRoots(Polynomial p) {
+        int deg = p.degree();
+        if (deg > MAX_DEGREE) {
+            throw new IllegalArgumentException("Degree " + deg + " too large to solve, the limit is " + MAX_DEGREE);
+        }
+
+        if (deg <= 0) {
+            return new double[0];
+        }
+
+        // adding 0.0 turns a -0.0 root into 0.0
+        if (deg == 1) {
+            return new double[] { -p.getC() / (double) p.getB() + 0.0 };
+        }
+
+        if (deg == 2) {
+            double a = p.getA();
+            double b = p.getB();
+            double c = p.getC();
+            double disc = b * b - 4.0 * a * c;
+            if (disc < 0) {
+                return new double[0];
+            }
+            if (disc == 0) {
+                return new double[] { -b / (2.0 * a) + 0.0 };
+            }
+
+            // avoids cancellation between -b and sqrt(disc)
+            double q = -0.5 * (b + Math.copySign(Math.sqrt(disc), b));
+            double x1 = q / a;
+            double x2 = (q != 0) ? c / q : -x1;
+            return (x1 < x2) ? new double[] { x1, x2 } : new double[] { x2, x1 };
+        }
+
+        // turning points split the line into monotonic pieces
+        double[] crit = realRoots(p.derivative());
+        double bound = rootBound(p);
+
+        double[] edges = new double[crit.length + 2];
+        edges[0] = -bound;
+        for (int i = 0; i < crit.length; i++) {
+            edges[i + 1] = crit[i];
+        }
+        edges[edges.length - 1] = bound;
+
+        double[] roots = new double[deg];
+        int n = 0;
+        for (int i = 0; i + 1 < edges.length; i++) {
+            double lo = edges[i];
+            double hi = edges[i + 1];
+            if (!(lo < hi)) {
+                continue;
+            }
+
+            double flo = p.evaluate(lo);
+            double fhi = p.evaluate(hi);
+
+            // a root at a turning point touches the axis, keep it once
+            if (flo == 0) {
+                if (n == 0 || roots[n - 1] != lo) roots[n++] = lo;
+                continue;
+            }
+            if (fhi == 0) {
+                if (n == 0 || roots[n - 1] != hi) roots[n++] = hi;
+                continue;
+            }
+            if ((flo < 0) != (fhi < 0)) {
+                roots[n++] = bisect(p, lo, hi, flo);
+            }
+        }
+
+        // turning points where p is zero up to rounding are double roots
+        for (double c : crit) {
+            if (nearZero(p, c, DOUBLE_ROOT_TOLERANCE) && !contains(roots, n, c)) {
+                roots[n++] = c;
+            }
+        }
+
+        roots = Arrays.copyOf(roots, n);
+        Arrays.sort(roots);
+        return roots;
+    }
+
+    /**
+     * Cauchy's bound, every real root lies in [-bound, bound]
+     * @param p polynomial of degree >= 1
+     * @return root bound
+     */
+    private static double rootBound(Polynomial p) {
+        int deg = p.degree();
+        double lead = Math.abs((double) p.get(deg));
+        double max = 0;
+        for (int i = 0; i < p.termCount() && p.termExponent(i) < deg; i++) {
+            max = Math.max(max, Math.abs(p.termCoefficient(i) / lead));
+        }
+        return 1.0 + max;
+    }
+
+    /**
+     * Bisects a bracket [lo, hi] where p changes sign until the interval
+     * can't be split further in doubles
+     * @param p polynomial
+     * @param lo left end
+     * @param hi right end
+     * @param flo p(lo)
+     * @return root inside the bracket
+     */
+    private static double bisect(Polynomial p, double lo, double hi, double flo) {
+        for (int i = 0; i < MAX_BISECTIONS; i++) {
+            double mid = lo + (hi - lo) / 2;
+            if (mid <= lo || mid >= hi) {
+                break;
+            }
+            double fmid = p.evaluate(mid);
+            if (fmid == 0) {
+                return mid;
+            }
+            if ((fmid < 0) == (flo < 0)) {
+                lo = mid;
+                flo = fmid;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo + (hi - lo) / 2;
+    }
+
+    /**
+     * Checks if p(x) is zero relative to the size of its terms at x, the
+     * scale of the rounding error of evaluating it
+     * @param p polynomial
+     * @param x point to check
+     * @param tolerance allowed |p(x)| as a fraction of the sum of |terms|
+     * @return true if p(x) is indistinguishable from zero
+     */
+    public static boolean nearZero(Polynomial p, double x, double tolerance) {
+        double scale = 0;
+        double ax = Math.abs(x);
+        for (int i = 0; i < p.termCount(); i++) {
+            scale += Math.abs(p.termCoefficient(i)) * Math.pow(ax, p.termExponent(i));
+        }
+        return Math.abs(p.evaluate(x)) <= tolerance * scale;
+    }
+
+    /**
+     * Checks if the first n roots already contain x, up to rounding
+     * @param roots roots found so far
+     * @param n number of roots found
+     * @param x candidate
+     * @return true if x is a duplicate
+     */
+    private static boolean contains(double[] roots, int n, double x) {
+        for (int i = 0; i < n; i++) {
+            if (Math.abs(roots[i] - x) <= 1e-9 * Math.max(1.0, Math.abs(x))) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
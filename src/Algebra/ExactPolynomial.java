@@ -0,0 +1,395 @@
+package Algebra;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An immutable polynomial in x with arbitrary precision coefficients.
+ * Polynomial keeps int coefficients that wrap on overflow, which is fast
+ * but wrong for expansions such as (3x + 7)^2000. This type gives the
+ * exact result instead.
+ *
+ * Products of more than a few terms and powers are computed modulo many
+ * word-size primes in parallel and rebuilt with the Chinese remainder
+ * theorem (see MultiModular), which avoids big number multiplication
+ * altogether. Short products, and results beyond the modular limits,
+ * use schoolbook BigInteger convolution.
+ */
+public final class ExactPolynomial {
+    // products where a factor has at most this many terms use schoolbook
+    private static final int SCHOOLBOOK_MAX_TERMS = 8;
+
+    // shared instance of fx = 0
+    private static final ExactPolynomial ZERO = new ExactPolynomial(new BigInteger[0]);
+
+    // index k stores the coefficient of x^k, trimmed so the last entry is
+    // non-zero, empty for the zero polynomial
+    private final BigInteger[] cs;
+
+    // cached hash code, 0 until first computed
+    private int hash;
+
+    /**
+     * Private constructor used internally, takes ownership of the array
+     * @param cs trimmed coefficient array
+     */
+    private ExactPolynomial(BigInteger[] cs) {
+        this.cs = cs;
+    }
+
+    /**
+     * Wraps a coefficient array after removing trailing zeros
+     * @param cs coefficient array, must not be used by the caller afterwards
+     * @return polynomial
+     */
+    private static ExactPolynomial wrap(BigInteger[] cs) {
+        int n = cs.length;
+        while (n > 0 && cs[n - 1].signum() == 0) {
+            n--;
+        }
+        if (n == 0) {
+            return ZERO;
+        }
+        return new ExactPolynomial(n == cs.length ? cs : Arrays.copyOf(cs, n));
+    }
+
+    /**
+     * Creates a constant polynomial fx = c
+     * @param c constant value
+     * @return polynomial with degree 0
+     */
+    public static ExactPolynomial constant(BigInteger c) {
+        return wrap(new BigInteger[] {c});
+    }
+
+    /**
+     * Creates the polynomial fx = x
+     * @return polynomial x
+     */
+    public static ExactPolynomial x() {
+        return wrap(new BigInteger[] {BigInteger.ZERO, BigInteger.ONE});
+    }
+
+    /**
+     * Returns the zero polynomial fx = 0
+     */
+    public static ExactPolynomial zero() {
+        return ZERO;
+    }
+
+    /**
+     * Builds a polynomial from coefficients in increasing order
+     * @param cs coefficients, index k is the coefficient of x^k
+     * @return polynomial
+     */
+    public static ExactPolynomial of(BigInteger... cs) {
+        for (BigInteger c : cs) {
+            if (c == null) {
+                throw new IllegalArgumentException("Coefficient must not be null");
+            }
+        }
+        return wrap(cs.clone());
+    }
+
+    /**
+     * Converts a polynomial with int coefficients
+     * @param p polynomial
+     * @return the same polynomial with exact coefficients
+     */
+    public static ExactPolynomial of(Polynomial p) {
+        BigInteger[] r = new BigInteger[p.degree() + 1];
+        Arrays.fill(r, BigInteger.ZERO);
+        for (int i = 0; i < p.termCount(); i++) {
+            r[p.termExponent(i)] = BigInteger.valueOf(p.termCoefficient(i));
+        }
+        return wrap(r);
+    }
+
+    /**
+     * Retrieves coefficient of x^k
+     * @param k exponent
+     * @return coefficient, zero if k is out of range
+     */
+    public BigInteger get(int k) {
+        return k >= 0 && k < cs.length ? cs[k] : BigInteger.ZERO;
+    }
+
+    /**
+     * Finds the degree of the polynomial
+     * @return the degree, -1 for the zero polynomial
+     */
+    public int degree() {
+        return cs.length - 1;
+    }
+
+    /**
+     * Adds two polynomials coefficient-wise
+     * @param p polynomial to add
+     * @return resulting polynomial
+     */
+    public ExactPolynomial add(ExactPolynomial p) {
+        BigInteger[] r = new BigInteger[Math.max(cs.length, p.cs.length)];
+        for (int k = 0; k < r.length; k++) {
+            r[k] = get(k).add(p.get(k));
+        }
+        return wrap(r);
+    }
+
+    /**
+     * Subtracts a polynomial coefficient-wise
+     * @param p polynomial to subtract
+     * @return resulting polynomial
+     */
+    public ExactPolynomial sub(ExactPolynomial p) {
+        BigInteger[] r = new BigInteger[Math.max(cs.length, p.cs.length)];
+        for (int k = 0; k < r.length; k++) {
+            r[k] = get(k).subtract(p.get(k));
+        }
+        return wrap(r);
+    }
+
+    /**
+     * Multiplies every coefficient by a constant
+     * @param k constant multiplier
+     * @return resulting polynomial
+     */
+    public ExactPolynomial mulConst(BigInteger k) {
+        BigInteger[] r = new BigInteger[cs.length];
+        for (int i = 0; i < r.length; i++) {
+            r[i] = cs[i].multiply(k);
+        }
+        return wrap(r);
+    }
+
+    /**
+     * Divides every coefficient by a constant, truncating like int division
+     * @param d constant divisor
+     * @return resulting polynomial
+     */
+    public ExactPolynomial divConst(BigInteger d) {
+        if (d.signum() == 0) {
+            throw new IllegalArgumentException("Division by zero");
+        }
+        BigInteger[] r = new BigInteger[cs.length];
+        for (int i = 0; i < r.length; i++) {
+            r[i] = cs[i].divide(d);
+        }
+        return wrap(r);
+    }
+
+    /**
+     * Multiplies two polynomials on the common fork-join pool
+     * @param o other polynomial
+     * @return product polynomial
+     */
+    public ExactPolynomial mul(ExactPolynomial o) {
+        return mul(o, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Multiplies two polynomials. Unless a factor has only a few terms,
+     * the product is computed modulo enough primes to cover the largest
+     * possible coefficient, one prime per task on the pool.
+     * @param o other polynomial
+     * @param pool pool for the modular products
+     * @return product polynomial
+     */
+    public ExactPolynomial mul(ExactPolynomial o, ForkJoinPool pool) {
+        if (cs.length == 0 || o.cs.length == 0) {
+            return ZERO;
+        }
+        int length = cs.length + o.cs.length - 1;
+        if (Math.min(cs.length, o.cs.length) > SCHOOLBOOK_MAX_TERMS) {
+            // every coefficient sums at most min(n1, n2) products
+            double bits = log2(maxAbs()) + log2(o.maxAbs()) + log2(BigInteger.valueOf(Math.min(cs.length, o.cs.length)));
+            if (MultiModular.fits(length, bits)) {
+                return wrap(MultiModular.mul(cs, o.cs, bits, pool));
+            }
+        }
+        return mulSchoolbook(o);
+    }
+
+    /**
+     * Raises the polynomial to a non-negative power on the common fork-join pool
+     * @param e exponent
+     * @return polynomial raised to e
+     */
+    public ExactPolynomial pow(int e) {
+        return pow(e, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Raises the polynomial to a non-negative power. If the result fits
+     * the modular limits the base is transformed once per prime and every
+     * point raised to the power, otherwise repeated squaring is used.
+     * @param e exponent
+     * @param pool pool for the modular products
+     * @return polynomial raised to e
+     */
+    public ExactPolynomial pow(int e, ForkJoinPool pool) {
+        // negative exponents not supported
+        if (e < 0) {
+            throw new IllegalArgumentException("Negative exponent not supported");
+        }
+        if (e == 0) {
+            return constant(BigInteger.ONE);
+        }
+        if (cs.length == 0 || e == 1) {
+            return this;
+        }
+        long length = (long) degree() * e + 1;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Degree too large: " + (length - 1));
+        }
+
+        // coefficients of f^e are at most (sum of |coefficients|)^e
+        if (cs.length > 1) {
+            BigInteger l1 = BigInteger.ZERO;
+            for (BigInteger c : cs) {
+                l1 = l1.add(c.abs());
+            }
+            double bits = e * log2(l1);
+            if (MultiModular.fits((int) length, bits)) {
+                return wrap(MultiModular.pow(cs, e, bits, pool));
+            }
+        }
+
+        // result = this^(bits of e seen so far), base = this^(2^bit)
+        ExactPolynomial result = null;
+        ExactPolynomial base = this;
+        while (true) {
+            if ((e & 1) != 0) {
+                result = result == null ? base : result.mul(base, pool);
+            }
+            e >>>= 1;
+            if (e == 0) {
+                return result;
+            }
+            base = base.mul(base, pool);
+        }
+    }
+
+    /**
+     * Converts to int coefficients
+     * @return the same polynomial as a Polynomial
+     * @throws IllegalArgumentException if a coefficient does not fit an int
+     */
+    public Polynomial toPolynomial() {
+        Polynomial.Builder b = Polynomial.builder();
+        for (int k = 0; k < cs.length; k++) {
+            if (cs[k].bitLength() > 31) {
+                throw new IllegalArgumentException("Coefficient too large for int: x^" + k);
+            }
+            b.set(k, cs[k].intValue());
+        }
+        return b.build();
+    }
+
+    /**
+     * Schoolbook convolution, one big integer product per pair of terms
+     */
+    private ExactPolynomial mulSchoolbook(ExactPolynomial o) {
+        BigInteger[] r = new BigInteger[cs.length + o.cs.length - 1];
+        Arrays.fill(r, BigInteger.ZERO);
+        for (int i = 0; i < cs.length; i++) {
+            if (cs[i].signum() == 0) {
+                continue;
+            }
+            for (int j = 0; j < o.cs.length; j++) {
+                r[i + j] = r[i + j].add(cs[i].multiply(o.cs[j]));
+            }
+        }
+        return wrap(r);
+    }
+
+    private BigInteger maxAbs() {
+        BigInteger m = BigInteger.ZERO;
+        for (BigInteger c : cs) {
+            if (c.abs().compareTo(m) > 0) {
+                m = c.abs();
+            }
+        }
+        return m;
+    }
+
+    /**
+     * log2 of a non-negative number, rounded up slightly
+     */
+    private static double log2(BigInteger v) {
+        int n = v.bitLength();
+        if (n <= 52) {
+            return Math.log(v.doubleValue() + 1) / Math.log(2);
+        }
+        // top 52 bits carry the fraction, one more unit covers the rest
+        return n - 52 + Math.log(v.shiftRight(n - 52).doubleValue() + 1) / Math.log(2);
+    }
+
+    /**
+     * Two polynomials are equal when their coefficients are equal
+     * @param o object to compare with
+     * @return true if the coefficients match
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ExactPolynomial)) {
+            return false;
+        }
+        return Arrays.equals(cs, ((ExactPolynomial) o).cs);
+    }
+
+    /**
+     * Hash code of the coefficients
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Arrays.hashCode(cs);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Prints the polynomial in standard form like Polynomial,
+     * ex: "9x^2 + 42x + 49"
+     * @return the string representation of the polynomial
+     */
+    @Override
+    public String toString() {
+        if (cs.length == 0) return "0";
+
+        StringBuilder sb = new StringBuilder();
+        for (int k = cs.length - 1; k >= 0; k--) {
+            BigInteger coeff = cs[k];
+            if (coeff.signum() == 0) continue;
+
+            // adds correct sign to string
+            if (sb.length() == 0) {
+                if (coeff.signum() < 0) sb.append("-");
+            } else {
+                sb.append(coeff.signum() < 0 ? " - " : " + ");
+            }
+
+            BigInteger abs = coeff.abs();
+            if (k == 0) {
+                sb.append(abs);
+            } else {
+                // prints coefficient only if not 1
+                if (!abs.equals(BigInteger.ONE)) {
+                    sb.append(abs);
+                }
+                sb.append("x");
+                if (k != 1) {
+                    sb.append("^").append(k);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package Algebra;
+
+/**
+ * Interval is a closed range [lo, hi] of doubles used for interval
+ * arithmetic. Every operation rounds the result outwards, so the exact
+ * result of the operation on any values inside the operands is always
+ * inside the result. Overflow widens the bound to infinity instead of
+ * being lost.
+ */
+public final class Interval {
+    // the interval that contains every value, used when a result is undefined
+    public static final Interval ENTIRE =
+            new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    public final double lo;
+    public final double hi;
+
+    /**
+     * Constructor for Interval
+     * @param lo lower bound
+     * @param hi upper bound, must not be below lo
+     */
+    public Interval(double lo, double hi) {
+        if (!(lo <= hi)) {
+            throw new IllegalArgumentException("Interval lo must not be above hi");
+        }
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * Creates the interval holding a single value
+     * @param v value
+     * @return [v, v]
+     */
+    public static Interval point(double v) {
+        return new Interval(v, v);
+    }
+
+    /**
+     * Width of the interval
+     * @return hi - lo, infinite if either bound is
+     */
+    public double width() {
+        return hi - lo;
+    }
+
+    /**
+     * Checks if a value lies inside the interval
+     * @param v value
+     * @return true if lo <= v <= hi
+     */
+    public boolean contains(double v) {
+        return lo <= v && v <= hi;
+    }
+
+    /**
+     * Adds two intervals
+     * @param o other interval
+     * @return enclosure of this + o
+     */
+    public Interval add(Interval o) {
+        return of(Math.nextDown(lo + o.lo), Math.nextUp(hi + o.hi));
+    }
+
+    /**
+     * Adds a constant
+     * @param c constant
+     * @return enclosure of this + c
+     */
+    public Interval add(double c) {
+        return of(Math.nextDown(lo + c), Math.nextUp(hi + c));
+    }
+
+    /**
+     * Multiplies two intervals, the bounds are the extremes of the four
+     * products of the end points
+     * @param o other interval
+     * @return enclosure of this * o
+     */
+    public Interval mul(Interval o) {
+        double a = lo * o.lo;
+        double b = lo * o.hi;
+        double c = hi * o.lo;
+        double d = hi * o.hi;
+        double min = Math.min(Math.min(a, b), Math.min(c, d));
+        double max = Math.max(Math.max(a, b), Math.max(c, d));
+        return of(Math.nextDown(min), Math.nextUp(max));
+    }
+
+    /**
+     * Raises the interval to a non-negative integer power. Unlike
+     * repeated mul() this is tight: [-1, 2]^2 is [0, 4], not [-2, 4].
+     * Math.pow is within 1 ulp, the bounds are moved out by two.
+     * @param n exponent, n >= 0
+     * @return enclosure of x^n for every x in the interval
+     */
+    public Interval pow(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Negative exponent not supported");
+        }
+        if (n == 0) {
+            return point(1);
+        }
+        if (n == 1) {
+            return this;
+        }
+        double a = Math.pow(lo, n);
+        double b = Math.pow(hi, n);
+        if (n % 2 == 1 || lo >= 0) {
+            // increasing on the interval
+            return of(Math.nextDown(Math.nextDown(a)), Math.nextUp(Math.nextUp(b)));
+        }
+        if (hi <= 0) {
+            // even power of negative values, decreasing
+            return of(Math.nextDown(Math.nextDown(b)), Math.nextUp(Math.nextUp(a)));
+        }
+        // even power across 0, the minimum is exactly 0
+        return of(0, Math.nextUp(Math.nextUp(Math.max(a, b))));
+    }
+
+    /**
+     * Builds an interval from computed bounds. 0 * infinity gives NaN,
+     * in that case nothing is known and the whole line is returned.
+     * @param lo lower bound
+     * @param hi upper bound
+     * @return the interval, or ENTIRE if a bound is NaN
+     */
+    private static Interval of(double lo, double hi) {
+        if (Double.isNaN(lo) || Double.isNaN(hi)) {
+            return ENTIRE;
+        }
+        return new Interval(lo, hi);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lo + ", " + hi + "]";
+    }
+}
@@ -0,0 +1,478 @@
+package Algebra;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Exact products and powers of big integer polynomials computed modulo
+ * many word-size primes. Each prime has the form c * 2^18 + 1 below 2^31,
+ * so a polynomial of degree below 2^18 is multiplied with one number
+ * theoretic transform per prime in long arithmetic. The primes are
+ * independent of each other and run as separate fork-join tasks, then
+ * every coefficient is rebuilt from its residues with the Chinese
+ * remainder theorem, also in parallel.
+ *
+ * Enough primes are used for their product to exceed twice a bound on
+ * the result coefficients, so the rebuilt values are exact, including
+ * their signs.
+ */
+final class MultiModular {
+    // transforms are at most 2^LOG_MAX_LENGTH points long
+    private static final int LOG_MAX_LENGTH = 18;
+
+    /** Longest supported result, in coefficients */
+    static final int MAX_LENGTH = 1 << LOG_MAX_LENGTH;
+
+    // residues kept at once, about 128 MB, larger results are refused
+    private static final long MAX_RESIDUES = 1L << 25;
+
+    // coefficients rebuilt per task
+    private static final int CRT_BLOCK = 64;
+
+    private MultiModular() {}
+
+    /**
+     * Primes c * 2^18 + 1 below 2^31 in decreasing order, with a root of
+     * unity of order 2^18 for each and the running sum of their log2
+     */
+    private static final class Primes {
+        static final int[] P;
+        static final int[] ROOT;
+        static final double[] LOG2_PRODUCT;
+
+        static {
+            List<Integer> ps = new ArrayList<>();
+            for (long c = (Integer.MAX_VALUE >> LOG_MAX_LENGTH); c > 0; c--) {
+                long p = (c << LOG_MAX_LENGTH) + 1;
+                if (isPrime(p)) {
+                    ps.add((int) p);
+                }
+            }
+            P = ps.stream().mapToInt(Integer::intValue).toArray();
+            ROOT = new int[P.length];
+            LOG2_PRODUCT = new double[P.length];
+            double sum = 0;
+            for (int i = 0; i < P.length; i++) {
+                long p = P[i];
+                // a^((p - 1) / 2^18) has order exactly 2^18 unless its
+                // 2^17-th power is already 1
+                for (long a = 2; ; a++) {
+                    long w = pow(a, (p - 1) >> LOG_MAX_LENGTH, p);
+                    if (pow(w, MAX_LENGTH >> 1, p) == p - 1) {
+                        ROOT[i] = (int) w;
+                        break;
+                    }
+                }
+                sum += Math.log(p) / Math.log(2);
+                LOG2_PRODUCT[i] = sum;
+            }
+        }
+    }
+
+    /**
+     * Number of primes whose product exceeds 2^bits
+     * @param bits size of the product in bits
+     * @return number of primes, -1 if there are not enough
+     */
+    static int primesFor(double bits) {
+        double[] log2 = Primes.LOG2_PRODUCT;
+        for (int k = 0; k < log2.length; k++) {
+            if (log2[k] > bits) {
+                return k + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a result fits the transform length and residue limits
+     * @param length result coefficients
+     * @param bits bound on log2 of the largest result coefficient
+     * @return true if mul or pow can compute it
+     */
+    static boolean fits(int length, double bits) {
+        int k = primesFor(bits + 2);
+        return length <= MAX_LENGTH && k > 0 && (long) k * length <= MAX_RESIDUES;
+    }
+
+    /**
+     * Multiplies two polynomials exactly
+     * @param a coefficients of the first factor, index k for x^k
+     * @param b coefficients of the second factor
+     * @param bits bound on log2 of the largest product coefficient
+     * @param pool pool running the primes and the reconstruction
+     * @return product coefficients, length a.length + b.length - 1
+     */
+    static BigInteger[] mul(BigInteger[] a, BigInteger[] b, double bits, ForkJoinPool pool) {
+        int length = a.length + b.length - 1;
+        return run(length, bits, pool, (mod, root, out) -> {
+            int n = transformLength(length);
+            long[] fa = residues(a, mod.p, n);
+            long[] fb = residues(b, mod.p, n);
+            long w = rootOfLength(root, n, mod);
+            ntt(fa, w, mod);
+            ntt(fb, w, mod);
+            for (int i = 0; i < n; i++) {
+                fa[i] = mod.mul(fa[i], fb[i]);
+            }
+            inverse(fa, w, mod, out);
+        });
+    }
+
+    /**
+     * Raises a polynomial to a power exactly, transforming it once and
+     * raising every point of the transform to the power
+     * @param a coefficients of the base
+     * @param e exponent, at least 1
+     * @param bits bound on log2 of the largest result coefficient
+     * @param pool pool running the primes and the reconstruction
+     * @return coefficients of the power, length (a.length - 1) * e + 1
+     */
+    static BigInteger[] pow(BigInteger[] a, int e, double bits, ForkJoinPool pool) {
+        int length = (a.length - 1) * e + 1;
+        return run(length, bits, pool, (mod, root, out) -> {
+            int n = transformLength(length);
+            long[] fa = residues(a, mod.p, n);
+            long w = rootOfLength(root, n, mod);
+            ntt(fa, w, mod);
+            for (int i = 0; i < n; i++) {
+                fa[i] = mod.pow(fa[i], e);
+            }
+            inverse(fa, w, mod, out);
+        });
+    }
+
+    /**
+     * Work done for one prime: the residues of the result modulo p
+     */
+    private interface Residues {
+        void compute(Mod mod, long root, int[] out);
+    }
+
+    /**
+     * Computes the residues for enough primes in parallel and rebuilds
+     * the coefficients from them
+     */
+    private static BigInteger[] run(int length, double bits, ForkJoinPool pool, Residues job) {
+        if (!fits(length, bits)) {
+            throw new IllegalArgumentException("Result too large for modular arithmetic: " + length + " coefficients of " + (long) bits + " bits");
+        }
+        // one more bit for the sign and one for rounding in the bound
+        int k = primesFor(bits + 2);
+        int[][] residues = new int[k][length];
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            int t = i;
+            tasks.add(ForkJoinTask.adapt(() -> job.compute(new Mod(Primes.P[t]), Primes.ROOT[t], residues[t])));
+        }
+        invokeAll(pool, tasks);
+
+        BigInteger[] result = new BigInteger[length];
+        Crt crt = new Crt(k);
+        tasks.clear();
+        for (int lo = 0; lo < length; lo += CRT_BLOCK) {
+            int from = lo;
+            int to = Math.min(length, lo + CRT_BLOCK);
+            tasks.add(ForkJoinTask.adapt(() -> crt.rebuild(residues, result, from, to)));
+        }
+        invokeAll(pool, tasks);
+        return result;
+    }
+
+    private static void invokeAll(ForkJoinPool pool, List<ForkJoinTask<?>> tasks) {
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds integers from their residues with the Chinese remainder
+     * theorem in sum form: with M the product of the primes and
+     * y(i) = r(i) (M/p(i))^-1 mod p(i), x = sum y(i) M/p(i) - q M. The sum
+     * needs only word multiply-adds into the magnitude, and q is the
+     * rounded sum of y(i)/p(i), which also picks the representative
+     * nearest zero so negative coefficients come out directly.
+     */
+    private static final class Crt {
+        private final int k;
+        private final Mod[] mods;
+        // (M/p(i))^-1 mod p(i)
+        private final long[] inverse;
+        // 32 bit words of M/p(i), least significant first
+        private final int[][] cofactor;
+        private final BigInteger modulus;
+        private final BigInteger half;
+
+        Crt(int k) {
+            this.k = k;
+            mods = new Mod[k];
+            inverse = new long[k];
+            BigInteger m = BigInteger.ONE;
+            for (int i = 0; i < k; i++) {
+                mods[i] = new Mod(Primes.P[i]);
+                m = m.multiply(BigInteger.valueOf(Primes.P[i]));
+            }
+            modulus = m;
+            half = m.shiftRight(1);
+
+            int words = (m.bitLength() + 31) / 32;
+            cofactor = new int[k][];
+            for (int i = 0; i < k; i++) {
+                BigInteger p = BigInteger.valueOf(Primes.P[i]);
+                BigInteger c = m.divide(p);
+                inverse[i] = c.modInverse(p).longValue();
+                cofactor[i] = toWords(c, words);
+            }
+        }
+
+        void rebuild(int[][] residues, BigInteger[] result, int from, int to) {
+            int words = cofactor[0].length;
+            // the sum is below k M, one extra word holds it
+            int[] acc = new int[words + 1];
+            for (int c = from; c < to; c++) {
+                Arrays.fill(acc, 0);
+                double q = 0;
+                for (int i = 0; i < k; i++) {
+                    Mod mod = mods[i];
+                    long y = mod.mul(residues[i][c], inverse[i]);
+                    q += (double) y / mod.p;
+
+                    // acc += y * M/p(i), y < 2^31 keeps every step below 2^64
+                    int[] f = cofactor[i];
+                    long carry = 0;
+                    for (int w = 0; w < words; w++) {
+                        long cur = (acc[w] & 0xFFFFFFFFL) + y * (f[w] & 0xFFFFFFFFL) + carry;
+                        acc[w] = (int) cur;
+                        carry = cur >>> 32;
+                    }
+                    acc[words] += (int) carry;
+                }
+                BigInteger x = toBigInteger(acc).subtract(modulus.multiply(BigInteger.valueOf(Math.round(q))));
+
+                // rounding of q can be off by one near a half
+                if (x.compareTo(half) > 0) {
+                    x = x.subtract(modulus);
+                } else if (x.compareTo(half.negate()) < 0) {
+                    x = x.add(modulus);
+                }
+                result[c] = x;
+            }
+        }
+
+        private static int[] toWords(BigInteger v, int words) {
+            int[] r = new int[words];
+            for (int w = 0; w < words; w++) {
+                r[w] = v.shiftRight(32 * w).intValue();
+            }
+            return r;
+        }
+
+        private static BigInteger toBigInteger(int[] words) {
+            byte[] bytes = new byte[4 * words.length + 1];
+            for (int w = 0; w < words.length; w++) {
+                int v = words[w];
+                int at = bytes.length - 1 - 4 * w;
+                bytes[at] = (byte) v;
+                bytes[at - 1] = (byte) (v >>> 8);
+                bytes[at - 2] = (byte) (v >>> 16);
+                bytes[at - 3] = (byte) (v >>> 24);
+            }
+            // leading zero byte keeps the value positive
+            return new BigInteger(bytes);
+        }
+    }
+
+    /**
+     * Arithmetic modulo one prime below 2^31. Products are reduced with
+     * Barrett's method, a high multiply instead of a 64 bit division,
+     * which is most of the cost of the transforms and the reconstruction.
+     */
+    private static final class Mod {
+        final long p;
+        // floor((2^64 - 1) / p)
+        private final long m;
+
+        Mod(long p) {
+            this.p = p;
+            this.m = Long.divideUnsigned(-1L, p);
+        }
+
+        /**
+         * x mod p for 0 <= x < 2^63
+         */
+        long reduce(long x) {
+            // the quotient estimate is at most 2 too small
+            long r = x - Math.multiplyHigh(x, m) * p;
+            if (r >= p) {
+                r -= p;
+            }
+            return r >= p ? r - p : r;
+        }
+
+        long mul(long a, long b) {
+            return reduce(a * b);
+        }
+
+        long pow(long b, long e) {
+            long r = 1;
+            while (e > 0) {
+                if ((e & 1) != 0) {
+                    r = mul(r, b);
+                }
+                b = mul(b, b);
+                e >>= 1;
+            }
+            return r;
+        }
+    }
+
+    /**
+     * Coefficients reduced mod p into a zero padded transform buffer
+     */
+    private static long[] residues(BigInteger[] a, long p, int n) {
+        BigInteger mod = BigInteger.valueOf(p);
+        long[] r = new long[n];
+        for (int i = 0; i < a.length; i++) {
+            BigInteger c = a[i];
+            r[i] = c.bitLength() < 63 ? Math.floorMod(c.longValue(), p) : c.mod(mod).longValue();
+        }
+        return r;
+    }
+
+    /**
+     * Smallest power of two at least the given length
+     */
+    private static int transformLength(int length) {
+        return length <= 1 ? 1 : Integer.highestOneBit(length - 1) << 1;
+    }
+
+    /**
+     * Root of unity of order n from the root of order 2^18
+     */
+    private static long rootOfLength(long root, int n, Mod mod) {
+        return mod.pow(root, MAX_LENGTH / n);
+    }
+
+    /**
+     * Inverse transform, scaled by 1/n, keeping the first out.length values
+     */
+    private static void inverse(long[] a, long w, Mod mod, int[] out) {
+        int n = a.length;
+        ntt(a, mod.pow(w, mod.p - 2), mod);
+        long scale = mod.pow(n, mod.p - 2);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (int) mod.mul(a[i], scale);
+        }
+    }
+
+    /**
+     * In place iterative radix-2 number theoretic transform
+     * @param a values mod p, length a power of two
+     * @param w root of unity of order a.length
+     * @param mod arithmetic modulo the prime
+     */
+    private static void ntt(long[] a, long w, Mod mod) {
+        long p = mod.p;
+        int n = a.length;
+        if (n == 1) {
+            return;
+        }
+        // bit reversal permutation
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                long t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        }
+
+        // powers of w, stage len uses every (n / len)-th one
+        long[] twiddle = new long[n >> 1];
+        twiddle[0] = 1;
+        for (int i = 1; i < twiddle.length; i++) {
+            twiddle[i] = mod.mul(twiddle[i - 1], w);
+        }
+        for (int len = 2; len <= n; len <<= 1) {
+            int half = len >> 1;
+            int step = n / len;
+            for (int i = 0; i < n; i += len) {
+                for (int j = 0; j < half; j++) {
+                    long u = a[i + j];
+                    long v = mod.mul(a[i + j + half], twiddle[j * step]);
+                    long s = u + v;
+                    a[i + j] = s >= p ? s - p : s;
+                    long d = u - v;
+                    a[i + j + half] = d < 0 ? d + p : d;
+                }
+            }
+        }
+    }
+
+    /**
+     * b^e mod m by squaring, for m below 2^31
+     */
+    private static long pow(long b, long e, long m) {
+        long r = 1;
+        b %= m;
+        while (e > 0) {
+            if ((e & 1) != 0) {
+                r = r * b % m;
+            }
+            b = b * b % m;
+            e >>= 1;
+        }
+        return r;
+    }
+
+    /**
+     * Deterministic Miller-Rabin for n below 2^32, bases 2, 7 and 61
+     */
+    private static boolean isPrime(long n) {
+        if (n < 2) {
+            return false;
+        }
+        for (long q : new long[] {2, 7, 61}) {
+            if (n % q == 0) {
+                return n == q;
+            }
+        }
+        long d = n - 1;
+        int s = 0;
+        while ((d & 1) == 0) {
+            d >>= 1;
+            s++;
+        }
+        for (long a : new long[] {2, 7, 61}) {
+            long x = pow(a, d, n);
+            if (x == 1 || x == n - 1) {
+                continue;
+            }
+            boolean composite = true;
+            for (int r = 1; r < s; r++) {
+                x = x * x % n;
+                if (x == n - 1) {
+                    composite = false;
+                    break;
+                }
+            }
+            if (composite) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
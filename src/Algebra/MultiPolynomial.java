@@ -0,0 +1,647 @@
+package Algebra;
+
+import java.util.Arrays;
+
+/**
+ * An immutable polynomial in x, y and z with int coefficients, such as
+ * 3x^2y - yz + 1. Like Polynomial, instances never change after
+ * construction and are built up with a Builder.
+ *
+ * Each monomial x^a y^b z^c is packed into one long key with 21 bits per
+ * variable, so multiplying two monomials is adding their keys. Terms live
+ * in an open-addressing hash table of keys and a parallel coefficient
+ * array, which keeps sums and products free of per-term objects and
+ * makes collecting like terms one table probe.
+ */
+public final class MultiPolynomial {
+    /** Names of the variables, in key order */
+    public static final String VARIABLES = "xyz";
+
+    /** Largest exponent of a single variable */
+    public static final int MAX_EXPONENT = (1 << 20) - 1;
+
+    // bits per variable in a key, one more than an exponent needs, so the
+    // sum of two valid keys never carries into the next variable
+    private static final int BITS = 21;
+    private static final long FIELD = (1L << BITS) - 1;
+
+    // marks a free table slot, never a valid key because its top bits are set
+    private static final long EMPTY = -1L;
+
+    // shared instance of f = 0
+    private static final MultiPolynomial ZERO = new Builder(0).build();
+
+    // table of monomial keys, EMPTY for free slots, length is a power of two
+    private final long[] keys;
+
+    // coefficient of the key in the same slot, never zero for a used slot
+    private final int[] coeffs;
+
+    // number of terms
+    private final int size;
+
+    // cached hash code, 0 until first computed
+    private int hash;
+
+    /**
+     * Private constructor used by the builder, takes ownership of the arrays
+     * @param keys key table
+     * @param coeffs coefficient table
+     * @param size used slots
+     */
+    private MultiPolynomial(long[] keys, int[] coeffs, int size) {
+        this.keys = keys;
+        this.coeffs = coeffs;
+        this.size = size;
+    }
+
+    /**
+     * Creates a constant polynomial f = c
+     * @param c constant value
+     * @return polynomial with degree 0
+     */
+    public static MultiPolynomial constant(int c) {
+        return monomial(c, 0, 0, 0);
+    }
+
+    /**
+     * Returns the polynomial f = x
+     */
+    public static MultiPolynomial x() {
+        return variable(0);
+    }
+
+    /**
+     * Returns the polynomial f = y
+     */
+    public static MultiPolynomial y() {
+        return variable(1);
+    }
+
+    /**
+     * Returns the polynomial f = z
+     */
+    public static MultiPolynomial z() {
+        return variable(2);
+    }
+
+    /**
+     * Returns a single variable
+     * @param v index of the variable in VARIABLES
+     * @return polynomial equal to that variable
+     */
+    public static MultiPolynomial variable(int v) {
+        if (v < 0 || v >= VARIABLES.length()) {
+            throw new IllegalArgumentException("Unknown variable index: " + v);
+        }
+        return new Builder(1).add(1L << (BITS * v), 1).build();
+    }
+
+    /**
+     * Creates the single term c x^a y^b z^c
+     * @param c coefficient
+     * @param ex exponent of x
+     * @param ey exponent of y
+     * @param ez exponent of z
+     * @return polynomial with one term, or zero if c is 0
+     */
+    public static MultiPolynomial monomial(int c, int ex, int ey, int ez) {
+        return new Builder(1).add(c, ex, ey, ez).build();
+    }
+
+    /**
+     * Converts a polynomial in x
+     * @param p univariate polynomial
+     * @return the same polynomial in x, y and z
+     */
+    public static MultiPolynomial of(Polynomial p) {
+        if (p.degree() > MAX_EXPONENT) {
+            throw new IllegalArgumentException("Exponent too large: " + p.degree());
+        }
+        Builder b = new Builder(p.termCount());
+        for (int i = 0; i < p.termCount(); i++) {
+            b.add(p.termExponent(i), p.termCoefficient(i));
+        }
+        return b.build();
+    }
+
+    /**
+     * Returns the zero polynomial f = 0
+     */
+    public static MultiPolynomial zero() {
+        return ZERO;
+    }
+
+    /**
+     * Returns a builder for a new polynomial
+     * @return empty builder
+     */
+    public static Builder builder() {
+        return new Builder(4);
+    }
+
+    /**
+     * Retrieves the coefficient of x^a y^b z^c
+     * @param ex exponent of x
+     * @param ey exponent of y
+     * @param ez exponent of z
+     * @return coefficient, 0 if the term is absent
+     */
+    public int get(int ex, int ey, int ez) {
+        if (ex < 0 || ey < 0 || ez < 0 || ex > MAX_EXPONENT || ey > MAX_EXPONENT || ez > MAX_EXPONENT) {
+            return 0;
+        }
+        int s = find(keys, key(ex, ey, ez));
+        return keys[s] == EMPTY ? 0 : coeffs[s];
+    }
+
+    /**
+     * Number of non-zero terms
+     * @return terms, 0 for the zero polynomial
+     */
+    public int termCount() {
+        return size;
+    }
+
+    /**
+     * Total degree, the largest sum of exponents over all terms
+     * @return total degree, -1 for the zero polynomial
+     */
+    public int degree() {
+        int deg = -1;
+        for (long k : keys) {
+            if (k != EMPTY) {
+                deg = Math.max(deg, exponent(k, 0) + exponent(k, 1) + exponent(k, 2));
+            }
+        }
+        return deg;
+    }
+
+    /**
+     * Degree in a single variable
+     * @param v index of the variable in VARIABLES
+     * @return largest exponent of the variable, -1 for the zero polynomial
+     */
+    public int degree(int v) {
+        int deg = -1;
+        for (long k : keys) {
+            if (k != EMPTY) {
+                deg = Math.max(deg, exponent(k, v));
+            }
+        }
+        return deg;
+    }
+
+    /**
+     * Adds two polynomials term-wise
+     * @param o polynomial to add
+     * @return resulting polynomial
+     */
+    public MultiPolynomial add(MultiPolynomial o) {
+        if (o.size == 0) {
+            return this;
+        }
+        if (size == 0) {
+            return o;
+        }
+        Builder b = new Builder(size + o.size);
+        b.addAll(this, 1);
+        b.addAll(o, 1);
+        return b.build();
+    }
+
+    /**
+     * Subtracts a polynomial term-wise
+     * @param o polynomial to subtract
+     * @return resulting polynomial
+     */
+    public MultiPolynomial sub(MultiPolynomial o) {
+        if (o.size == 0) {
+            return this;
+        }
+        Builder b = new Builder(size + o.size);
+        b.addAll(this, 1);
+        b.addAll(o, -1);
+        return b.build();
+    }
+
+    /**
+     * Multiplies every coefficient by a constant
+     * @param k constant multiplier
+     * @return resulting polynomial
+     */
+    public MultiPolynomial mulConst(int k) {
+        if (k == 1) {
+            return this;
+        }
+        Builder b = new Builder(size);
+        b.addAll(this, k);
+        return b.build();
+    }
+
+    /**
+     * Divides every coefficient by a constant, truncating like int division
+     * @param d constant divisor
+     * @return resulting polynomial
+     */
+    public MultiPolynomial divConst(int d) {
+        if (d == 0) {
+            throw new IllegalArgumentException("Division by zero");
+        }
+        Builder b = new Builder(size);
+        for (int s = 0; s < keys.length; s++) {
+            if (keys[s] != EMPTY) {
+                b.add(keys[s], coeffs[s] / d);
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * Multiplies two polynomials. Every pair of terms adds its packed keys
+     * and lands in one hash table, so like terms are collected as they are
+     * produced.
+     * @param o polynomial to multiply by
+     * @return product polynomial
+     */
+    public MultiPolynomial mul(MultiPolynomial o) {
+        if (size == 0 || o.size == 0) {
+            return ZERO;
+        }
+        // checked once here so the inner loop needs no overflow test
+        for (int v = 0; v < VARIABLES.length(); v++) {
+            long e = (long) degree(v) + o.degree(v);
+            if (e > MAX_EXPONENT) {
+                throw new IllegalArgumentException("Exponent too large: " + VARIABLES.charAt(v) + "^" + e);
+            }
+        }
+
+        // walk the smaller table in the inner loop
+        MultiPolynomial a = size >= o.size ? this : o;
+        MultiPolynomial b = a == this ? o : this;
+        long[] bk = b.keys;
+        int[] bc = b.coeffs;
+
+        // products usually collect into far fewer terms than there are
+        // pairs, so start small and let the table grow
+        Builder r = new Builder((int) Math.min((long) size * o.size, 4L * (size + o.size)));
+        for (int i = 0; i < a.keys.length; i++) {
+            long ka = a.keys[i];
+            if (ka == EMPTY) {
+                continue;
+            }
+            int ca = a.coeffs[i];
+            for (int j = 0; j < bk.length; j++) {
+                if (bk[j] != EMPTY) {
+                    r.add(ka + bk[j], ca * bc[j]);
+                }
+            }
+        }
+        return r.build();
+    }
+
+    /**
+     * Raises the polynomial to a non-negative integer power by repeated squaring
+     * @param e exponent
+     * @return polynomial raised to e
+     */
+    public MultiPolynomial pow(int e) {
+        // negative exponents not supported
+        if (e < 0) {
+            throw new IllegalArgumentException("Negative exponent not supported");
+        }
+        if (e == 0) {
+            return constant(1);
+        }
+        if (size == 0 || e == 1) {
+            return this;
+        }
+        for (int v = 0; v < VARIABLES.length(); v++) {
+            long d = (long) degree(v) * e;
+            if (d > MAX_EXPONENT) {
+                throw new IllegalArgumentException("Exponent too large: " + VARIABLES.charAt(v) + "^" + d);
+            }
+        }
+
+        // result = this^(bits of e seen so far), base = this^(2^bit)
+        MultiPolynomial result = null;
+        MultiPolynomial base = this;
+        while (true) {
+            if ((e & 1) != 0) {
+                result = result == null ? base : result.mul(base);
+            }
+            e >>>= 1;
+            if (e == 0) {
+                return result;
+            }
+            base = base.mul(base);
+        }
+    }
+
+    /**
+     * Evaluates the polynomial at a point
+     * @param x value of x
+     * @param y value of y
+     * @param z value of z
+     * @return f(x, y, z)
+     */
+    public double evaluate(double x, double y, double z) {
+        double sum = 0;
+        for (int s = 0; s < keys.length; s++) {
+            long k = keys[s];
+            if (k != EMPTY) {
+                sum += coeffs[s] * pow(x, exponent(k, 0)) * pow(y, exponent(k, 1)) * pow(z, exponent(k, 2));
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Converts to a polynomial in x
+     * @return the same polynomial as a Polynomial
+     * @throws IllegalArgumentException if y or z occur
+     */
+    public Polynomial toPolynomial() {
+        Polynomial.Builder b = Polynomial.builder();
+        for (int s = 0; s < keys.length; s++) {
+            long k = keys[s];
+            if (k == EMPTY) {
+                continue;
+            }
+            if ((k >>> BITS) != 0) {
+                throw new IllegalArgumentException("Not a polynomial in x: " + this);
+            }
+            b.set((int) k, coeffs[s]);
+        }
+        return b.build();
+    }
+
+    /**
+     * Two polynomials are equal when they have the same terms
+     * @param o object to compare with
+     * @return true if the terms match
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MultiPolynomial)) {
+            return false;
+        }
+        MultiPolynomial p = (MultiPolynomial) o;
+        if (size != p.size) {
+            return false;
+        }
+        for (int s = 0; s < keys.length; s++) {
+            if (keys[s] != EMPTY) {
+                int t = find(p.keys, keys[s]);
+                if (p.keys[t] == EMPTY || p.coeffs[t] != coeffs[s]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash code independent of the table layout
+     * @return hash code of the terms
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            for (int s = 0; s < keys.length; s++) {
+                if (keys[s] != EMPTY) {
+                    h += Long.hashCode(keys[s]) * 31 + coeffs[s];
+                }
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Prints the terms by decreasing total degree, then by decreasing
+     * powers of x, y and z in turn, ex: "x^2y - 3z + 1"
+     * @return the string representation of the polynomial
+     */
+    @Override
+    public String toString() {
+        if (size == 0) return "0";
+
+        // ordering keys: total degree above the exponents of x and y,
+        // 20 bits each since exponents are at most MAX_EXPONENT
+        long[] order = new long[size];
+        int n = 0;
+        for (long k : keys) {
+            if (k != EMPTY) {
+                long total = exponent(k, 0) + exponent(k, 1) + exponent(k, 2);
+                order[n++] = total << 40 | (long) exponent(k, 0) << 20 | exponent(k, 1);
+            }
+        }
+        Arrays.sort(order);
+
+        StringBuilder sb = new StringBuilder();
+        for (int t = n - 1; t >= 0; t--) {
+            int ex = (int) (order[t] >>> 20 & MAX_EXPONENT);
+            int ey = (int) (order[t] & MAX_EXPONENT);
+            int ez = (int) (order[t] >>> 40) - ex - ey;
+            int coeff = coeffs[find(keys, key(ex, ey, ez))];
+
+            // absolute value of coefficient
+            int abs = Math.abs(coeff);
+
+            // adds correct sign to string
+            if (sb.length() == 0) {
+                if (coeff < 0) sb.append("-");
+            } else {
+                sb.append(coeff < 0 ? " - " : " + ");
+            }
+
+            // prints coefficient only if not 1 or the term is constant
+            if (abs != 1 || ex + ey + ez == 0) {
+                sb.append(abs);
+            }
+            appendPower(sb, 'x', ex);
+            appendPower(sb, 'y', ey);
+            appendPower(sb, 'z', ez);
+        }
+        return sb.toString();
+    }
+
+    private static void appendPower(StringBuilder sb, char var, int e) {
+        if (e > 0) {
+            sb.append(var);
+            if (e != 1) {
+                sb.append('^').append(e);
+            }
+        }
+    }
+
+    /**
+     * Packs exponents into a key, x in the low bits
+     */
+    private static long key(int ex, int ey, int ez) {
+        return ex | (long) ey << BITS | (long) ez << 2 * BITS;
+    }
+
+    /**
+     * Unpacks the exponent of one variable from a key
+     */
+    private static int exponent(long key, int v) {
+        return (int) (key >>> BITS * v & FIELD);
+    }
+
+    /**
+     * Home slot of a key in a table of the given length, the top bits of
+     * a Fibonacci hash since its low bits only depend on the exponent of x
+     */
+    private static int slot(long key, int length) {
+        return (int) (key * 0x9E3779B97F4A7C15L >>> Integer.numberOfLeadingZeros(length) + 33);
+    }
+
+    /**
+     * Finds the slot holding a key, or the free slot where it belongs
+     * @param keys key table with at least one free slot
+     * @param key key to look up
+     * @return slot index
+     */
+    private static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int s = slot(key, keys.length);
+        while (keys[s] != EMPTY && keys[s] != key) {
+            s = (s + 1) & mask;
+        }
+        return s;
+    }
+
+    /**
+     * x^e by squaring, exact for the small integer exponents used here
+     */
+    private static double pow(double x, int e) {
+        double r = 1;
+        while (e != 0) {
+            if ((e & 1) != 0) {
+                r *= x;
+            }
+            e >>>= 1;
+            x *= x;
+        }
+        return r;
+    }
+
+    /**
+     * Builder used to construct a MultiPolynomial term by term. Like terms
+     * are collected as they are added, terms that cancel to zero are
+     * dropped by build().
+     */
+    public static final class Builder {
+        private long[] keys;
+        private int[] coeffs;
+        private int used = 0;
+
+        /**
+         * Creates a builder with room for the expected number of terms
+         * @param expected terms before the table grows
+         */
+        private Builder(int expected) {
+            int cap = tableSize(expected);
+            keys = new long[cap];
+            coeffs = new int[cap];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        /**
+         * Adds c x^a y^b z^c to the polynomial
+         * @param c coefficient to add
+         * @param ex exponent of x
+         * @param ey exponent of y
+         * @param ez exponent of z
+         * @return this builder
+         */
+        public Builder add(int c, int ex, int ey, int ez) {
+            if (ex < 0 || ey < 0 || ez < 0) {
+                throw new IllegalArgumentException("Negative exponent not supported");
+            }
+            if (ex > MAX_EXPONENT || ey > MAX_EXPONENT || ez > MAX_EXPONENT) {
+                throw new IllegalArgumentException("Exponent too large: " + Math.max(ex, Math.max(ey, ez)));
+            }
+            return add(key(ex, ey, ez), c);
+        }
+
+        /**
+         * Builds the polynomial from a copy of the terms, so adding to the
+         * builder afterwards does not change it
+         * @return polynomial with the non-zero terms
+         */
+        public MultiPolynomial build() {
+            int nonZero = 0;
+            for (int s = 0; s < keys.length; s++) {
+                if (keys[s] != EMPTY && coeffs[s] != 0) {
+                    nonZero++;
+                }
+            }
+            if (nonZero == used) {
+                return new MultiPolynomial(keys.clone(), coeffs.clone(), used);
+            }
+
+            // rehash without the cancelled terms, removing in place would
+            // break the probe chains
+            Builder b = new Builder(nonZero);
+            for (int s = 0; s < keys.length; s++) {
+                if (keys[s] != EMPTY && coeffs[s] != 0) {
+                    b.add(keys[s], coeffs[s]);
+                }
+            }
+            return new MultiPolynomial(b.keys, b.coeffs, nonZero);
+        }
+
+        private void addAll(MultiPolynomial p, int k) {
+            for (int s = 0; s < p.keys.length; s++) {
+                if (p.keys[s] != EMPTY) {
+                    add(p.keys[s], p.coeffs[s] * k);
+                }
+            }
+        }
+
+        private Builder add(long key, int c) {
+            int s = find(keys, key);
+            if (keys[s] == EMPTY) {
+                if (c == 0) {
+                    return this;
+                }
+                // keep the table at most half full
+                if (2 * (used + 1) > keys.length) {
+                    grow();
+                    s = find(keys, key);
+                }
+                keys[s] = key;
+                used++;
+            }
+            coeffs[s] += c;
+            return this;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCoeffs = coeffs;
+            keys = new long[oldKeys.length * 2];
+            coeffs = new int[keys.length];
+            Arrays.fill(keys, EMPTY);
+            for (int s = 0; s < oldKeys.length; s++) {
+                if (oldKeys[s] != EMPTY) {
+                    int t = find(keys, oldKeys[s]);
+                    keys[t] = oldKeys[s];
+                    coeffs[t] = oldCoeffs[s];
+                }
+            }
+        }
+
+        private static int tableSize(int expected) {
+            // power of two with room for the expected terms at half load
+            return Integer.highestOneBit(Math.max(2 * expected, 1)) << 1;
+        }
+    }
+}
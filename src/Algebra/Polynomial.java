@@ -1,16 +1,137 @@
 package Algebra;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-public class Polynomial {
-    // Coefficient list where index k stores the coefficient of x^k
-    private final ArrayList<Integer> term = new ArrayList<>();
+/**
+ * An immutable polynomial in x with int coefficients. Instances never
+ * change after construction, so they can be cached, used as map keys and
+ * shared between threads without copying. Coefficients are built up with
+ * a Builder, equals and hashCode compare the coefficients.
+ *
+ * Polynomials are stored dense, one coefficient per power up to the
+ * degree, or sparse, as sorted exponent and coefficient arrays of the
+ * non-zero terms. The form is picked from the fill ratio every time a
+ * polynomial is created, so x^100000 + 1 takes two terms instead of
+ * 100001 coefficients, and arithmetic on it costs time proportional to
+ * its terms. Equal polynomials always have the same form.
+ */
+public final class Polynomial {
+    // below this degree polynomials are always dense
+    private static final int SPARSE_MIN_DEGREE = 64;
+
+    // sparse when fewer than 1 in SPARSE_FILL coefficients are non-zero
+    private static final int SPARSE_FILL = 16;
+
+    // largest supported degree, keeps array sizes and exponent sums in int range
+    private static final int MAX_DEGREE = Integer.MAX_VALUE - 8;
+
+    // dense products with at least this many coefficient pairs are split
+    // into blocks on a fork-join pool, a few milliseconds of work
+    private static final long PARALLEL_MIN_PAIRS = 1L << 22;
+
+    // shared instance of fx = 0
+    private static final Polynomial ZERO = new Polynomial(new int[0], null);
+
+    // shared instance of fx = x
+    private static final Polynomial X = new Polynomial(new int[] {0, 1}, null);
+
+    // Dense: index k stores the coefficient of x^k, trimmed so the last
+    // entry is non-zero, empty for the zero polynomial.
+    // Sparse: coefficient of the term with exponent exps[i], never zero.
+    private final int[] term;
+
+    // exponents of the terms in increasing order, null when dense
+    private final int[] exps;
+
+    // cached hash code, 0 until first computed
+    private int hash;
+
+    /**
+     * Private constructor used internally, takes ownership of the arrays
+     * @param term trimmed coefficient array, or the sparse coefficients
+     * @param exps sparse exponents, null for the dense form
+     */
+    private Polynomial(int[] term, int[] exps) {
+        this.term = term;
+        this.exps = exps;
+    }
+
+    /**
+     * Wraps a dense coefficient array after removing trailing zeros, and
+     * converts it to the sparse form if few coefficients are non-zero.
+     * The array must not be used by the caller afterwards.
+     * @param cs coefficient array, index k is the coefficient of x^k
+     * @param n number of coefficients in use
+     * @return polynomial
+     */
+    private static Polynomial wrap(int[] cs, int n) {
+        // Find last non-zero coefficient
+        while (n > 0 && cs[n - 1] == 0) {
+            n--;
+        }
+        if (n == 0) {
+            return ZERO;
+        }
+
+        if (n > SPARSE_MIN_DEGREE) {
+            int nonZero = 0;
+            for (int k = 0; k < n; k++) {
+                if (cs[k] != 0) {
+                    nonZero++;
+                }
+            }
+            if (isSparse(nonZero, n - 1)) {
+                int[] e = new int[nonZero];
+                int[] c = new int[nonZero];
+                int t = 0;
+                for (int k = 0; k < n; k++) {
+                    if (cs[k] != 0) {
+                        e[t] = k;
+                        c[t++] = cs[k];
+                    }
+                }
+                return new Polynomial(c, e);
+            }
+        }
+        return new Polynomial(n == cs.length ? cs : Arrays.copyOf(cs, n), null);
+    }
+
+    /**
+     * Wraps sparse terms, converting them to the dense form if the
+     * polynomial is small or mostly filled. The arrays must not be used
+     * by the caller afterwards.
+     * @param e exponents in increasing order
+     * @param c coefficients, none of them zero
+     * @param n number of terms in use
+     * @return polynomial
+     */
+    private static Polynomial sparse(int[] e, int[] c, int n) {
+        if (n == 0) {
+            return ZERO;
+        }
+        int deg = e[n - 1];
+        if (!isSparse(n, deg)) {
+            int[] cs = new int[deg + 1];
+            for (int t = 0; t < n; t++) {
+                cs[e[t]] = c[t];
+            }
+            return new Polynomial(cs, null);
+        }
+        return new Polynomial(n == c.length ? c : Arrays.copyOf(c, n), n == e.length ? e : Arrays.copyOf(e, n));
+    }
 
     /**
-     * Private constructor used internally
+     * Picks the form of a polynomial
+     * @param nonZero number of non-zero coefficients
+     * @param degree degree of the polynomial
+     * @return true if it should be stored sparse
      */
-    private Polynomial() {}
+    private static boolean isSparse(int nonZero, int degree) {
+        return degree >= SPARSE_MIN_DEGREE && (long) nonZero * SPARSE_FILL <= degree;
+    }
 
     /**
      * Creates a constant polynomial fx = c
@@ -18,9 +139,7 @@ public class Polynomial {
      * @return polynomial with degree 0
      */
     public static Polynomial constant(int c) {
-        Polynomial p = new Polynomial();
-        p.set(0, c);
-        return p.trim();
+        return c == 0 ? ZERO : new Polynomial(new int[] {c}, null);
     }
 
     /**
@@ -29,9 +148,20 @@ public class Polynomial {
      * @return Polynomial x
      */
     public static Polynomial x() {
-        Polynomial p = new Polynomial();
-        p.set(1,1);
-        return p;
+        return X;
+    }
+
+    /**
+     * Creates the single term c * x^k
+     * @param c coefficient
+     * @param k exponent, k >= 0
+     * @return polynomial
+     */
+    public static Polynomial monomial(int c, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Negative exponent not supported");
+        }
+        return c == 0 ? ZERO : sparse(new int[] {k}, new int[] {c}, 1);
     }
 
     /**
@@ -41,19 +171,36 @@ public class Polynomial {
      * @return polynomial
      */
     public static Polynomial of(List<Integer> cs) {
-        Polynomial p = new Polynomial();
-        for (int k = 0; k < cs.size(); k++) {
-            p.set(k, cs.get(k));
+        int[] a = new int[cs.size()];
+        for (int k = 0; k < a.length; k++) {
+            a[k] = cs.get(k);
         }
+        return wrap(a, a.length);
+    }
 
-        return p.trim();
+    /**
+     * Builds a polynomial from coefficients in increasing order
+     * ex: of(1, 0, 3) -> 3x^2 + 1
+     * @param cs coefficients, index k is the coefficient of x^k
+     * @return polynomial
+     */
+    public static Polynomial of(int... cs) {
+        return wrap(cs.clone(), cs.length);
     }
 
     /**
      * Returns the zero polynomial fx = 0
      */
     public static Polynomial zero() {
-        return constant(0);
+        return ZERO;
+    }
+
+    /**
+     * Returns a builder for a new polynomial
+     * @return empty builder
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
@@ -63,26 +210,14 @@ public class Polynomial {
      * @return int coefficient at index k
      */
     public int get(int k) {
-        if (k >= 0 && k < term.size()) {
-            return term.get(k);
+        if (exps != null) {
+            int t = Arrays.binarySearch(exps, k);
+            return t >= 0 ? term[t] : 0;
         }
-        return 0;
-    }
-
-    /**
-     * Sets the coefficient of x^k to value v
-     * Expands internal storage if needed
-     * @param k exponent index
-     * @param v coefficient value
-     */
-    public void set(int k, int v) {
-        // expand list with zeros until index k is available
-        while (term.size() <= k) {
-            term.add(0);
+        if (k >= 0 && k < term.length) {
+            return term[k];
         }
-
-        // set coefficient at index k
-        term.set(k, v);
+        return 0;
     }
 
     /**
@@ -92,46 +227,65 @@ public class Polynomial {
      * @return the degree of the polynomial
      */
     public int degree() {
-        // loop from the highest deg to lowest
-        for (int i = term.size() - 1; i >= 0; i--) {
-            if (term.get(i) != 0) {
-                return i;
-            }
+        if (exps != null) {
+            return exps[exps.length - 1];
         }
-
-        // all coefficients are zero, so the polynomial has no degree
-        return -1;
+        // coefficients are kept trimmed, the last one is non-zero
+        return term.length - 1;
     }
 
     /**
-     * Removes trailing zeros from the list
-     * @return this polynomial after trimming
+     * Returns true if the polynomial is stored as sparse terms
+     * @return true for the sparse form
      */
-    private Polynomial trim() {
-        int i = term.size() - 1;
+    public boolean isSparse() {
+        return exps != null;
+    }
 
-        // Find last non-zero coefficient
-        while(i >= 0 && term.get(i) == 0) {
-            i--;
-        }
+    /**
+     * Number of stored terms. Together with termExponent and
+     * termCoefficient this walks a polynomial in time proportional to its
+     * storage. The dense form stores every power up to the degree, so
+     * some of its terms may have a zero coefficient.
+     * ex: for (int i = 0; i < p.termCount(); i++) p.termCoefficient(i) ...
+     * @return stored terms, 0 for the zero polynomial
+     */
+    public int termCount() {
+        return term.length;
+    }
 
-        // Remove all coefficients beyond last non-zero index
-        while(term.size() - 1 > i) {
-            term.remove(term.size() - 1);
-        }
+    /**
+     * Exponent of a stored term, terms are in increasing exponent order
+     * @param i term index, 0 <= i < termCount()
+     * @return exponent of x in the term
+     */
+    public int termExponent(int i) {
+        return exps != null ? exps[i] : i;
+    }
 
-        return this;
+    /**
+     * Coefficient of a stored term
+     * @param i term index, 0 <= i < termCount()
+     * @return coefficient, may be zero in the dense form
+     */
+    public int termCoefficient(int i) {
+        return term[i];
     }
 
     /**
-     * Adds a value to the coefficient of x^k in the given polynomial.
-     * Used during multiplication to accumulate partial products.
-     * @param p polynomial whose coefficient is being updated
-     * @param k power of x index in coefficient list
-     * @param delta amount to add to the existing coefficient
+     * Returns a copy of the coefficients, index k is the coefficient of x^k.
+     * For a sparse polynomial this allocates degree + 1 entries.
+     * @return coefficients up to the degree, empty for the zero polynomial
      */
-    private void addToCoeff(Polynomial p, int k, int delta) {
-        p.set(k, p.get(k) + delta);
+    public int[] coefficients() {
+        if (exps == null) {
+            return term.clone();
+        }
+        int[] cs = new int[degree() + 1];
+        for (int t = 0; t < exps.length; t++) {
+            cs[exps[t]] = term[t];
+        }
+        return cs;
     }
 
     /**
@@ -159,22 +313,61 @@ public class Polynomial {
     }
 
     /**
-     * Adds two polynomials coefficient-wise and stores result
+     * Adds two polynomials coefficient-wise
      * @param p polynomial to add
      * @return resulting polynomial
      */
     public Polynomial add(Polynomial p) {
-        Polynomial curr = new Polynomial();
-
-        // number of coefficients to check
-        int n = Math.max(this.term.size(), p.term.size());
+        if (p.term.length == 0) {
+            return this;
+        }
+        if (term.length == 0) {
+            return p;
+        }
+        if (exps != null || p.exps != null) {
+            return addSparse(p);
+        }
 
         // add coefficients a_k + b_k for all k
+        int n = Math.max(this.term.length, p.term.length);
+        int[] r = new int[n];
         for (int k = 0; k < n; k++) {
-            curr.set(k, this.get(k) + p.get(k));
+            r[k] = this.get(k) + p.get(k);
         }
 
-        return curr.trim();
+        return wrap(r, n);
+    }
+
+    /**
+     * Adds two polynomials by merging their sorted terms, used when
+     * either one is sparse
+     * @param p polynomial to add
+     * @return resulting polynomial
+     */
+    private Polynomial addSparse(Polynomial p) {
+        int[] e = new int[termCount() + p.termCount()];
+        int[] c = new int[e.length];
+        int n = 0;
+
+        int i = 0;
+        int j = 0;
+        while (i < termCount() || j < p.termCount()) {
+            int ei = i < termCount() ? termExponent(i) : Integer.MAX_VALUE;
+            int ej = j < p.termCount() ? p.termExponent(j) : Integer.MAX_VALUE;
+            int k = Math.min(ei, ej);
+            int v = 0;
+            if (ei == k) {
+                v += term[i++];
+            }
+            if (ej == k) {
+                v += p.term[j++];
+            }
+            if (v != 0) {
+                e[n] = k;
+                c[n++] = v;
+            }
+        }
+        return sparse(e, c, n);
     }
 
     /**
@@ -183,68 +376,299 @@ public class Polynomial {
      * @return scaled polynomial
      */
     public Polynomial mulConst(int k) {
-        // reset Polynomial
-        Polynomial r = new Polynomial();
+        if (k == 1) {
+            return this;
+        }
+        if (exps != null) {
+            int[] e = new int[exps.length];
+            int[] c = new int[exps.length];
+            int n = 0;
+            for (int t = 0; t < exps.length; t++) {
+                // int overflow can turn a product into 0
+                int v = term[t] * k;
+                if (v != 0) {
+                    e[n] = exps[t];
+                    c[n++] = v;
+                }
+            }
+            return sparse(e, c, n);
+        }
 
         // loop through all coefficients and scale them
-        for (int i = 0; i <= degree(); i++) {
-            r.set(i, get(i) * k);
+        int[] r = new int[term.length];
+        for (int i = 0; i < term.length; i++) {
+            r[i] = term[i] * k;
         }
 
-        return r.trim();
+        return wrap(r, r.length);
     }
 
     /**
-     * Multiplies two polynomials using coefficient convolution
+     * Multiplies two polynomials using coefficient convolution. When
+     * either one is sparse and the product is much longer than the
+     * number of term pairs, the terms are merged with a heap instead.
+     * Large dense products run on the common fork-join pool.
      * @param o other polynomial
      * @return product polynomial
+     * @throws IllegalArgumentException if the product's degree is too large
      */
     public Polynomial mul(Polynomial o) {
+        return mul(o, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Multiplies two polynomials, splitting a large dense convolution into
+     * blocks of result coefficients that run on the given pool. Each block
+     * owns its slice of the result, so no two threads write the same
+     * coefficient, and int sums wrap the same way in any order: the result
+     * equals the sequential product for every pool size.
+     * @param o other polynomial
+     * @param pool pool for large products, used only if its parallelism is above 1
+     * @return product polynomial
+     * @throws IllegalArgumentException if the product's degree is too large
+     */
+    public Polynomial mul(Polynomial o, ForkJoinPool pool) {
         // degrees of each polynomial
         int d1 = this.degree();
         int d2 = o.degree();
 
         // if either polynomial is zero, result is zero
         if (d1 < 0 || d2 < 0) {
-            return Polynomial.constant(0);
+            return ZERO;
+        }
+        if ((long) d1 + d2 > MAX_DEGREE) {
+            throw new IllegalArgumentException("Degree too large: " + ((long) d1 + d2));
+        }
+        if (exps != null || o.exps != null) {
+            long pairs = (long) termCount() * o.termCount();
+            if (d1 + d2 + 1L > 2 * pairs) {
+                return mulHeap(o);
+            }
         }
 
         // stores the result of the multiplication
-        Polynomial result = Polynomial.constant(0);
+        int[] result = new int[d1 + d2 + 1];
+
+        if (exps == null && o.exps == null && pool.getParallelism() > 1
+                && (long) term.length * o.term.length >= PARALLEL_MIN_PAIRS) {
+            pool.invoke(new MulBlock(term, o.term, result, 0, result.length));
+            return wrap(result, result.length);
+        }
 
         // loops through coefficients of first polynomial
-        for (int i = 0; i <= d1; i++) {
-            int ai = this.get(i);
+        for (int i = 0; i < termCount(); i++) {
+            int ai = this.term[i];
 
             // skip if term is zero
             if (ai == 0) {
                 continue;
             }
+            int ei = termExponent(i);
 
             // loops through coefficients of second polynomial
-            for (int j = 0; j <= d2; j++) {
-                int bj = o.get(j);
+            if (o.exps == null) {
+                for (int j = 0; j <= d2; j++) {
+                    // i + j is the resulting power of x
+                    // add contribution ai * bj to the coefficient of x^(i+j)
+                    result[ei + j] += ai * o.term[j];
+                }
+            } else {
+                for (int j = 0; j < o.exps.length; j++) {
+                    result[ei + o.exps[j]] += ai * o.term[j];
+                }
+            }
+        }
+        // removes trailing zeros, they appear only on int overflow
+        return wrap(result, result.length);
+    }
+
+    /**
+     * Multiplies sparse polynomials by merging the rows of the product
+     * with a min heap on the exponent (Johnson's algorithm). Each row is
+     * one term of the shorter polynomial times the longer one, the heap
+     * holds the next term of every row, so products come out in exponent
+     * order and equal exponents are summed as they appear.
+     * @param o other polynomial
+     * @return product polynomial
+     */
+    private Polynomial mulHeap(Polynomial o) {
+        Polynomial a = termCount() <= o.termCount() ? this : o;
+        Polynomial b = a == this ? o : this;
+        int[] ea = a.nonZeroExponents();
+        int[] ca = a.nonZeroCoefficients();
+        int[] eb = b.nonZeroExponents();
+        int[] cb = b.nonZeroCoefficients();
+        int rows = ea.length;
+        int cols = eb.length;
+
+        // min heap of rows, each entry packs the exponent of the row's
+        // next product above the row index so entries compare as longs
+        long[] heap = new long[rows];
+        int[] col = new int[rows];
+        int size = rows;
+        for (int r = 0; r < rows; r++) {
+            // rows start sorted by exponent, which is already a valid heap
+            heap[r] = (long) (ea[r] + eb[0]) << 32 | r;
+        }
+
+        int[] e = new int[(int) Math.min(rows + cols, (long) rows * cols)];
+        int[] c = new int[e.length];
+        int n = 0;
+        while (size > 0) {
+            int k = (int) (heap[0] >>> 32);
+            int sum = 0;
+            while (size > 0 && (int) (heap[0] >>> 32) == k) {
+                int r = (int) heap[0];
+                sum += ca[r] * cb[col[r]];
+                if (++col[r] < cols) {
+                    heap[0] = (long) (ea[r] + eb[col[r]]) << 32 | r;
+                } else {
+                    heap[0] = heap[--size];
+                }
+                siftDown(heap, size);
+            }
+            if (sum != 0) {
+                if (n == e.length) {
+                    e = Arrays.copyOf(e, n * 2);
+                    c = Arrays.copyOf(c, n * 2);
+                }
+                e[n] = k;
+                c[n++] = sum;
+            }
+        }
+        return sparse(e, c, n);
+    }
+
+    /**
+     * Computes the coefficients lo until hi of a dense product, splitting
+     * the range in halves while a half still has enough pairs to be worth
+     * a task of its own.
+     */
+    private static final class MulBlock extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // pairs below which a block is computed by one thread
+        private static final long BLOCK_PAIRS = 1L << 18;
+
+        // smallest block, keeps the inner loops long enough to vectorize
+        private static final int MIN_BLOCK = 64;
+
+        private final int[] a;
+        private final int[] b;
+        private final int[] result;
+        private final int lo;
+        private final int hi;
+
+        MulBlock(int[] a, int[] b, int[] result, int lo, int hi) {
+            this.a = a;
+            this.b = b;
+            this.result = result;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            // each coefficient has at most min(a, b) pairs
+            long pairs = (long) (hi - lo) * Math.min(a.length, b.length);
+            if (pairs <= BLOCK_PAIRS || hi - lo <= 2 * MIN_BLOCK) {
+                convolve();
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new MulBlock(a, b, result, lo, mid), new MulBlock(a, b, result, mid, hi));
+        }
 
-                // skip if term is zero
-                if (bj == 0) {
+        private void convolve() {
+            // a[i] * b[j] lands in the block for lo <= i + j < hi
+            int iMin = Math.max(0, lo - (b.length - 1));
+            int iMax = Math.min(a.length - 1, hi - 1);
+            for (int i = iMin; i <= iMax; i++) {
+                int ai = a[i];
+                if (ai == 0) {
                     continue;
                 }
+                int jMin = Math.max(0, lo - i);
+                int jMax = Math.min(b.length - 1, hi - 1 - i);
+                for (int j = jMin; j <= jMax; j++) {
+                    result[i + j] += ai * b[j];
+                }
+            }
+        }
+    }
 
-                // i + j is the resulting power of x
-                // add contribution ai * bj to the coefficient of x^(i+j)
-                addToCoeff(result, i + j, ai * bj);
+    /**
+     * Restores the heap order after the root entry grew
+     * @param heap entries in heap order
+     * @param size entries in the heap
+     */
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long v = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= v) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = v;
+    }
+
+    /**
+     * Exponents of the non-zero terms in increasing order
+     * @return exponents, shared with this polynomial when sparse
+     */
+    private int[] nonZeroExponents() {
+        if (exps != null) {
+            return exps;
+        }
+        int[] e = new int[term.length];
+        int n = 0;
+        for (int k = 0; k < term.length; k++) {
+            if (term[k] != 0) {
+                e[n++] = k;
+            }
+        }
+        return Arrays.copyOf(e, n);
+    }
+
+    /**
+     * Coefficients of the non-zero terms, matching nonZeroExponents()
+     * @return coefficients, shared with this polynomial when sparse
+     */
+    private int[] nonZeroCoefficients() {
+        if (exps != null) {
+            return term;
+        }
+        int[] c = new int[term.length];
+        int n = 0;
+        for (int v : term) {
+            if (v != 0) {
+                c[n++] = v;
             }
         }
-        // removes trailing zeros
-        return result.trim();
+        return Arrays.copyOf(c, n);
     }
 
     /**
-     * Raises the polynomial to a non-negative integer power using
-     * simple repeated multiplication. Multiply the polynomial by
-     * itself e times.
+     * Raises the polynomial to a non-negative integer power by repeated
+     * squaring, log2(e) squarings and at most as many multiplications.
+     * Coefficients wrap around on int overflow as they would with
+     * repeated multiplication, the result is the same.
      * @param e exponent
      * @return polynomial raised to power e
+     * @throws IllegalArgumentException if the result's degree is too large
      */
     public Polynomial pow(int e) {
         // negative exponents not supported
@@ -256,16 +680,58 @@ public class Polynomial {
         if (e == 0) {
             return Polynomial.constant(1);
         }
+        if (term.length == 0 || e == 1) {
+            return this;
+        }
+        if ((long) degree() * e > MAX_DEGREE) {
+            throw new IllegalArgumentException("Degree too large: " + (long) degree() * e);
+        }
+
+        // result = this^(bits of e seen so far), base = this^(2^bit)
+        Polynomial result = null;
+        Polynomial base = this;
+        while (true) {
+            if ((e & 1) != 0) {
+                result = result == null ? base : result.mul(base);
+            }
+            e >>>= 1;
+            if (e == 0) {
+                return result;
+            }
+            base = base.mul(base);
+        }
+    }
 
-        // start with this polynomial
-        Polynomial result = this;
+    /**
+     * Takes the derivative of the polynomial, the coefficient of
+     * x^k moves to x^(k-1) multiplied by k.
+     * @return derivative polynomial
+     */
+    public Polynomial derivative() {
+        if (exps != null) {
+            int[] e = new int[exps.length];
+            int[] c = new int[exps.length];
+            int n = 0;
+            for (int t = 0; t < exps.length; t++) {
+                int v = exps[t] * term[t];
+                if (v != 0) {
+                    e[n] = exps[t] - 1;
+                    c[n++] = v;
+                }
+            }
+            return sparse(e, c, n);
+        }
+        if (term.length <= 1) {
+            return ZERO;
+        }
 
-        // multiply e - 1 times
-        for (int i = 1; i < e; i++) {
-            result = result.mul(this);
+        // d/dx a_k x^k = k a_k x^(k-1), the constant term drops out
+        int[] r = new int[term.length - 1];
+        for (int k = 1; k < term.length; k++) {
+            r[k - 1] = k * term[k];
         }
 
-        return result;
+        return wrap(r, r.length);
     }
 
     /**
@@ -275,16 +741,122 @@ public class Polynomial {
      * @return int the numeric result of solving polynomial at x
      */
     public double evaluate(double x) {
+        if (exps != null) {
+            return evaluateSparse(x);
+        }
         double sum = 0.0;
 
         // loop through each coefficient and compute a_k * x^k
-        for (int k = 0; k < term.size(); k++) {
-            int coeff = term.get(k);
+        for (int k = 0; k < term.length; k++) {
+            int coeff = term[k];
             sum += coeff * Math.pow(x, k);
         }
         return sum;
     }
 
+    /**
+     * Evaluates a sparse polynomial, the power of x is carried from term
+     * to term and multiplied by x raised to the gap between exponents
+     * @param x the value to plug into polynomial
+     * @return value at x
+     */
+    private double evaluateSparse(double x) {
+        double sum = 0.0;
+        double power = 1.0;
+        int prev = 0;
+        for (int t = 0; t < exps.length; t++) {
+            power *= pow(x, exps[t] - prev);
+            prev = exps[t];
+            sum += term[t] * power;
+        }
+        return sum;
+    }
+
+    /**
+     * Raises x to a non-negative integer power by repeated squaring
+     * @param x base
+     * @param n exponent, n >= 0
+     * @return x^n
+     */
+    private static double pow(double x, int n) {
+        double r = 1.0;
+        while (n > 0) {
+            if ((n & 1) != 0) {
+                r *= x;
+            }
+            n >>>= 1;
+            if (n > 0) {
+                x *= x;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Evaluates the polynomial over an interval of x-values with Horner's
+     * rule in interval arithmetic. The result is guaranteed to contain
+     * p(x) for every x in the interval, it may be wider than the true range.
+     * Sparse polynomials step over the gaps between exponents with x^gap.
+     * @param x interval of x-values
+     * @return enclosure of the range of p over x
+     */
+    public Interval evaluate(Interval x) {
+        int deg = degree();
+        if (deg < 0) {
+            return Interval.point(0);
+        }
+        if (exps != null) {
+            // r = (...(a_n x^(n-m) + a_m) x^(m-l) + ...) x^k
+            int t = exps.length - 1;
+            Interval r = Interval.point(term[t]);
+            for (t--; t >= 0; t--) {
+                r = r.mul(x.pow(exps[t + 1] - exps[t])).add(term[t]);
+            }
+            return r.mul(x.pow(exps[0]));
+        }
+
+        // r = (...(a_n x + a_(n-1)) x + ...) x + a_0
+        Interval r = Interval.point(term[deg]);
+        for (int k = deg - 1; k >= 0; k--) {
+            r = r.mul(x).add(term[k]);
+        }
+        return r;
+    }
+
+    /**
+     * Two polynomials are equal when all their coefficients are equal.
+     * The storage form follows from the coefficients, so equal
+     * polynomials have equal arrays.
+     * @param o object to compare with
+     * @return true if o is a polynomial with the same coefficients
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Polynomial)) {
+            return false;
+        }
+        Polynomial p = (Polynomial) o;
+        return hashCode() == p.hashCode() && Arrays.equals(term, p.term) && Arrays.equals(exps, p.exps);
+    }
+
+    /**
+     * Hash of the coefficients, computed once and cached. Racing threads
+     * compute the same value, so no locking is needed.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 31 * Arrays.hashCode(term) + Arrays.hashCode(exps);
+            hash = h;
+        }
+        return h;
+    }
+
     /**
      * Converts polynomial to human readable string
      * Ex: "3x^2 - x + 5"
@@ -298,10 +870,11 @@ public class Polynomial {
         StringBuilder sb = new StringBuilder();
 
         // loops through highest degree down to 0, ensuring expression is print in std form
-        for (int k = deg; k >= 0; k--) {
+        for (int t = termCount() - 1; t >= 0; t--) {
+            int k = termExponent(t);
 
             // coefficient
-            int coeff = get(k);
+            int coeff = term[t];
 
             // skips and continues to next term if degree is 0
             if (coeff == 0) continue;
@@ -345,4 +918,160 @@ public class Polynomial {
 
         return sb.toString();
     }
+
+    /**
+     * Builds a polynomial one coefficient at a time. This is the only
+     * mutable part, the polynomial it builds never changes afterwards.
+     * Coefficients are kept in an array indexed by exponent until an
+     * exponent far beyond the number of coefficients set is used, then
+     * the builder keeps sorted terms instead.
+     * ex: Polynomial.builder().set(2, 3).add(0, 1).build() -> 3x^2 + 1
+     */
+    public static final class Builder {
+        // exponents up to this always use the dense array
+        private static final int DENSE_LIMIT = 1024;
+
+        // dense: coefficient of x^k at index k
+        private int[] cs = new int[4];
+        private int size = 0;
+
+        // sparse: sorted exponents and their coefficients, null while dense
+        private int[] es;
+        private int count = 0;
+
+        // number of set and add calls, bounds the non-zero coefficients
+        private int entries = 0;
+
+        private Builder() {}
+
+        /**
+         * Sets the coefficient of x^k to value v
+         * Expands internal storage if needed
+         * @param k exponent index
+         * @param v coefficient value
+         * @return this builder
+         */
+        public Builder set(int k, int v) {
+            if (k < 0) {
+                throw new IllegalArgumentException("Negative exponent not supported");
+            }
+            if (es == null) {
+                ensure(k);
+            }
+            if (es == null) {
+                cs[k] = v;
+            } else {
+                // slot() may grow cs, so it runs before cs is read
+                int t = slot(k);
+                cs[t] = v;
+            }
+            return this;
+        }
+
+        /**
+         * Adds a value to the coefficient of x^k
+         * @param k exponent index
+         * @param delta amount to add to the existing coefficient
+         * @return this builder
+         */
+        public Builder add(int k, int delta) {
+            if (k < 0) {
+                throw new IllegalArgumentException("Negative exponent not supported");
+            }
+            if (es == null) {
+                ensure(k);
+            }
+            if (es == null) {
+                cs[k] += delta;
+            } else {
+                int t = slot(k);
+                cs[t] += delta;
+            }
+            return this;
+        }
+
+        /**
+         * Creates the polynomial, the builder can keep being used
+         * @return polynomial with the coefficients set so far
+         */
+        public Polynomial build() {
+            if (es == null) {
+                return wrap(Arrays.copyOf(cs, size), size);
+            }
+            int[] e = new int[count];
+            int[] c = new int[count];
+            int n = 0;
+            for (int t = 0; t < count; t++) {
+                if (cs[t] != 0) {
+                    e[n] = es[t];
+                    c[n++] = cs[t];
+                }
+            }
+            return sparse(e, c, n);
+        }
+
+        /**
+         * Makes room for x^k in the dense array, or switches to sorted
+         * terms if k is far beyond the coefficients set so far
+         * @param k exponent about to be set
+         */
+        private void ensure(int k) {
+            entries++;
+            if (k >= cs.length && k > DENSE_LIMIT && (long) entries * SPARSE_FILL <= k) {
+                toSparse();
+                return;
+            }
+            if (k >= cs.length) {
+                cs = Arrays.copyOf(cs, Math.max(k + 1, cs.length * 2));
+            }
+            if (k >= size) {
+                size = k + 1;
+            }
+        }
+
+        /**
+         * Moves the dense coefficients into sorted terms
+         */
+        private void toSparse() {
+            int[] e = new int[Math.max(4, entries)];
+            int[] c = new int[e.length];
+            int n = 0;
+            for (int k = 0; k < size; k++) {
+                if (cs[k] != 0) {
+                    e[n] = k;
+                    c[n++] = cs[k];
+                }
+            }
+            es = e;
+            cs = c;
+            count = n;
+        }
+
+        /**
+         * Finds the term of x^k, inserting a zero term if there is none.
+         * Exponents set in increasing order are appended at the end.
+         * @param k exponent
+         * @return index of the term in es and cs
+         */
+        private int slot(int k) {
+            if (count > 0 && es[count - 1] < k) {
+                return insert(count, k);
+            }
+            int t = Arrays.binarySearch(es, 0, count, k);
+            return t >= 0 ? t : insert(-t - 1, k);
+        }
+
+        private int insert(int at, int k) {
+            if (count == es.length) {
+                es = Arrays.copyOf(es, count * 2);
+                cs = Arrays.copyOf(cs, count * 2);
+            }
+            System.arraycopy(es, at, es, at + 1, count - at);
+            System.arraycopy(cs, at, cs, at + 1, count - at);
+            es[at] = k;
+            cs[at] = 0;
+            count++;
+            return at;
+        }
+    }
 }
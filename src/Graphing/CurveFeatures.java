@@ -0,0 +1,92 @@
+package Graphing;
+
+import Algebra.EquationSolver;
+import Algebra.Polynomial;
+
+import java.util.Arrays;
+
+/**
+ * CurveFeatures holds the roots, local extrema and inflection points of a
+ * polynomial. They are solved from p, p' and p'' with the EquationSolver
+ * instead of being read off the samples, so they are exact up to rounding
+ * and don't depend on the zoom level. They only depend on the polynomial,
+ * so they are computed once per curve.
+ */
+public final class CurveFeatures {
+    // above this degree the features are skipped, solving gets too slow to do per keystroke
+    public static final int MAX_DEGREE = 64;
+
+    // looser than the solver's double root test: candidates are bisected
+    // roots of a lower derivative, and near a multiple root their error is
+    // far above rounding, e.g. about eps^(1/3) for a triple root
+    private static final double VANISH_TOLERANCE = 1e-9;
+
+    private static final CurveFeatures NONE =
+            new CurveFeatures(new double[0], new double[0], new double[0]);
+
+    public final double[] roots;
+    public final double[] extrema;
+    public final double[] inflections;
+
+    private CurveFeatures(double[] roots, double[] extrema, double[] inflections) {
+        this.roots = roots;
+        this.extrema = extrema;
+        this.inflections = inflections;
+    }
+
+    /**
+     * Solves the features of a polynomial
+     * @param p polynomial to analyse
+     * @return roots, extrema and inflection points in increasing x order
+     */
+    public static CurveFeatures of(Polynomial p) {
+        int deg = p.degree();
+        if (deg <= 0 || deg > MAX_DEGREE) {
+            return NONE;
+        }
+
+        Polynomial d1 = p.derivative();
+        Polynomial d2 = d1.derivative();
+
+        double[] roots = EquationSolver.realRoots(p);
+
+        // p' = 0 is an extremum only if the first non-zero derivative after it is even
+        double[] extrema = keep(p, EquationSolver.realRoots(d1), 2, true);
+
+        // p'' = 0 is an inflection only if the first non-zero derivative after it is odd
+        double[] inflections = keep(p, EquationSolver.realRoots(d2), 3, false);
+
+        return new CurveFeatures(roots, extrema, inflections);
+    }
+
+    /**
+     * Filters candidate points by the order of the first derivative of p
+     * that does not vanish there.
+     * @param p polynomial
+     * @param candidates points where a lower derivative is zero
+     * @param from order of the first derivative to check
+     * @param even keep the points where that order is even, else odd
+     * @return the kept points
+     */
+    private static double[] keep(Polynomial p, double[] candidates, int from, boolean even) {
+        double[] out = new double[candidates.length];
+        int n = 0;
+        for (double c : candidates) {
+            Polynomial d = p;
+            for (int k = 0; k < from; k++) {
+                d = d.derivative();
+            }
+
+            int order = from;
+            while (d.degree() > 0 && EquationSolver.nearZero(d, c, VANISH_TOLERANCE)) {
+                d = d.derivative();
+                order++;
+            }
+
+            if ((order % 2 == 0) == even) {
+                out[n++] = c;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,165 @@
+package Graphing;
+
+import Algebra.Polynomial;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * CurveSampler samples several curves over one shared x grid. The grid
+ * depends only on the viewport, so it is built once and every curve only
+ * stores its y values. Curves are re-sampled only when their polynomial
+ * changed or the grid moved, and the dirty curves are evaluated in
+ * parallel on a fork-join pool. The x and y arrays are reused while the
+ * number of samples stays the same.
+ */
+public class CurveSampler {
+    private final TileCache tiles;
+    private final ForkJoinPool pool;
+
+    // y values of every curve, in the order the curves were added
+    private final Map<String, Curve> curves = new LinkedHashMap<>();
+
+    // shared x grid and the viewport it was built for
+    private double[] xData = new double[0];
+    private Viewport gridViewport = null;
+
+    /**
+     * Constructor for CurveSampler, uses the common fork-join pool
+     * @param tiles tile cache shared by every curve
+     */
+    public CurveSampler(TileCache tiles) {
+        this(tiles, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for CurveSampler
+     * @param tiles tile cache shared by every curve
+     * @param pool pool the curves are evaluated on
+     */
+    public CurveSampler(TileCache tiles, ForkJoinPool pool) {
+        this.tiles = tiles;
+        this.pool = pool;
+    }
+
+    /**
+     * Brings the sampled curves up to date with the given polynomials and
+     * viewport. Curves that are no longer present are dropped.
+     * @param polys polynomials to plot, keyed by curve name
+     * @param v visible range
+     * @return true if any curve or the grid changed
+     */
+    public boolean update(Map<String, Polynomial> polys, Viewport v) {
+        boolean gridChanged = !sameGrid(v);
+        if (gridChanged) {
+            xData = SampleBuffer.ensure(xData, TileCache.sampleCount(v));
+            TileCache.fillX(v, xData);
+        }
+        gridViewport = v;
+
+        boolean removed = curves.keySet().retainAll(polys.keySet());
+
+        // collects the curves that need new samples
+        List<Curve> dirty = new ArrayList<>();
+        for (Map.Entry<String, Polynomial> e : polys.entrySet()) {
+            Curve c = curves.get(e.getKey());
+            if (c == null) {
+                c = new Curve();
+                curves.put(e.getKey(), c);
+            }
+            if (gridChanged || !e.getValue().equals(c.poly)) {
+                c.poly = e.getValue();
+                dirty.add(c);
+            }
+        }
+
+        evaluate(dirty, v);
+        return gridChanged || removed || !dirty.isEmpty();
+    }
+
+    /**
+     * Evaluates the dirty curves, in parallel if there is more than one
+     * @param dirty curves to sample
+     * @param v visible range
+     */
+    private void evaluate(List<Curve> dirty, Viewport v) {
+        int n = xData.length;
+        if (dirty.size() == 1) {
+            dirty.get(0).sample(tiles, v, n);
+            return;
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(dirty.size());
+        for (Curve c : dirty) {
+            tasks.add(ForkJoinTask.adapt(() -> c.sample(tiles, v, n)));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Checks if the viewport produces the same grid as the last update
+     * @param v visible range
+     * @return true if the grid can be reused
+     */
+    private boolean sameGrid(Viewport v) {
+        if (gridViewport == null) {
+            return false;
+        }
+        return v.level() == gridViewport.level()
+                && TileCache.firstTile(v) == TileCache.firstTile(gridViewport)
+                && TileCache.tileCount(v) == TileCache.tileCount(gridViewport);
+    }
+
+    /**
+     * Returns the shared x grid
+     * @return x values, one per sample
+     */
+    public double[] getX() {
+        return xData;
+    }
+
+    /**
+     * Returns the sampled y values of a curve
+     * @param name curve name
+     * @return y values, or null if the curve is unknown
+     */
+    public double[] getY(String name) {
+        Curve c = curves.get(name);
+        return c == null ? null : c.yData;
+    }
+
+    /**
+     * Returns the names of the sampled curves in plotting order
+     * @return curve names
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(new ArrayList<>(curves.keySet()));
+    }
+
+    /**
+     * One plotted curve, the polynomial it was sampled from and its y values
+     */
+    private static final class Curve {
+        private Polynomial poly;
+        private double[] yData;
+
+        private void sample(TileCache tiles, Viewport v, int n) {
+            yData = SampleBuffer.ensure(yData, n);
+            tiles.fillY(poly, v, yData);
+        }
+    }
+}
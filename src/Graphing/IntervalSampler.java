@@ -0,0 +1,264 @@
+package Graphing;
+
+import Algebra.Interval;
+import Algebra.Polynomial;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * IntervalSampler samples curves adaptively using interval arithmetic.
+ * The viewport is split into spans, and each span gets a guaranteed
+ * enclosure of the curve and of its slope over it. A span where the curve
+ * provably stays within the tolerance of the straight line between its
+ * end points is flat and only its end points are kept, other spans are
+ * split until they are flat or too narrow to split. Spans that
+ * are still steep keep their enclosure as a bound so the plot can show
+ * where the curve must lie, a spike between samples can't be missed.
+ */
+public class IntervalSampler {
+    // spans the viewport is split into before refining
+    private static final int START_SPANS = 16;
+
+    // smallest span as a fraction of the viewport width, about a pixel
+    private static final int MAX_SPANS = 2048;
+
+    // tolerance as a fraction of the visible y range
+    private static final double FLAT_FRACTION = 1.0 / 500;
+
+    // points used to estimate the visible y range
+    private static final int ESTIMATE_SAMPLES = 64;
+
+    private final Map<String, Result> results = new LinkedHashMap<>();
+    private Viewport lastViewport = null;
+
+    /**
+     * Brings the sampled curves up to date with the given polynomials and
+     * viewport. Curves are re-sampled only if their polynomial changed or
+     * the viewport moved.
+     * @param polys polynomials to plot, keyed by curve name
+     * @param v visible range
+     * @return true if any curve changed
+     */
+    public boolean update(Map<String, Polynomial> polys, Viewport v) {
+        boolean moved = v != lastViewport;
+        lastViewport = v;
+
+        boolean changed = results.keySet().retainAll(polys.keySet());
+        for (Map.Entry<String, Polynomial> e : polys.entrySet()) {
+            Result r = results.get(e.getKey());
+            if (moved || r == null || !r.poly.equals(e.getValue())) {
+                results.put(e.getKey(), sample(e.getValue(), v.getXMin(), v.getXMax()));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the sampled curve of a name
+     * @param name curve name
+     * @return samples and bounds, or null if the curve is unknown
+     */
+    public Result get(String name) {
+        return results.get(name);
+    }
+
+    /**
+     * Samples one polynomial over [xMin, xMax]
+     * @param p polynomial to sample
+     * @param xMin left boundary
+     * @param xMax right boundary
+     * @return adaptive samples and the bounds of unresolved spans
+     */
+    public static Result sample(Polynomial p, double xMin, double xMax) {
+        Result r = new Result(p);
+        double tol = tolerance(p, xMin, xMax);
+        double minWidth = (xMax - xMin) / MAX_SPANS;
+        Polynomial dp = p.derivative();
+
+        r.addPoint(xMin, p.evaluate(xMin));
+        double step = (xMax - xMin) / START_SPANS;
+        for (int i = 0; i < START_SPANS; i++) {
+            double a = xMin + i * step;
+            double b = (i == START_SPANS - 1) ? xMax : xMin + (i + 1) * step;
+            refine(p, dp, a, b, tol, minWidth, r);
+        }
+        return r;
+    }
+
+    /**
+     * Refines the span [a, b]. The point at a is already in the result,
+     * this adds the points after it up to and including b.
+     * @param p polynomial
+     * @param dp derivative of p
+     * @param a left end
+     * @param b right end
+     * @param tol largest distance from the chord that counts as flat
+     * @param minWidth spans narrower than this are not split
+     * @param r result to add to
+     */
+    private static void refine(Polynomial p, Polynomial dp, double a, double b, double tol,
+                               double minWidth, Result r) {
+        Interval span = new Interval(a, b);
+        Interval range = p.evaluate(span);
+
+        // the chord slope lies inside the slope enclosure, so the curve is
+        // at most (slope width) * (b - a) away from the chord
+        Interval slope = dp.evaluate(span);
+
+        // provably flat, a straight line between the end points is within tol
+        if (range.width() <= tol || slope.width() * (b - a) <= tol) {
+            r.addPoint(b, p.evaluate(b));
+            return;
+        }
+
+        double mid = a + (b - a) / 2;
+        if (b - a <= minWidth || mid <= a || mid >= b) {
+            // too narrow to split, keep the guaranteed bound
+            r.addBound(a, b, range.lo, range.hi);
+            r.addPoint(b, p.evaluate(b));
+            return;
+        }
+
+        refine(p, dp, a, mid, tol, minWidth, r);
+        refine(p, dp, mid, b, tol, minWidth, r);
+    }
+
+    /**
+     * Estimates the visible y range from a few point samples and turns it
+     * into a flatness tolerance. The estimate only sets the resolution,
+     * features between the estimate samples are still found by refinement.
+     * @param p polynomial
+     * @param xMin left boundary
+     * @param xMax right boundary
+     * @return tolerance
+     */
+    private static double tolerance(Polynomial p, double xMin, double xMax) {
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < ESTIMATE_SAMPLES; i++) {
+            double y = p.evaluate(xMin + (xMax - xMin) * i / (ESTIMATE_SAMPLES - 1));
+            if (Double.isFinite(y)) {
+                lo = Math.min(lo, y);
+                hi = Math.max(hi, y);
+            }
+        }
+        double range = hi - lo;
+        if (!(range > 0) || !Double.isFinite(range)) {
+            range = 1.0;
+        }
+        return range * FLAT_FRACTION;
+    }
+
+    /**
+     * Adaptive samples of one curve plus the bounds of spans that could
+     * not be shown to be flat
+     */
+    public static final class Result {
+        private final Polynomial poly;
+
+        private double[] xs = new double[64];
+        private double[] ys = new double[64];
+        private int n = 0;
+
+        private double[] bx0 = new double[8];
+        private double[] bx1 = new double[8];
+        private double[] blo = new double[8];
+        private double[] bhi = new double[8];
+        private int nb = 0;
+
+        private Result(Polynomial poly) {
+            this.poly = poly;
+        }
+
+        private void addPoint(double x, double y) {
+            if (n == xs.length) {
+                xs = Arrays.copyOf(xs, 2 * n);
+                ys = Arrays.copyOf(ys, 2 * n);
+            }
+            xs[n] = x;
+            ys[n] = y;
+            n++;
+        }
+
+        private void addBound(double x0, double x1, double lo, double hi) {
+            if (nb == bx0.length) {
+                bx0 = Arrays.copyOf(bx0, 2 * nb);
+                bx1 = Arrays.copyOf(bx1, 2 * nb);
+                blo = Arrays.copyOf(blo, 2 * nb);
+                bhi = Arrays.copyOf(bhi, 2 * nb);
+            }
+            bx0[nb] = x0;
+            bx1[nb] = x1;
+            blo[nb] = lo;
+            bhi[nb] = hi;
+            nb++;
+        }
+
+        /**
+         * Sample x values in increasing order
+         * @return x values
+         */
+        public double[] x() {
+            return Arrays.copyOf(xs, n);
+        }
+
+        /**
+         * Sample y values matching x()
+         * @return y values
+         */
+        public double[] y() {
+            return Arrays.copyOf(ys, n);
+        }
+
+        /**
+         * Number of samples
+         * @return sample count
+         */
+        public int size() {
+            return n;
+        }
+
+        /**
+         * Number of spans with a guaranteed bound
+         * @return bound count
+         */
+        public int boundCount() {
+            return nb;
+        }
+
+        /**
+         * Left ends of the bounded spans
+         * @return x values
+         */
+        public double[] boundX0() {
+            return Arrays.copyOf(bx0, nb);
+        }
+
+        /**
+         * Right ends of the bounded spans
+         * @return x values
+         */
+        public double[] boundX1() {
+            return Arrays.copyOf(bx1, nb);
+        }
+
+        /**
+         * Lower bounds of the curve over each span
+         * @return y values
+         */
+        public double[] boundLo() {
+            return Arrays.copyOf(blo, nb);
+        }
+
+        /**
+         * Upper bounds of the curve over each span
+         * @return y values
+         */
+        public double[] boundHi() {
+            return Arrays.copyOf(bhi, nb);
+        }
+    }
+}
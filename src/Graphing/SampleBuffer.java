@@ -0,0 +1,68 @@
+package Graphing;
+
+/**
+ * SampleBuffer keeps the x and y arrays used for sampling a curve so they
+ * can be reused between renders. The x grid is cached and only rebuilt
+ * when the bounds or the sample count change, so re-rendering at a stable
+ * resolution only recomputes the y values and allocates nothing.
+ * The arrays are kept at exactly the sample count because XChart reads
+ * the series length from the array.
+ */
+public class SampleBuffer {
+    private double[] xData = new double[0];
+    private double[] yData = new double[0];
+
+    // bounds the cached x grid was built for
+    private double gridMin = Double.NaN;
+    private double gridMax = Double.NaN;
+
+    /**
+     * Returns the x grid of evenly spaced samples over [xMin, xMax]. The
+     * same array is returned while the bounds and sample count are unchanged.
+     * @param xMin left boundary of x-axis
+     * @param xMax right boundary of x-axis
+     * @param samples the number of x values to sample
+     * @return x values, samples long
+     */
+    public double[] grid(double xMin, double xMax, int samples) {
+        if (samples < 2) {
+            throw new IllegalArgumentException("At least two samples are needed");
+        }
+        if (xData.length == samples && gridMin == xMin && gridMax == xMax) {
+            return xData;
+        }
+
+        xData = ensure(xData, samples);
+
+        // distance between x sample points
+        double step = (xMax - xMin) / (samples - 1);
+        for (int i = 0; i < samples; i++) {
+            xData[i] = xMin + i * step;
+        }
+
+        gridMin = xMin;
+        gridMax = xMax;
+        return xData;
+    }
+
+    /**
+     * Returns the reusable y array, reallocated only when the sample
+     * count changes. The old values are left in place.
+     * @param samples the number of y values
+     * @return y values, samples long
+     */
+    public double[] y(int samples) {
+        yData = ensure(yData, samples);
+        return yData;
+    }
+
+    /**
+     * Returns an array of exactly n values, reusing a if it already fits
+     * @param a current array
+     * @param n required length
+     * @return a, or a new array of length n
+     */
+    static double[] ensure(double[] a, int n) {
+        return (a != null && a.length == n) ? a : new double[n];
+    }
+}
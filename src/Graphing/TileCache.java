@@ -0,0 +1,207 @@
+package Graphing;
+
+import Algebra.Polynomial;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TileCache stores sampled pieces (tiles) of a curve so that panning and
+ * zooming don't resample the whole visible range. The x-axis is cut into
+ * tiles of fixed width for each zoom level, and each tile is keyed by the
+ * polynomial, the zoom level, and the tile index. The least recently used
+ * tiles are evicted once the cache is full.
+ * Tile lookups are synchronized so several curves can be sampled at once.
+ */
+public class TileCache {
+    // samples per tile, a power of two so sample positions are exact
+    public static final int SAMPLES_PER_TILE = 64;
+
+    // maximum number of tiles kept in the cache
+    private final int capacity;
+
+    // access ordered map so iteration order is least recently used first
+    private final LinkedHashMap<TileKey, double[]> tiles;
+
+    // counters for hits and misses, useful for debugging
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Constructor for TileCache
+     * @param capacity maximum number of tiles kept
+     */
+    public TileCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Tile cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, double[]> eldest) {
+                return size() > TileCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Number of samples needed to cover the viewport with whole tiles.
+     * Neighbouring tiles share their edge point, so it is only counted once.
+     * @param v visible range
+     * @return sample count
+     */
+    public static int sampleCount(Viewport v) {
+        return tileCount(v) * SAMPLES_PER_TILE + 1;
+    }
+
+    /**
+     * Index of the first tile touching the viewport
+     * @param v visible range
+     * @return tile index
+     */
+    public static long firstTile(Viewport v) {
+        return (long) Math.floor(v.getXMin() / v.tileWidth());
+    }
+
+    /**
+     * Number of tiles touching the viewport
+     * @param v visible range
+     * @return tile count
+     */
+    public static int tileCount(Viewport v) {
+        double w = v.tileWidth();
+        long last = (long) Math.floor(v.getXMax() / w);
+        return (int) (last - firstTile(v) + 1);
+    }
+
+    /**
+     * Writes the x positions of the samples covering the viewport. The grid
+     * only depends on the viewport, so every curve shares it.
+     * @param v visible range
+     * @param xOut output array, at least sampleCount(v) long
+     */
+    public static void fillX(Viewport v, double[] xOut) {
+        long first = firstTile(v);
+        int n = sampleCount(v);
+        double step = v.tileWidth() / SAMPLES_PER_TILE;
+        for (int j = 0; j < n; j++) {
+            xOut[j] = (first * SAMPLES_PER_TILE + j) * step;
+        }
+    }
+
+    /**
+     * Writes the y values of the polynomial at the grid from fillX(), using
+     * cached tiles. Only the tiles that are not in the cache are evaluated.
+     * @param p polynomial to sample
+     * @param v visible range
+     * @param yOut output array, at least sampleCount(v) long
+     */
+    public void fillY(Polynomial p, Viewport v, double[] yOut) {
+        int level = v.level();
+        long first = firstTile(v);
+        int count = tileCount(v);
+
+        for (int t = 0; t < count; t++) {
+            double[] ys = tile(p, level, first + t);
+
+            // the last tile also copies its right edge
+            int len = (t == count - 1) ? SAMPLES_PER_TILE + 1 : SAMPLES_PER_TILE;
+            System.arraycopy(ys, 0, yOut, t * SAMPLES_PER_TILE, len);
+        }
+    }
+
+    /**
+     * Returns the y values of one tile, evaluating it on a miss. The tile
+     * is evaluated outside the lock so curves can be sampled in parallel.
+     * @param p polynomial to sample
+     * @param level zoom level
+     * @param index tile index, tile covers [index * w, (index + 1) * w]
+     * @return SAMPLES_PER_TILE + 1 y values including both edges
+     */
+    private double[] tile(Polynomial p, int level, long index) {
+        TileKey key = new TileKey(p, level, index);
+        synchronized (this) {
+            double[] ys = tiles.get(key);
+            if (ys != null) {
+                hits++;
+                return ys;
+            }
+            misses++;
+        }
+
+        double step = Viewport.tileWidth(level) / SAMPLES_PER_TILE;
+        double[] ys = new double[SAMPLES_PER_TILE + 1];
+        for (int j = 0; j <= SAMPLES_PER_TILE; j++) {
+            ys[j] = p.evaluate((index * SAMPLES_PER_TILE + j) * step);
+        }
+
+        synchronized (this) {
+            tiles.put(key, ys);
+        }
+        return ys;
+    }
+
+    /**
+     * Removes every tile from the cache
+     */
+    public synchronized void clear() {
+        tiles.clear();
+    }
+
+    /**
+     * Number of tiles currently cached
+     * @return cache size
+     */
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Number of tile lookups answered from the cache
+     * @return hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of tiles that had to be evaluated
+     * @return miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Cache key for a tile. Polynomials are compared by their coefficients,
+     * so re-entering the same curve reuses its tiles.
+     */
+    private static final class TileKey {
+        private final Polynomial poly;
+        private final int level;
+        private final long index;
+
+        private TileKey(Polynomial poly, int level, long index) {
+            this.poly = poly;
+            this.level = level;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TileKey)) {
+                return false;
+            }
+            TileKey k = (TileKey) o;
+            return level == k.level && index == k.index && poly.equals(k.poly);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = poly.hashCode();
+            h = 31 * h + level;
+            h = 31 * h + Long.hashCode(index);
+            return h;
+        }
+    }
+}
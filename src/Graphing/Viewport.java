@@ -0,0 +1,113 @@
+package Graphing;
+
+/**
+ * Viewport is the visible x-range of the graph. It is immutable, panning
+ * and zooming return a new Viewport. The viewport also decides which zoom
+ * level the tile cache samples at, so that roughly the same number of
+ * tiles (and samples) are visible no matter how far the user zooms.
+ */
+public final class Viewport {
+    // width of a tile at zoom level 0, a power of two so tile edges are exact
+    public static final double BASE_TILE_WIDTH = 4.0;
+
+    // number of tiles that should roughly fill the viewport
+    private static final double TILES_PER_VIEW = 5.0;
+
+    // smallest and largest width allowed, keeps the tile math in range
+    private static final double MIN_WIDTH = 1e-6;
+    private static final double MAX_WIDTH = 1e6;
+
+    // the viewport the graph starts in, x in [-10, 10]
+    public static final Viewport DEFAULT = new Viewport(-10, 10);
+
+    private final double xMin;
+    private final double xMax;
+
+    /**
+     * Constructor for Viewport
+     * @param xMin left boundary of x-axis
+     * @param xMax right boundary of x-axis
+     */
+    public Viewport(double xMin, double xMax) {
+        if (!(xMax > xMin)) {
+            throw new IllegalArgumentException("Viewport xMax must be greater than xMin");
+        }
+        this.xMin = xMin;
+        this.xMax = xMax;
+    }
+
+    /**
+     * Getter for left boundary
+     * @return xMin
+     */
+    public double getXMin() {
+        return xMin;
+    }
+
+    /**
+     * Getter for right boundary
+     * @return xMax
+     */
+    public double getXMax() {
+        return xMax;
+    }
+
+    /**
+     * Width of the visible range
+     * @return xMax - xMin
+     */
+    public double width() {
+        return xMax - xMin;
+    }
+
+    /**
+     * Shifts the viewport along the x-axis
+     * @param dx distance to move, positive moves right
+     * @return panned viewport
+     */
+    public Viewport pan(double dx) {
+        return new Viewport(xMin + dx, xMax + dx);
+    }
+
+    /**
+     * Scales the viewport around an anchor point, the anchor stays at the
+     * same position on screen. A factor below 1 zooms in, above 1 zooms out.
+     * @param factor scale applied to the width
+     * @param anchor x value that stays fixed
+     * @return zoomed viewport
+     */
+    public Viewport zoom(double factor, double anchor) {
+        double newWidth = Math.max(MIN_WIDTH, Math.min(MAX_WIDTH, width() * factor));
+        double t = (anchor - xMin) / width();
+        double newMin = anchor - t * newWidth;
+        return new Viewport(newMin, newMin + newWidth);
+    }
+
+    /**
+     * Finds the zoom level for the tile cache. Each level halves the tile
+     * width, level 0 uses BASE_TILE_WIDTH. Negative levels are used when
+     * zoomed far out.
+     * @return zoom level
+     */
+    public int level() {
+        double ratio = BASE_TILE_WIDTH * TILES_PER_VIEW / width();
+        return (int) Math.floor(Math.log(ratio) / Math.log(2));
+    }
+
+    /**
+     * Width of one tile at the current zoom level
+     * @return tile width
+     */
+    public double tileWidth() {
+        return tileWidth(level());
+    }
+
+    /**
+     * Width of one tile at the given zoom level
+     * @param level zoom level
+     * @return tile width
+     */
+    public static double tileWidth(int level) {
+        return Math.scalb(BASE_TILE_WIDTH, -level);
+    }
+}
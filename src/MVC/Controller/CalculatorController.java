@@ -1,27 +1,53 @@
 package MVC.Controller;
 
 import MVC.Model.EquationModel;
+import MVC.Observer.ModelEvent;
 import MVC.View.DisplayView;
 import MVC.View.GraphView;
 import MVC.View.KeypadView;
 import MVC.View.UnitView;
+import Profiling.LatencyHistogram;
+import Profiling.MetricsRegistry;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * CalculatorController connects the Model and Views and manages how user input is
  * routed through the app. It uses the state pattern to switch between different
  * calculator states (BASIC, GRAPHING, EQUATION, AND UNIT conversion states.
  * All buttons pressed from keypad a flows into this controller.
+ * The graph and unit views are built the first time their mode is
+ * entered, so starting the calculator does not load the chart library
+ * or lay out panels the user may never open.
  */
 public class CalculatorController {
+    // latency metrics, from the key press until the views have repainted
+    public static final String KEYSTROKE = "ui.keystroke";
+    public static final String EQUALS = "ui.equals";
+    public static final String GRAPH = "ui.graph";
+    public static final String CONVERT = "ui.convert";
+
+    // latency of the first "=", GRAPH or convert after launch, recorded once
+    public static final String FIRST_RESULT = "ui.firstResult";
+
+    // time to build a mode's view the first time the mode is entered
+    public static final String GRAPH_VIEW_INIT = "ui.graphView.init";
+    public static final String UNIT_VIEW_INIT = "ui.unitView.init";
+
     private final EquationModel model;
     private final KeypadView keypad;
-    private final GraphView graphView;
-    private final UnitView unitView;
     private final JFrame frame;
 
+    // mode views, built on first use
+    private final Supplier<GraphView> graphViewFactory;
+    private final Supplier<UnitView> unitViewFactory;
+    private GraphView graphView;
+    private UnitView unitView;
+
     // state objects representing each mode
     private final CalculatorState basicState;
     private final CalculatorState equationState;
@@ -34,25 +60,32 @@ public class CalculatorController {
 
     private final JPanel topArea;
 
+    // set once the first result latency was taken
+    private boolean firstResultTaken = false;
+
 
     /**
      * Constructor for CalculatorController. It receives the model, keypad view,
-     * graph view, and the root app frame. All calculator states are created here,
-     * and the controller begins BASIC mode by default.
+     * factories for the graph and unit views, and the root app frame. All
+     * calculator states are created here, and the controller begins BASIC
+     * mode by default.
      * @param model the EquationModel
      * @param keypad keypad view that sends user button input
-     * @param graphView graphing panel used by Graph mode
+     * @param graphViewFactory builds the graphing panel when Graph mode is first entered
      * @param frame main app window
+     * @param displayView display of the input and results
+     * @param unitViewFactory builds the unit panel when Unit mode is first entered
+     * @param topArea panel the mode views are placed in
      */
     public CalculatorController(
-            EquationModel model, KeypadView keypad, GraphView graphView, JFrame frame,
-            DisplayView displayView, UnitView unitView, JPanel topArea) {
+            EquationModel model, KeypadView keypad, Supplier<GraphView> graphViewFactory, JFrame frame,
+            DisplayView displayView, Supplier<UnitView> unitViewFactory, JPanel topArea) {
         this.model = model;
         this.keypad = keypad;
-        this.graphView = graphView;
+        this.graphViewFactory = graphViewFactory;
         this.frame = frame;
         this.displayView = displayView;
-        this.unitView = unitView;
+        this.unitViewFactory = unitViewFactory;
         this.topArea = topArea;
 
 
@@ -99,6 +132,39 @@ public class CalculatorController {
         return state == basicState;
     }
 
+    /**
+     * Returns the graph view, building it and subscribing it to the model
+     * on first use. It renders the curves already in the model right away.
+     * @return graph view
+     */
+    private GraphView graphView() {
+        if (graphView == null) {
+            long start = System.nanoTime();
+            graphView = graphViewFactory.get();
+            model.addListener(graphView, EnumSet.of(ModelEvent.GRAPH));
+            graphView.modelChanged(model);
+            MetricsRegistry.global().histogram(GRAPH_VIEW_INIT).recordSince(start);
+        }
+        return graphView;
+    }
+
+    /**
+     * Returns the unit view, building it, connecting its buttons and
+     * subscribing it to the model on first use
+     * @return unit view
+     */
+    private UnitView unitView() {
+        if (unitView == null) {
+            long start = System.nanoTime();
+            unitView = unitViewFactory.get();
+            unitView.connect(model, this);
+            model.addListener(unitView, EnumSet.of(ModelEvent.UNIT));
+            unitView.modelChanged(model);
+            MetricsRegistry.global().histogram(UNIT_VIEW_INIT).recordSince(start);
+        }
+        return unitView;
+    }
+
     /**
      * Updates the UI according to the current state of the calculator
      */
@@ -108,11 +174,11 @@ public class CalculatorController {
 
         if (isGraph()) {
             // GRAPH mode, show graph above keypad, display visible
-            topArea.add(graphView.getRootGraph(), BorderLayout.CENTER);
+            topArea.add(graphView().getRootGraph(), BorderLayout.CENTER);
             displayView.getComponent().setVisible(true);
         } else if (isUnit()) {
             // UNIT mode, show unit conversion view above keypad, hide display
-            topArea.add(unitView.getRootUnit(), BorderLayout.CENTER);
+            topArea.add(unitView().getRootUnit(), BorderLayout.CENTER);
             displayView.getComponent().setVisible(false);
         } else {
             // BASIC or EQUATION mode, no extra panel above keypad, display visible
@@ -131,6 +197,62 @@ public class CalculatorController {
      * @param token action command associated with pressed button
      */
     public void handleKey(String token) {
+        long start = System.nanoTime();
+        dispatch(token);
+        String name = latencyMetricName(token);
+        if (name == null) {
+            return;
+        }
+        LatencyHistogram h = MetricsRegistry.global().histogram(name);
+
+        // the first result after launch is also kept on its own
+        boolean first = !firstResultTaken && !name.equals(KEYSTROKE);
+        firstResultTaken |= first;
+        LatencyHistogram firstResult = first ? MetricsRegistry.global().histogram(FIRST_RESULT) : null;
+
+        // the model's coalesced notification is already queued, the views
+        // it updates queue their repaint when it runs, so two hops through
+        // the event queue land after both
+        if (SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> SwingUtilities.invokeLater(() -> record(start, h, firstResult)));
+        } else {
+            record(start, h, firstResult);
+        }
+    }
+
+    /**
+     * Records the latency of a key press
+     * @param start System.nanoTime() when the key was handled
+     * @param h histogram of the key's kind
+     * @param firstResult first result histogram, null if already taken
+     */
+    private static void record(long start, LatencyHistogram h, LatencyHistogram firstResult) {
+        long nanos = System.nanoTime() - start;
+        h.record(nanos);
+        if (firstResult != null) {
+            firstResult.record(nanos);
+        }
+    }
+
+    /**
+     * Names the latency metric a key press counts towards
+     * @param token action command of the key
+     * @return metric name, null for mode switches
+     */
+    private String latencyMetricName(String token) {
+        if (token.startsWith("MODE_")) {
+            return null;
+        } else if (token.equals("=") || token.equals("SOLVE_EQ") || token.equals("GRAPH_ADD")) {
+            return isGraph() ? GRAPH : isUnit() ? CONVERT : EQUALS;
+        }
+        return KEYSTROKE;
+    }
+
+    /**
+     * Sends a token to the mode switch or to the active state
+     * @param token action command associated with pressed button
+     */
+    private void dispatch(String token) {
         switch (token) {
             // sets the state according to token and resizes frame.
             // sets certain to not visible depending on state
@@ -160,5 +282,19 @@ public class CalculatorController {
             default -> state.handleKey(token, model);
         }
     }
-}
 
+    /**
+     * Feeds a sequence of tokens through handleKey as one batch, used
+     * for pasting expressions and replaying keystrokes. The views are
+     * refreshed once at the end instead of once per token, and the
+     * tokens are not counted in the keystroke latency.
+     * @param tokens tokens in the order they would be pressed
+     */
+    public void replay(List<String> tokens) {
+        model.batch(() -> {
+            for (String token : tokens) {
+                dispatch(token);
+            }
+        });
+    }
+}
@@ -11,6 +11,8 @@ public class GraphState implements CalculatorState {
     /**
      * Handles buttons pressed in GRAPH mode
      * "=" parses and graphs expression
+     * "GRAPH_ADD" parses expression and adds it as another curve
+     * "GRAPH_CLR" removes all curves
      * "C" clears input
      * "DEL" deletes the last character
      * digits/operators are appended to input
@@ -21,6 +23,8 @@ public class GraphState implements CalculatorState {
     public void handleKey(String token, EquationModel model) {
         switch (token) {
             case "="   -> model.graph();
+            case "GRAPH_ADD" -> model.addGraph();
+            case "GRAPH_CLR" -> model.clearGraphs();
             case "C"   -> model.clear();
             case "DEL" -> model.deleteLast();
             default    -> model.appendToken(token);
@@ -1,34 +1,59 @@
 package MVC.Model;
 
 import Algebra.Polynomial;
+import MVC.Observer.ModelEvent;
 import MVC.Observer.ModelListener;
+import MVC.Observer.NotificationDispatcher;
+import Numeric.FastDoubleParser;
+import Numeric.FixedFormatter;
 import OperationsBundle.*;
 import Parser.EquationParser;
+import Profiling.MetricsRegistry;
+import Profiling.ModelOperationEvent;
+import Profiling.NotifyEvent;
 import UnitConversion.UnitConversion;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
 
 /**
  * EquationModel is the model for the MVC pattern. It
  * stores the user input, tracks last computed result,
- * handles parsing, solving, and graphing. Notifies all
- * the views whenever the model changes state.
+ * handles parsing, solving, and graphing. Notifies the
+ * views whenever the model changes state, each view only
+ * hears about the kinds of changes (ModelEvent) it
+ * subscribed to. Notifications are coalesced and delivered
+ * on the Swing event thread, a burst of changes refreshes
+ * the views once.
+ *
+ * The state lives in an immutable ModelSnapshot. Every change builds
+ * a new snapshot from the current one and publishes it with a
+ * compare-and-set, so the model can be shared between threads and
+ * readers never lock, they see either the old or the new state.
  */
 public class EquationModel {
-    // current expression user is typing
-    private final StringBuilder input = new StringBuilder();
+    // name of the curve set by graph()
+    public static final String MAIN_GRAPH = "f(x)";
 
-    // Last computed polynomial result
-    private Polynomial lastResult = Polynomial.zero();
-
-    // last error message
-    private String lastError = null;
+    // current state, replaced as a whole on every change
+    private final AtomicReference<ModelSnapshot> state = new AtomicReference<>(ModelSnapshot.EMPTY);
 
     // Array of all observers (DisplayView, GraphView, KeypadView, UnitView)
-    private final List<ModelListener> listeners = new ArrayList<>();
+    private final List<Subscription> listeners = new CopyOnWriteArrayList<>();
+
+    // merges notifications and delivers them on the event thread
+    private final NotificationDispatcher dispatcher = new NotificationDispatcher(this::deliver);
 
-    // Operator Strategies used by the parser
+    // Operator Strategies used by the parser, stateless so threads can share them
     private final BinaryStrategy addOp = new AddOp();
     private final BinaryStrategy subOp = new SubOp();
     private final BinaryStrategy mulOp = new MultOp();
@@ -37,42 +62,28 @@ public class EquationModel {
     private final PowStrategy powOp = new PowOp();
     private final UnaryStrategy rootOp = new RootOp();
 
-    // Polynomial used bt the GraphView
-    private Polynomial graphPoly = null;
-
-    private UnitModel unitModel = new UnitModel();
-    private final UnitConversion unitConversion = new UnitConversion();
-
     /**
      * Appends token to the current input (digit, operator, variable, etc.)
      * @param token
      */
     public void appendToken(String token) {
-        lastError = null;
-        input.append(token);
-        notifyListeners();
+        update(s -> s.withError(null).withInput(s.getInput() + token));
     }
 
     /**
      * Clears the current input, resets lastResult
      */
     public void clear() {
-        input.setLength(0);
-        lastError = null;
-
-        lastResult = Polynomial.zero();
-
-        notifyListeners();
+        update(s -> s.withError(null).withInput("").withResult(Polynomial.zero()));
     }
 
     /**
      * Deletes the last character of the current input
      */
     public void deleteLast() {
-        if (input.length() > 0) {
-            input.deleteCharAt(input.length() - 1);
-            notifyListeners();
-        }
+        update(s -> s.getInput().isEmpty()
+                ? s
+                : s.withInput(s.getInput().substring(0, s.getInput().length() - 1)));
     }
 
     /**
@@ -81,59 +92,62 @@ public class EquationModel {
      * error, it stores the message.
      */
     public void solve() {
-        lastError = null;
-        try {
-            String expr = input.toString();
-            if (expr.isEmpty()) {
-                return;
+        record("solve", s -> s.getInput().length(), ModelSnapshot::getLastResult, s -> {
+            s = s.withError(null);
+            if (s.getInput().isEmpty()) {
+                return s;
             }
+            try {
+                Polynomial p = parse(s.getInput());
+                return s.withResult(p).withInput(p.toString());
+            } catch (Exception e) {
+                return s.withError(e.getMessage());
+            }
+        });
+    }
 
-            EquationParser parser =
-                    new EquationParser(
-                            expr, addOp, subOp, mulOp, divOp, negOp, powOp, rootOp);
-
-            Polynomial p = parser.parse();
-            lastResult = p;
-
-            input.setLength(0);
-            input.append(p.toString());
-        } catch (Exception e) {
-            lastError = e.getMessage();
-        }
+    /**
+     * Adds a listener that is notified of every change
+     * @param l listener
+     */
+    public void addListener(ModelListener l) {
+        addListener(l, EnumSet.allOf(ModelEvent.class));
+    }
 
-        notifyListeners();
+    /**
+     * Adds a listener that is only notified when one of the given
+     * events is part of a change
+     * @param l listener
+     * @param events events the listener depends on
+     */
+    public void addListener(ModelListener l, Set<ModelEvent> events) {
+        listeners.add(new Subscription(l, EnumSet.copyOf(events)));
     }
 
     /**
-     * Adds listeners to listeners arrayList
-     * @param l
+     * Returns the current state, a consistent view of the whole model
+     * that later changes never modify
+     * @return current snapshot
      */
-    public void addListener(ModelListener l) {
-        listeners.add(l);
+    public ModelSnapshot snapshot() {
+        return state.get();
     }
 
     /**
-     * Returns the correct string for DisplayView (input, last result, error)
+     * Returns the correct string for DisplayView (input, last result, error).
+     * The string is cached in the snapshot it was built from.
      * @return String (input, last result, error)
      */
     public String getDisplayText() {
-        if (lastError != null) {
-            return "ERR: " + lastError;
-        }
-
-        if (input.length() > 0) {
-            return input.toString();
-        }
-
-        return lastResult.toString();
+        return state.get().getDisplayText();
     }
 
     /**
-     * Returns the current expression in the models StringBuilder input
+     * Returns the current expression in the model
      * @return string current expression in model
      */
     public String getInput() {
-        return input.toString();
+        return state.get().getInput();
     }
 
     /**
@@ -194,13 +208,10 @@ public class EquationModel {
 
     /**
      * Displays the solved solution in DisplayView
-     * @param s solution to display
+     * @param sol solution to display
      */
-    public void showSolution(String s) {
-        lastError = null;
-        input.setLength(0);
-        input.append(s);
-        notifyListeners();
+    public void showSolution(String sol) {
+        update(s -> s.withError(null).withInput(sol));
     }
 
     /**
@@ -208,104 +219,157 @@ public class EquationModel {
      * @param msg error message to display
      */
     public void showError(String msg) {
-        lastError = msg;
-        notifyListeners();
+        update(s -> s.withError(msg));
     }
 
     /**
      * Converts the current input into a polynomial that the
-     * GraphView can plot
+     * GraphView can plot, replacing the main curve f(x)
      */
     public void graph() {
-        // resets error message and polynomial
-        lastError = null;
-        graphPoly = null;
+        record("graph", s -> s.getInput().length(), s -> s.getGraphs().get(MAIN_GRAPH), s -> {
+            // resets error message and main curve
+            s = s.withError(null).withGraph(MAIN_GRAPH, null);
 
-        // gets current user input as string
-        String expr = input.toString();
+            // parses the polynomial and graphs it, else stores error message
+            try {
+                return s.withGraph(MAIN_GRAPH, parse(s.getInput()));
+            } catch (Exception e) {
+                return s.withError(e.getMessage());
+            }
+        });
+    }
 
-        // try catch creates the parser instance, and parses the polynomial and graphs it
-        // else stores error message
-        try {
-            EquationParser parser =
-                    new EquationParser(expr, addOp, subOp, mulOp, divOp, negOp, powOp, rootOp);
-            graphPoly = parser.parse();
-        } catch (Exception e) {
-            lastError = e.getMessage();
-            graphPoly = null;
-        }
+    /**
+     * Converts the current input into a polynomial and adds it as
+     * another curve, keeping the curves already plotted
+     */
+    public void addGraph() {
+        record("addGraph", s -> s.getInput().length(), s -> null, s -> {
+            s = s.withError(null);
+            try {
+                Polynomial p = parse(s.getInput());
+                Map<String, Polynomial> graphs = s.getGraphs();
+
+                // first free name f2(x), f3(x), ...
+                int n = graphs.size() + 1;
+                while (graphs.containsKey("f" + n + "(x)")) {
+                    n++;
+                }
+                return s.withGraph(graphs.isEmpty() ? MAIN_GRAPH : "f" + n + "(x)", p);
+            } catch (Exception e) {
+                return s.withError(e.getMessage());
+            }
+        });
+    }
 
-        notifyListeners();
+    /**
+     * Removes every plotted curve
+     */
+    public void clearGraphs() {
+        update(s -> s.getGraphs().isEmpty() ? s : s.withGraphs(Collections.emptyMap()));
     }
 
     /**
-     * Returns the polynomial to be graphed
-     * @return Polynomial to be graphed
+     * Parses an expression with the model's strategies
+     * @param expr expression to parse
+     * @return parsed polynomial
+     */
+    private Polynomial parse(String expr) {
+        EquationParser parser =
+                new EquationParser(expr, addOp, subOp, mulOp, divOp, negOp, powOp, rootOp);
+        return parser.parse();
+    }
+
+    /**
+     * Returns the main polynomial to be graphed
+     * @return Polynomial to be graphed, null if there is none
      */
     public Polynomial getGraph() {
-        return graphPoly;
+        return state.get().getGraphs().get(MAIN_GRAPH);
+    }
+
+    /**
+     * Returns every curve to be graphed, keyed by curve name
+     * @return read only map of curves in plotting order
+     */
+    public Map<String, Polynomial> getGraphs() {
+        return state.get().getGraphs();
     }
 
     //------------------------------------------------------------
     public UnitModel getUnitModel() {
-        return unitModel;
+        return state.get().getUnit();
     }
 
     public UnitModel.UnitState getUnitState() {
-        return unitModel.getUnitState();
+        return getUnitModel().getUnitState();
     }
 
     public UnitModel.TypeState getTypeState() {
-        return unitModel.getTypeState();
+        return getUnitModel().getTypeState();
     }
 
     public void changeUnitState() {
-        unitModel.changeUnitState();
-        notifyListeners();
+        updateUnit(UnitModel::changeUnitState);
     }
 
     public void changeTypeState() {
-        unitModel.changeTypeState();
-        notifyListeners();
+        updateUnit(UnitModel::changeTypeState);
     }
 
     public void setTypeState(UnitModel.TypeState typeState) {
-        unitModel.setTypeState(typeState);
-        notifyListeners();
+        updateUnit(u -> u.setTypeState(typeState));
+    }
+
+    public void setImperialUnit(String unit) {
+        updateUnit(u -> u.setImperialUnit(unit));
+    }
+
+    public void setMetricUnit(String unit) {
+        updateUnit(u -> u.setMetricUnit(unit));
     }
 
     public void appendImperialToken(String token) {
-        lastError = null;
-        unitModel.appendImperialToken(token);
-        notifyListeners();
+        update(s -> s.withError(null).withUnit(s.getUnit().appendImperialToken(token)));
     }
 
     public void appendMetricToken(String token) {
-        lastError = null;
-        unitModel.appendMetricToken(token);
-        notifyListeners();
+        update(s -> s.withError(null).withUnit(s.getUnit().appendMetricToken(token)));
     }
 
     public String getImperialInput() {
-        return unitModel.getImperialInput();
+        return getUnitModel().getImperialInput();
     }
 
     public String getMetricInput() {
-        return unitModel.getMetricInput();
+        return getUnitModel().getMetricInput();
     }
 
     public void clearUnit() {
-        unitModel.clearUnit();
-        notifyListeners();
+        updateUnit(UnitModel::clearUnit);
     }
 
     public void deleteLastUnit() {
-        unitModel.deleteLastUnit();
-        notifyListeners();
+        updateUnit(UnitModel::deleteLastUnit);
     }
 
     public void convert() {
-        lastError = null;
+        record("convert", s -> {
+            UnitModel u = s.getUnit();
+            String in = u.getUnitState() == UnitModel.UnitState.IMPERIAL ? u.getImperialInput() : u.getMetricInput();
+            return in == null ? 0 : in.length();
+        }, s -> null, this::convert);
+    }
+
+    /**
+     * Converts the active unit input into the other unit
+     * @param s state to convert in
+     * @return state with the converted value, or with an error
+     */
+    private ModelSnapshot convert(ModelSnapshot s) {
+        s = s.withError(null);
+        UnitModel unitModel = s.getUnit();
 
         boolean isImperial = (unitModel.getUnitState() == UnitModel.UnitState.IMPERIAL);
 
@@ -314,63 +378,178 @@ public class EquationModel {
                 : unitModel.getMetricInput();
 
         if (unitInput == null || unitInput.isBlank()) {
-            return;
+            return s;
         }
 
         double value;
         try {
-            value = Double.parseDouble(unitInput);
+            value = FastDoubleParser.parseDouble(unitInput);
         } catch (NumberFormatException e) {
-            showError("Invalid number");
-            return;
+            return s.withError("Invalid number");
         }
 
-        UnitModel.TypeState type = unitModel.getTypeState();
+        String from = isImperial ? unitModel.getImperialUnit() : unitModel.getMetricUnit();
+        String to = isImperial ? unitModel.getMetricUnit() : unitModel.getImperialUnit();
+
         double result;
+        try {
+            result = UnitConversion.compile(from, to).apply(value);
+        } catch (IllegalArgumentException e) {
+            return s.withError(e.getMessage());
+        }
 
-        if (type == UnitModel.TypeState.LENGTH) {
+        String resultText = FixedFormatter.format(result, 4);
 
-            String fromUnit = isImperial
-                    ? unitModel.getImperialUnit()
-                    : unitModel.getMetricUnit();
+        return s.withUnit(isImperial
+                ? unitModel.setMetricInput(resultText)
+                : unitModel.setImperialInput(resultText));
+    }
 
-            String toUnit = isImperial
-                    ? unitModel.getMetricUnit()
-                    : unitModel.getImperialUnit();
+    /**
+     * Notifies all views that the model has changed state
+     */
+    public void notifyListeners() {
+        dispatcher.post(EnumSet.allOf(ModelEvent.class));
+    }
 
-            try {
-                double inBase = unitConversion.convertToBase(fromUnit, value);
-                result = unitConversion.convertToTarget(toUnit, inBase);
-            } catch (IllegalArgumentException e) {
-                showError(e.getMessage());
-                return;
+    /**
+     * Applies a change to the current state and publishes the result.
+     * If another thread published first the change is applied again to
+     * the newer state, so the function must not have side effects.
+     * The views are notified of whatever parts of the state changed.
+     * @param change builds the next state from the current one
+     * @return times the change was applied
+     */
+    private int update(UnaryOperator<ModelSnapshot> change) {
+        for (int attempts = 1; ; attempts++) {
+            ModelSnapshot current = state.get();
+            ModelSnapshot next = change.apply(current);
+            if (next == current) {
+                return attempts;
             }
-
-        } else {
-            if (isImperial) {
-                result = unitConversion.convertToCel(value);
-            } else {
-                result = unitConversion.convertToFahr(value);
+            if (state.compareAndSet(current, next)) {
+                dispatcher.post(changes(current, next));
+                return attempts;
             }
         }
+    }
+
+    /**
+     * Applies a change like update and records it as a JFR event and in
+     * the "model.<operation>" histogram, so a recording shows how long
+     * each solve, graph or convert took
+     * @param operation name of the model method
+     * @param input length of the input the operation reads
+     * @param result polynomial the operation produced, null if none
+     * @param change builds the next state from the current one
+     */
+    private void record(String operation,
+                        ToIntFunction<ModelSnapshot> input,
+                        Function<ModelSnapshot, Polynomial> result,
+                        UnaryOperator<ModelSnapshot> change) {
+        ModelOperationEvent event = new ModelOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int inputLength = input.applyAsInt(state.get());
+        int attempts = update(change);
+        MetricsRegistry.global().histogram("model." + operation).recordSince(start);
+
+        // read back after publishing, another thread may have changed it since
+        ModelSnapshot after = state.get();
+        Polynomial p = result.apply(after);
+        event.finish(operation, inputLength, p == null ? -1 : p.degree(), attempts, after.getLastError() != null);
+    }
 
-        String resultText = String.format("%.4f", result);
+    /**
+     * Applies a change to the unit conversion state
+     * @param change builds the next unit state from the current one
+     */
+    private void updateUnit(UnaryOperator<UnitModel> change) {
+        update(s -> s.withUnit(change.apply(s.getUnit())));
+    }
 
-        if (isImperial) {
-            unitModel.setMetricInput(resultText);
-        } else {
-            unitModel.setImperialInput(resultText);
+    /**
+     * Works out which kinds of state differ between two snapshots
+     * @param before state before the change
+     * @param after state after the change
+     * @return events describing the change
+     */
+    private static Set<ModelEvent> changes(ModelSnapshot before, ModelSnapshot after) {
+        EnumSet<ModelEvent> events = EnumSet.noneOf(ModelEvent.class);
+        if (!before.getInput().equals(after.getInput())) {
+            events.add(ModelEvent.INPUT);
+        }
+        if (before.getLastResult() != after.getLastResult()) {
+            events.add(ModelEvent.RESULT);
+        }
+        if (!Objects.equals(before.getLastError(), after.getLastError())) {
+            events.add(ModelEvent.ERROR);
         }
+        if (before.getGraphs() != after.getGraphs()) {
+            events.add(ModelEvent.GRAPH);
+        }
+        if (before.getUnit() != after.getUnit()) {
+            events.add(ModelEvent.UNIT);
+        }
+        return events;
+    }
 
-        notifyListeners();
+    /**
+     * Runs a block of model changes and notifies the views once after
+     * it, with all the events of the block
+     * ex: model.batch(() -> tokens.forEach(model::appendToken));
+     * @param changes block of model changes
+     */
+    public void batch(Runnable changes) {
+        dispatcher.batch(changes);
     }
 
     /**
-     * Notifies all views that the model has changed state
+     * Delivers pending notifications right away instead of waiting for
+     * the event thread
      */
-    public void notifyListeners() {
-        for (ModelListener l : listeners) {
-            l.modelChanged(this);
+    public void flushNotifications() {
+        dispatcher.flush();
+    }
+
+    /**
+     * Sends merged events to the listeners subscribed to them
+     * @param events events of one or more changes
+     */
+    private void deliver(Set<ModelEvent> events) {
+        NotifyEvent event = new NotifyEvent();
+        event.begin();
+        int total = 0;
+        int delivered = 0;
+        for (Subscription s : listeners) {
+            total++;
+            if (s.accepts(events)) {
+                s.listener.modelChanged(this, events);
+                delivered++;
+            }
+        }
+        event.finish(events, total, delivered);
+    }
+
+    /**
+     * A listener and the events it subscribed to
+     */
+    private static final class Subscription {
+        private final ModelListener listener;
+        private final EnumSet<ModelEvent> events;
+
+        private Subscription(ModelListener listener, EnumSet<ModelEvent> events) {
+            this.listener = listener;
+            this.events = events;
+        }
+
+        private boolean accepts(Set<ModelEvent> changed) {
+            for (ModelEvent e : changed) {
+                if (events.contains(e)) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 }
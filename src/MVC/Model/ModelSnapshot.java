@@ -0,0 +1,137 @@
+package MVC.Model;
+
+import Algebra.Polynomial;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ModelSnapshot is one immutable state of the EquationModel. Every change
+ * to the model builds a new snapshot and publishes it atomically, so
+ * readers such as renderers and solvers get a consistent state without
+ * locking, even while other threads keep changing the model.
+ */
+public final class ModelSnapshot {
+    // the state of a new model
+    static final ModelSnapshot EMPTY =
+            new ModelSnapshot("", Polynomial.zero(), null, Collections.emptyMap(), new UnitModel());
+
+    // current expression user is typing
+    private final String input;
+
+    // Last computed polynomial result
+    private final Polynomial lastResult;
+
+    // last error message, null if there is none
+    private final String lastError;
+
+    // Polynomials plotted by the GraphView, keyed by curve name in plotting order
+    private final Map<String, Polynomial> graphs;
+
+    // unit conversion state
+    private final UnitModel unit;
+
+    // display string, built on first use, racing threads build the same string
+    private String displayText;
+
+    private ModelSnapshot(String input, Polynomial lastResult, String lastError,
+                          Map<String, Polynomial> graphs, UnitModel unit) {
+        this.input = input;
+        this.lastResult = lastResult;
+        this.lastError = lastError;
+        this.graphs = graphs;
+        this.unit = unit;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public Polynomial getLastResult() {
+        return lastResult;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public Map<String, Polynomial> getGraphs() {
+        return graphs;
+    }
+
+    public UnitModel getUnit() {
+        return unit;
+    }
+
+    /**
+     * Returns the correct string for DisplayView (input, last result, error)
+     * @return String (input, last result, error)
+     */
+    public String getDisplayText() {
+        String text = displayText;
+        if (text == null) {
+            if (lastError != null) {
+                text = "ERR: " + lastError;
+            } else if (!input.isEmpty()) {
+                text = input;
+            } else {
+                text = lastResult.toString();
+            }
+            displayText = text;
+        }
+        return text;
+    }
+
+    ModelSnapshot withInput(String input) {
+        if (input.equals(this.input)) {
+            return this;
+        }
+        return new ModelSnapshot(input, lastResult, lastError, graphs, unit);
+    }
+
+    ModelSnapshot withResult(Polynomial lastResult) {
+        return new ModelSnapshot(input, lastResult, lastError, graphs, unit);
+    }
+
+    ModelSnapshot withError(String lastError) {
+        if (Objects.equals(lastError, this.lastError)) {
+            return this;
+        }
+        return new ModelSnapshot(input, lastResult, lastError, graphs, unit);
+    }
+
+    ModelSnapshot withUnit(UnitModel unit) {
+        if (unit == this.unit) {
+            return this;
+        }
+        return new ModelSnapshot(input, lastResult, lastError, graphs, unit);
+    }
+
+    /**
+     * Adds or replaces one curve, or removes it when p is null
+     * @param name curve name
+     * @param p polynomial, null to remove
+     * @return snapshot with the curve changed
+     */
+    ModelSnapshot withGraph(String name, Polynomial p) {
+        if (p == null && !graphs.containsKey(name)) {
+            return this;
+        }
+        Map<String, Polynomial> copy = new LinkedHashMap<>(graphs);
+        if (p == null) {
+            copy.remove(name);
+        } else {
+            copy.put(name, p);
+        }
+        return withGraphs(copy);
+    }
+
+    ModelSnapshot withGraphs(Map<String, Polynomial> graphs) {
+        Map<String, Polynomial> frozen = graphs.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(graphs));
+        return new ModelSnapshot(input, lastResult, lastError, frozen, unit);
+    }
+}
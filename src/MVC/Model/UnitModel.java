@@ -1,24 +1,98 @@
 package MVC.Model;
 
-public class UnitModel {
-    private final StringBuilder imperialInput = new StringBuilder();
-    private final StringBuilder metricInput = new StringBuilder();
-    private TypeState activeTypeState = TypeState.LENGTH;
+import java.util.List;
 
-    // sets the current state of UnitView to IMPERIAL;
-    private UnitState activeUnitState = UnitState.IMPERIAL;
+/**
+ * UnitModel holds the state of the unit conversion view. It is
+ * immutable, every change returns a new UnitModel so it can be
+ * shared between threads as part of a ModelSnapshot.
+ */
+public final class UnitModel {
+    private final String imperialInput;
+    private final String metricInput;
+    private final TypeState activeTypeState;
 
-    private String imperialUnit = "FT";
-    private String metricUnit = "M";
+    // the current state of UnitView, IMPERIAL by default
+    private final UnitState activeUnitState;
+
+    private final String imperialUnit;
+    private final String metricUnit;
 
     public enum UnitState {
         IMPERIAL,
         METRIC
     }
 
+    /**
+     * The kinds of quantity the view converts, with the unit choices on
+     * each side and the units selected when switching to the type.
+     */
     public enum TypeState {
-        LENGTH,
-        TEMPERATURE
+        LENGTH(List.of("IN", "FT", "YD", "MI"), "FT", List.of("MM", "CM", "M", "KM"), "M"),
+        TEMPERATURE(List.of("F°"), "F°", List.of("C°", "K"), "C°"),
+        MASS(List.of("OZ", "LB"), "LB", List.of("G", "KG", "T"), "KG"),
+        AREA(List.of("IN^2", "FT^2", "YD^2", "ACRE", "MI^2"), "FT^2",
+                List.of("CM^2", "M^2", "HA", "KM^2"), "M^2"),
+        VOLUME(List.of("GAL", "FT^3"), "GAL", List.of("ML", "L", "M^3"), "L"),
+        SPEED(List.of("FT/S", "MI/H", "KN"), "MI/H", List.of("M/S", "KM/H"), "KM/H"),
+        PRESSURE(List.of("PSI", "ATM"), "PSI", List.of("PA", "KPA", "BAR"), "KPA"),
+        ENERGY(List.of("FT*LBF", "BTU"), "BTU", List.of("J", "KJ", "KCAL", "KWH"), "KJ");
+
+        private final List<String> imperialUnits;
+        private final String defaultImperial;
+        private final List<String> metricUnits;
+        private final String defaultMetric;
+
+        TypeState(List<String> imperialUnits, String defaultImperial,
+                  List<String> metricUnits, String defaultMetric) {
+            this.imperialUnits = imperialUnits;
+            this.defaultImperial = defaultImperial;
+            this.metricUnits = metricUnits;
+            this.defaultMetric = defaultMetric;
+        }
+
+        public List<String> getImperialUnits() {
+            return imperialUnits;
+        }
+
+        public List<String> getMetricUnits() {
+            return metricUnits;
+        }
+
+        public String getDefaultImperial() {
+            return defaultImperial;
+        }
+
+        public String getDefaultMetric() {
+            return defaultMetric;
+        }
+
+        /**
+         * Returns the type after this one, wrapping around to the first
+         * @return next type
+         */
+        public TypeState next() {
+            TypeState[] all = values();
+            return all[(ordinal() + 1) % all.length];
+        }
+    }
+
+    /**
+     * Creates the starting state, length in feet and meters
+     */
+    public UnitModel() {
+        this("", "", TypeState.LENGTH, UnitState.IMPERIAL,
+                TypeState.LENGTH.getDefaultImperial(), TypeState.LENGTH.getDefaultMetric());
+    }
+
+    private UnitModel(String imperialInput, String metricInput, TypeState typeState,
+                      UnitState unitState, String imperialUnit, String metricUnit) {
+        this.imperialInput = imperialInput;
+        this.metricInput = metricInput;
+        this.activeTypeState = typeState;
+        this.activeUnitState = unitState;
+        this.imperialUnit = imperialUnit;
+        this.metricUnit = metricUnit;
     }
 
     public UnitState getUnitState() {
@@ -29,51 +103,52 @@ public class UnitModel {
         return activeTypeState;
     }
 
-    public void changeUnitState() {
-        activeUnitState = (activeUnitState == UnitState.IMPERIAL)
+    public UnitModel changeUnitState() {
+        UnitState next = (activeUnitState == UnitState.IMPERIAL)
                 ? UnitState.METRIC
                 : UnitState.IMPERIAL;
+        return new UnitModel(imperialInput, metricInput, activeTypeState, next, imperialUnit, metricUnit);
     }
 
-    public void changeTypeState() {
-        TypeState current = getTypeState();
-        if (current == TypeState.LENGTH) {
-            setTypeState(TypeState.TEMPERATURE);
-        } else {
-            setTypeState(TypeState.LENGTH);
-        }
+    public UnitModel changeTypeState() {
+        return setTypeState(activeTypeState.next());
     }
 
-    public void setTypeState(TypeState typeState) {
-        if (this.activeTypeState != typeState) {
-            this.activeTypeState = typeState;
+    /**
+     * Switches to another kind of quantity and its default units
+     * @param typeState new type
+     * @return unit state of the new type
+     */
+    public UnitModel setTypeState(TypeState typeState) {
+        if (this.activeTypeState == typeState) {
+            return this;
         }
+        return new UnitModel(imperialInput, metricInput, typeState, activeUnitState,
+                typeState.getDefaultImperial(), typeState.getDefaultMetric());
     }
 
-    public void appendImperialToken(String token) {
-        imperialInput.append(token);
+    public UnitModel appendImperialToken(String token) {
+        return setImperialInput(imperialInput + token);
     }
 
-    public void appendMetricToken(String token) {
-        metricInput.append(token);
+    public UnitModel appendMetricToken(String token) {
+        return setMetricInput(metricInput + token);
     }
 
     public String getImperialInput() {
-        return imperialInput.toString();
+        return imperialInput;
     }
 
     public String getMetricInput() {
-        return metricInput.toString();
+        return metricInput;
     }
 
-    public void setImperialInput(String value) {
-        imperialInput.setLength(0);
-        imperialInput.append(value);
+    public UnitModel setImperialInput(String value) {
+        return new UnitModel(value, metricInput, activeTypeState, activeUnitState, imperialUnit, metricUnit);
     }
 
-    public void setMetricInput(String value) {
-        metricInput.setLength(0);
-        metricInput.append(value);
+    public UnitModel setMetricInput(String value) {
+        return new UnitModel(imperialInput, value, activeTypeState, activeUnitState, imperialUnit, metricUnit);
     }
 
     public String getImperialUnit() {
@@ -84,28 +159,38 @@ public class UnitModel {
         return metricUnit;
     }
 
-    public void setImperialUnit(String imperialUnit) {
-        this.imperialUnit = imperialUnit;
+    public UnitModel setImperialUnit(String imperialUnit) {
+        if (imperialUnit.equals(this.imperialUnit)) {
+            return this;
+        }
+        return new UnitModel(imperialInput, metricInput, activeTypeState, activeUnitState, imperialUnit, metricUnit);
     }
 
-    public void setMetricUnit(String metricUnit) {
-        this.metricUnit = metricUnit;
+    public UnitModel setMetricUnit(String metricUnit) {
+        if (metricUnit.equals(this.metricUnit)) {
+            return this;
+        }
+        return new UnitModel(imperialInput, metricInput, activeTypeState, activeUnitState, imperialUnit, metricUnit);
     }
 
-    public void clearUnit() {
-        imperialInput.setLength(0);
-        metricInput.setLength(0);
+    public UnitModel clearUnit() {
+        if (imperialInput.isEmpty() && metricInput.isEmpty()) {
+            return this;
+        }
+        return new UnitModel("", "", activeTypeState, activeUnitState, imperialUnit, metricUnit);
     }
 
-    public void deleteLastUnit() {
-        StringBuilder active =
-                (getUnitState() == UnitState.IMPERIAL)
-                        ? imperialInput
-                        : metricInput;
+    public UnitModel deleteLastUnit() {
+        String active = (getUnitState() == UnitState.IMPERIAL) ? imperialInput : metricInput;
 
-        if (active.length() > 0) {
-            active.deleteCharAt(active.length() - 1);
+        if (active.isEmpty()) {
+            return this;
         }
+
+        String shorter = active.substring(0, active.length() - 1);
+        return (getUnitState() == UnitState.IMPERIAL)
+                ? setImperialInput(shorter)
+                : setMetricInput(shorter);
     }
 
 }
@@ -0,0 +1,19 @@
+package MVC.Observer;
+
+/**
+ * ModelEvent describes what part of the EquationModel changed. Listeners
+ * subscribe to the events they depend on, so a keystroke only reaches
+ * the views that show the input.
+ */
+public enum ModelEvent {
+    // the expression being typed changed
+    INPUT,
+    // a new result was computed or the result was reset
+    RESULT,
+    // the plotted curves changed
+    GRAPH,
+    // unit conversion inputs, units or modes changed
+    UNIT,
+    // an error was set or cleared
+    ERROR
+}
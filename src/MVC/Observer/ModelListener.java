@@ -2,12 +2,24 @@ package MVC.Observer;
 
 import MVC.Model.EquationModel;
 
+import java.util.Set;
+
 /**
  * ModelListener is the Observer interface for the MVC pattern.
  * View implement this so they can be notified whenever the model
- * changes state. This model calls ModelChanged() on all listeners
- * after any update.
+ * changes state. The model calls modelChanged() on the listeners
+ * subscribed to at least one of the events of an update.
  */
 public interface ModelListener {
     void modelChanged(EquationModel m);
+
+    /**
+     * Called with the events of the update, listeners that need to know
+     * what changed override this one. By default forwards to modelChanged(m).
+     * @param m model
+     * @param events what changed, never empty
+     */
+    default void modelChanged(EquationModel m, Set<ModelEvent> events) {
+        modelChanged(m);
+    }
 }
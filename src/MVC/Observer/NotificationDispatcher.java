@@ -0,0 +1,113 @@
+package MVC.Observer;
+
+import javax.swing.*;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * NotificationDispatcher coalesces model changes before they reach the
+ * views. Events posted in a burst are merged, and a single invokeLater
+ * delivers them on the Swing event thread, so N changes made while the
+ * event thread is busy cause one view refresh instead of N. Events a
+ * thread posts inside batch() are held until its outermost batch ends,
+ * other threads keep delivering their changes meanwhile.
+ */
+public class NotificationDispatcher {
+    // receives the merged events on the event thread
+    private final Consumer<Set<ModelEvent>> delivery;
+
+    // events posted since the last delivery
+    private final EnumSet<ModelEvent> pending = EnumSet.noneOf(ModelEvent.class);
+
+    // true while a delivery is queued on the event thread
+    private boolean scheduled = false;
+
+    // batch() state of the calling thread, null outside a batch
+    private final ThreadLocal<Batch> batches = new ThreadLocal<>();
+
+    /**
+     * Constructor for NotificationDispatcher
+     * @param delivery called with the merged events of a burst
+     */
+    public NotificationDispatcher(Consumer<Set<ModelEvent>> delivery) {
+        this.delivery = delivery;
+    }
+
+    /**
+     * Adds events to the pending set and schedules a delivery unless one
+     * is already queued. Inside a batch of the calling thread the events
+     * are held until the batch ends.
+     * @param events events of one change
+     */
+    public void post(Set<ModelEvent> events) {
+        Batch b = batches.get();
+        if (b != null) {
+            b.held.addAll(events);
+        } else {
+            release(events);
+        }
+    }
+
+    /**
+     * Runs a block of model changes and delivers their events together
+     * once the block is done. Batches may be nested.
+     * @param changes block of model changes
+     */
+    public void batch(Runnable changes) {
+        Batch b = batches.get();
+        if (b == null) {
+            b = new Batch();
+            batches.set(b);
+        }
+        b.depth++;
+        try {
+            changes.run();
+        } finally {
+            if (--b.depth == 0) {
+                batches.remove();
+                release(b.held);
+            }
+        }
+    }
+
+    /**
+     * Delivers the pending events right away on the calling thread, for
+     * callers that need the views up to date before they continue
+     */
+    public void flush() {
+        Set<ModelEvent> events;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            events = Collections.unmodifiableSet(EnumSet.copyOf(pending));
+            pending.clear();
+        }
+        delivery.accept(events);
+    }
+
+    /**
+     * Adds events to the pending set and queues one delivery on the event
+     * thread unless one is already queued
+     * @param events events ready to deliver
+     */
+    private synchronized void release(Set<ModelEvent> events) {
+        pending.addAll(events);
+        if (!scheduled && !pending.isEmpty()) {
+            scheduled = true;
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    /**
+     * Nesting depth and held events of one thread's batch() calls, only
+     * touched by that thread
+     */
+    private static final class Batch {
+        int depth = 0;
+        final EnumSet<ModelEvent> held = EnumSet.noneOf(ModelEvent.class);
+    }
+}
@@ -1,44 +1,213 @@
 package MVC.View;
 
 import Algebra.Polynomial;
+import Graphing.CurveFeatures;
+import Graphing.CurveSampler;
+import Graphing.IntervalSampler;
+import Graphing.SampleBuffer;
+import Graphing.TileCache;
+import Graphing.Viewport;
 import MVC.Model.EquationModel;
-import org.knowm.xchart.XChartPanel;
-import org.knowm.xchart.XYChart;
-import org.knowm.xchart.XYChartBuilder;
+import Profiling.GraphEvent;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * GraphView is the actual display that plots the input
- * expression on a XYChart using the XChart library. Listens
- * to the EquationModel and renders when ever the model changes
+ * expression. Listens to the EquationModel and renders when
+ * ever the model changes. The plot is drawn by a PlotBackend,
+ * an XYChart from the XChart library by default, or the lighter
+ * Java2D renderer when started with -Dcalc.graph.backend=java2d.
+ * Every curve in the model is plotted as its own series on a shared
+ * x grid. Dragging the graph pans it and the mouse wheel zooms in and
+ * out, samples are taken from a tile cache so only newly exposed parts
+ * of the curves are evaluated. Roots, local extrema and inflection
+ * points of each curve are marked on the plot.
  */
 public class GraphView extends View {
+    // number of tiles kept in the cache
+    private static final int TILE_CACHE_SIZE = 512;
+
+    // zoom factor applied per mouse wheel notch
+    private static final double ZOOM_STEP = 1.25;
+
+    // names of the marker sets for curve features
+    private static final String ROOTS = "roots";
+    private static final String EXTREMA = "extrema";
+    private static final String INFLECTIONS = "inflections";
+
+    // suffix of the bound set drawn for a curve in interval mode
+    private static final String BOUNDS_SUFFIX = " bounds";
+
+    // system property that selects the plot backend
+    public static final String BACKEND_PROPERTY = "calc.graph.backend";
+
+    // system property that turns on interval mode
+    public static final String INTERVAL_PROPERTY = "calc.graph.interval";
+
     // root panel for chart
     private JPanel rootGraph;
     private EquationModel model;
 
-    // XChart objects
-    private final XYChart chart;
-    private final XChartPanel<XYChart> chartPanel;
+    // draws the sampled curves
+    private final PlotBackend backend;
+
+    // visible x-range and cached samples
+    private Viewport viewport = Viewport.DEFAULT;
+    private final TileCache tiles = new TileCache(TILE_CACHE_SIZE);
+    private final CurveSampler sampler = new CurveSampler(tiles);
+
+    // adaptive sampling used in interval mode
+    private final IntervalSampler intervals = new IntervalSampler();
+    private boolean intervalMode = Boolean.getBoolean(INTERVAL_PROPERTY);
+
+    // set when the mode changed and every series must be replaced
+    private boolean stale = false;
+
+    // viewport the axis and markers were last drawn for
+    private Viewport rendered;
+
+    // reusable arrays for graph()
+    private final SampleBuffer buffer = new SampleBuffer();
+
+    // solved features of each plotted polynomial
+    private final Map<Polynomial, CurveFeatures> features = new HashMap<>();
+
+    // last mouse x position while dragging
+    private int dragX;
 
     /**
-     *  Constructor for graph view, creates the XYChart and embeds
-     *  in rootGraph.
+     *  Constructor for graph view, creates the backend selected by
+     *  the calc.graph.backend property and embeds it in rootGraph.
       */
     public GraphView() {
-        this.chart = new XYChartBuilder()
-                .width(600).height(400)
-                .title("f(x)")
-                .xAxisTitle("x")
-                .yAxisTitle("f(x)")
-                .build();
-        this.chartPanel = new XChartPanel<>(chart);
-
-        // Places chart panel inside rootGraph
+        this(createBackend(System.getProperty(BACKEND_PROPERTY, "xchart")));
+    }
+
+    /**
+     * Constructor for graph view with a given backend
+     * @param backend backend that draws the curves
+     */
+    public GraphView(PlotBackend backend) {
+        this.backend = backend;
+
+        // Places plot component inside rootGraph
         rootGraph.setLayout(new BorderLayout());
-        rootGraph.add(chartPanel, BorderLayout.CENTER);
+        rootGraph.add(backend.getComponent(), BorderLayout.CENTER);
+
+        installPanZoom();
+    }
+
+    /**
+     * Creates a backend by name, "java2d" for the Java2D renderer and
+     * anything else for XChart
+     * @param name backend name
+     * @return plot backend
+     */
+    public static PlotBackend createBackend(String name) {
+        if ("java2d".equalsIgnoreCase(name)) {
+            return new Java2DBackend();
+        }
+        return new XChartBackend();
+    }
+
+    /**
+     * Adds mouse listeners to the plot component, dragging pans the
+     * viewport and the mouse wheel zooms around the pointer.
+     */
+    private void installPanZoom() {
+        JComponent plot = backend.getComponent();
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragX = e.getX();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                int width = plot.getWidth();
+                if (width <= 0) {
+                    return;
+                }
+
+                // moving the mouse right moves the curve right, so the viewport moves left
+                double dx = -(e.getX() - dragX) * viewport.width() / width;
+                dragX = e.getX();
+                setViewport(viewport.pan(dx));
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                double factor = Math.pow(ZOOM_STEP, e.getPreciseWheelRotation());
+                setViewport(viewport.zoom(factor, toDataX(e.getX())));
+            }
+        };
+
+        plot.addMouseListener(mouse);
+        plot.addMouseMotionListener(mouse);
+        plot.addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Converts a pixel column on the plot component to an x value. The plot
+     * area is assumed to fill the panel, which is close enough for panning.
+     * @param px pixel position
+     * @return x value under the pixel
+     */
+    private double toDataX(int px) {
+        int width = Math.max(1, backend.getComponent().getWidth());
+        return viewport.getXMin() + viewport.width() * px / width;
+    }
+
+    /**
+     * Moves the graph to a new visible range and re-renders
+     * @param v new viewport
+     */
+    public void setViewport(Viewport v) {
+        this.viewport = v;
+        if (model != null) {
+            render();
+        }
+    }
+
+    /**
+     * Getter for the visible range
+     * @return viewport
+     */
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * Switches between fixed step sampling and interval sampling
+     * @param on true for interval mode
+     */
+    public void setIntervalMode(boolean on) {
+        if (intervalMode != on) {
+            intervalMode = on;
+            stale = true;
+            if (model != null) {
+                render();
+            }
+        }
+    }
+
+    /**
+     * Returns whether curves are sampled with interval arithmetic
+     * @return true in interval mode
+     */
+    public boolean isIntervalMode() {
+        return intervalMode;
     }
 
     /**
@@ -53,50 +222,170 @@ public class GraphView extends View {
     }
 
     /**
-     * Renders the graph using the current Polynomial stored in the model,
+     * Renders every curve stored in the model over the current viewport.
+     * Curves whose polynomial didn't change are not re-sampled. If no
+     * curve changed but the viewport moved, for a pan that reuses the
+     * sampled grid, only the axis and the markers are updated, and the
+     * chart is left alone if nothing changed at all.
      */
     public void render() {
-        Polynomial p = model.getGraph();
+        GraphEvent event = new GraphEvent();
+        event.begin();
+        Map<String, Polynomial> graphs = model.getGraphs();
+
+        boolean changed = intervalMode
+                ? intervals.update(graphs, viewport)
+                : sampler.update(graphs, viewport);
+        if (!changed && !stale) {
+            if (rendered == null || rendered.getXMin() != viewport.getXMin()
+                    || rendered.getXMax() != viewport.getXMax()) {
+                // markers are filtered against the viewport
+                markFeatures(graphs.values());
+                refresh();
+            }
+            event.finish("render", graphs.size(), maxDegree(graphs.values()), 0, intervalMode);
+            return;
+        }
+
+        // removes series of curves that are no longer in the model
+        List<String> keep = new ArrayList<>(graphs.keySet());
+        keep.addAll(List.of(ROOTS, EXTREMA, INFLECTIONS));
+        if (intervalMode) {
+            for (String name : graphs.keySet()) {
+                keep.add(name + BOUNDS_SUFFIX);
+            }
+        }
+        backend.retainSeries(keep);
+
+        int samples = 0;
+        if (intervalMode) {
+            for (String name : graphs.keySet()) {
+                IntervalSampler.Result r = intervals.get(name);
+                samples = Math.max(samples, r.size());
+                plotInterval(name, r);
+            }
+        } else {
+            double[] xData = sampler.getX();
+            samples = xData.length;
+            for (String name : sampler.getNames()) {
+                backend.setSeries(name, xData, sampler.getY(name));
+            }
+        }
+
+        stale = false;
+        markFeatures(graphs.values());
+        refresh();
+        event.finish("render", graphs.size(), maxDegree(graphs.values()), samples, intervalMode);
+    }
+
+    /**
+     * Returns the highest degree among the curves, for the JFR events
+     * @param polys plotted polynomials
+     * @return highest degree, -1 if there are no curves
+     */
+    private static int maxDegree(Collection<Polynomial> polys) {
+        int max = -1;
+        for (Polynomial p : polys) {
+            max = Math.max(max, p.degree());
+        }
+        return max;
+    }
+
+    /**
+     * Plots the adaptive samples of a curve and its guaranteed bounds.
+     * Infinite bounds from overflow are cut to the sampled y range so
+     * the chart's autoscaling still works.
+     * @param name curve name
+     * @param r adaptive samples
+     */
+    private void plotInterval(String name, IntervalSampler.Result r) {
+        double[] xData = r.x();
+        double[] yData = r.y();
+        backend.setSeries(name, xData, yData);
+
+        double yMin = Double.POSITIVE_INFINITY;
+        double yMax = Double.NEGATIVE_INFINITY;
+        for (double y : yData) {
+            if (Double.isFinite(y)) {
+                yMin = Math.min(yMin, y);
+                yMax = Math.max(yMax, y);
+            }
+        }
 
-        if (p == null) {
+        // nothing finite to cut the bounds to
+        if (yMin > yMax) {
+            double[] none = new double[0];
+            backend.setBounds(name + BOUNDS_SUFFIX, none, none, none, none);
             return;
         }
 
-        graph(p, -10, 10, 400);
+        double[] lo = r.boundLo();
+        double[] hi = r.boundHi();
+        for (int i = 0; i < lo.length; i++) {
+            if (lo[i] == Double.NEGATIVE_INFINITY) lo[i] = Math.min(yMin, hi[i]);
+            if (hi[i] == Double.POSITIVE_INFINITY) hi[i] = Math.max(yMax, lo[i]);
+        }
+        backend.setBounds(name + BOUNDS_SUFFIX, r.boundX0(), r.boundX1(), lo, hi);
+    }
+
+    /**
+     * Marks the roots, extrema and inflection points of the curves that
+     * fall inside the viewport. Features are solved once per polynomial.
+     * @param polys plotted polynomials
+     */
+    private void markFeatures(Collection<Polynomial> polys) {
+        features.keySet().retainAll(new ArrayList<>(polys));
+
+        Points roots = new Points();
+        Points extrema = new Points();
+        Points inflections = new Points();
+        for (Polynomial p : polys) {
+            CurveFeatures f = features.computeIfAbsent(p, CurveFeatures::of);
+            roots.addAll(p, f.roots, true);
+            extrema.addAll(p, f.extrema, false);
+            inflections.addAll(p, f.inflections, false);
+        }
+
+        backend.setMarkers(ROOTS, roots.x(), roots.y(), PlotBackend.Marker.CIRCLE);
+        backend.setMarkers(EXTREMA, extrema.x(), extrema.y(), PlotBackend.Marker.SQUARE);
+        backend.setMarkers(INFLECTIONS, inflections.x(), inflections.y(), PlotBackend.Marker.DIAMOND);
     }
 
     /**
      * Samples the polynomial p over the intervals xMin and xMax. Updates
-     * XChart with the computed points.
+     * the plot with the computed points. The x grid and arrays are reused
+     * while the bounds and sample count stay the same.
      * @param p Polynomial to plot
      * @param xMin left boundary of x-axis
      * @param xMax right boundary of y-axis
      * @param samples the number of x values to sample
      */
     public void graph(Polynomial p, double xMin, double xMax, int samples) {
-        double[] xData = new double[samples];
-        double[] yData = new double[samples];
+        GraphEvent event = new GraphEvent();
+        event.begin();
+        double[] xData = buffer.grid(xMin, xMax, samples);
+        double[] yData = buffer.y(samples);
 
-        // distance between x sample points
-        double step = (xMax - xMin) / (samples - 1);
-
-        // loops over samples, and computes x and fx
+        // loops over samples, and computes fx
         for (int i = 0; i < samples; i++) {
-            double x = xMin + i * step;
-            xData[i] = x;
-            yData[i] = p.evaluate(x);
+            yData[i] = p.evaluate(xData[i]);
         }
 
-        // updates chart or creates it
-        if (chart.getSeriesMap().containsKey("f(x)")) {
-            chart.updateXYSeries("f(x)", xData, yData,null);
-        } else {
-            chart.addSeries("f(x)", xData, yData);
+        if (viewport.getXMin() != xMin || viewport.getXMax() != xMax) {
+            viewport = new Viewport(xMin, xMax);
         }
+        backend.setSeries(EquationModel.MAIN_GRAPH, xData, yData);
+        refresh();
+        event.finish("graph", 1, p.degree(), samples, false);
+    }
 
-        // paints swing component
-        chartPanel.revalidate();
-        chartPanel.repaint();
+    /**
+     * Pins the x-axis to the viewport and repaints the plot
+     */
+    private void refresh() {
+        rendered = viewport;
+        backend.setXRange(viewport.getXMin(), viewport.getXMax());
+        backend.refresh();
     }
 
     /**
@@ -106,4 +395,42 @@ public class GraphView extends View {
     public JPanel getRootGraph() {
         return rootGraph;
     }
+
+    /**
+     * Collects marker points that lie inside the viewport
+     */
+    private final class Points {
+        private double[] xs = new double[8];
+        private double[] ys = new double[8];
+        private int n = 0;
+
+        /**
+         * Adds the points of one curve at the given x values
+         * @param p curve the points lie on
+         * @param at x values
+         * @param onAxis true if the points are roots, y is exactly 0
+         */
+        private void addAll(Polynomial p, double[] at, boolean onAxis) {
+            for (double x : at) {
+                if (x < viewport.getXMin() || x > viewport.getXMax()) {
+                    continue;
+                }
+                if (n == xs.length) {
+                    xs = Arrays.copyOf(xs, 2 * n);
+                    ys = Arrays.copyOf(ys, 2 * n);
+                }
+                xs[n] = x;
+                ys[n] = onAxis ? 0.0 : p.evaluate(x);
+                n++;
+            }
+        }
+
+        private double[] x() {
+            return Arrays.copyOf(xs, n);
+        }
+
+        private double[] y() {
+            return Arrays.copyOf(ys, n);
+        }
+    }
 }
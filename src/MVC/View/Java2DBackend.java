@@ -0,0 +1,524 @@
+package MVC.View;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Java2DBackend is a lightweight alternative to XChart. It draws each
+ * curve as a Path2D straight into a cached image, and caches the axes and
+ * gridlines in a second image. A repaint with no new data only copies the
+ * two images, and new data only redraws the curve layer, the grid layer is
+ * rebuilt when the size or the visible ranges change.
+ * Select it at startup with -Dcalc.graph.backend=java2d
+ */
+public class Java2DBackend extends JPanel implements PlotBackend {
+    private static final long serialVersionUID = 1L;
+
+    // space around the plot area for the tick labels
+    private static final int MARGIN_LEFT = 56;
+    private static final int MARGIN_RIGHT = 12;
+    private static final int MARGIN_TOP = 12;
+    private static final int MARGIN_BOTTOM = 28;
+
+    // number of gridlines the tick spacing aims for on each axis
+    private static final int TARGET_TICKS = 8;
+
+    // most gridlines drawn on one axis
+    private static final int MAX_TICKS = 4 * TARGET_TICKS;
+
+    // above this many curves antialiasing is turned off, it costs about
+    // 5x the drawing time and dense scenes must keep up with 60 redraws per second
+    private static final int ANTIALIAS_LIMIT = 8;
+
+    // curve colors, reused in order
+    private static final Color[] PALETTE = {
+            new Color(0x1f77b4), new Color(0xd62728), new Color(0x2ca02c),
+            new Color(0xff7f0e), new Color(0x9467bd), new Color(0x8c564b),
+            new Color(0xe377c2), new Color(0x17becf)
+    };
+
+    private static final Color GRID_COLOR = new Color(0xe6e6e6);
+    private static final Color AXIS_COLOR = new Color(0x606060);
+    private static final Color MARKER_COLOR = new Color(0x202020);
+    private static final Color BOUND_COLOR = new Color(0x40, 0x40, 0x40, 0x40);
+
+    // half the size of a marker in pixels
+    private static final int MARKER_RADIUS = 4;
+    private static final Stroke SMOOTH_STROKE =
+            new BasicStroke(1.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final Stroke FAST_STROKE = new BasicStroke(1.0f);
+
+    // series in plotting order
+    private final Map<String, Series> series = new LinkedHashMap<>();
+
+    // marked points, drawn on top of the curves
+    private final Map<String, Markers> markers = new LinkedHashMap<>();
+
+    // bounding boxes, drawn below the curves
+    private final Map<String, Bounds> bounds = new LinkedHashMap<>();
+
+    // visible ranges, y is fitted to the data on refresh
+    private double xMin = -10, xMax = 10;
+    private double yMin = -1, yMax = 1;
+
+    // cached layers and the state they were drawn for
+    private BufferedImage gridLayer;
+    private BufferedImage curveLayer;
+    private double gridXMin, gridXMax, gridYMin, gridYMax;
+    private boolean curvesDirty = true;
+
+    /**
+     * Constructor for Java2DBackend
+     */
+    public Java2DBackend() {
+        setPreferredSize(new Dimension(600, 400));
+        setBackground(Color.WHITE);
+        setOpaque(true);
+    }
+
+    @Override
+    public JComponent getComponent() {
+        return this;
+    }
+
+    @Override
+    public void setSeries(String name, double[] xData, double[] yData) {
+        Series s = series.get(name);
+        if (s == null) {
+            s = new Series(PALETTE[series.size() % PALETTE.length]);
+            series.put(name, s);
+        }
+        s.xData = xData;
+        s.yData = yData;
+        curvesDirty = true;
+    }
+
+    @Override
+    public void setMarkers(String name, double[] xData, double[] yData, Marker marker) {
+        if (xData.length == 0) {
+            markers.remove(name);
+        } else {
+            markers.put(name, new Markers(xData, yData, marker));
+        }
+        curvesDirty = true;
+    }
+
+    @Override
+    public void setBounds(String name, double[] x0, double[] x1, double[] lo, double[] hi) {
+        if (x0.length == 0) {
+            bounds.remove(name);
+        } else {
+            bounds.put(name, new Bounds(x0, x1, lo, hi));
+        }
+        curvesDirty = true;
+    }
+
+    @Override
+    public void retainSeries(Collection<String> names) {
+        boolean removed = series.keySet().retainAll(names);
+        removed |= markers.keySet().retainAll(names);
+        removed |= bounds.keySet().retainAll(names);
+        if (removed) {
+            curvesDirty = true;
+        }
+    }
+
+    @Override
+    public void setXRange(double xMin, double xMax) {
+        if (this.xMin != xMin || this.xMax != xMax) {
+            this.xMin = xMin;
+            this.xMax = xMax;
+            curvesDirty = true;
+        }
+    }
+
+    @Override
+    public void refresh() {
+        curvesDirty = true;
+        fitYRange();
+        repaint();
+    }
+
+    /**
+     * Fits the y range to the finite values of every series inside the
+     * x range, with a little padding so curves don't touch the border.
+     */
+    private void fitYRange() {
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        for (Series s : series.values()) {
+            for (int i = 0; i < s.xData.length; i++) {
+                double x = s.xData[i];
+                double y = s.yData[i];
+                if (x < xMin || x > xMax || !Double.isFinite(y)) {
+                    continue;
+                }
+                if (y < lo) lo = y;
+                if (y > hi) hi = y;
+            }
+        }
+
+        if (lo > hi) {
+            lo = -1;
+            hi = 1;
+        } else if (hi - lo <= 1e-12 * Math.max(1, Math.max(Math.abs(lo), Math.abs(hi)))) {
+            // a flat range, center it like XChart does, widened with the
+            // magnitude since +-1 is lost in the rounding of large values
+            double mid = lo / 2 + hi / 2;
+            double half = Math.max(1, Math.abs(mid) * 0.05);
+            lo = mid - half;
+            hi = mid + half;
+        }
+
+        double pad = (hi - lo) * 0.05;
+        yMin = lo - pad;
+        yMax = hi + pad;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= MARGIN_LEFT + MARGIN_RIGHT || h <= MARGIN_TOP + MARGIN_BOTTOM) {
+            return;
+        }
+
+        if (gridLayer == null || gridLayer.getWidth() != w || gridLayer.getHeight() != h
+                || gridXMin != xMin || gridXMax != xMax || gridYMin != yMin || gridYMax != yMax) {
+            gridLayer = createLayer(gridLayer, w, h, Transparency.OPAQUE);
+            drawGrid(gridLayer);
+            gridXMin = xMin;
+            gridXMax = xMax;
+            gridYMin = yMin;
+            gridYMax = yMax;
+            curvesDirty = true;
+        }
+
+        if (curvesDirty || curveLayer == null
+                || curveLayer.getWidth() != w || curveLayer.getHeight() != h) {
+            curveLayer = createLayer(curveLayer, w, h, Transparency.TRANSLUCENT);
+            drawCurves(curveLayer);
+            curvesDirty = false;
+        }
+
+        g.drawImage(gridLayer, 0, 0, null);
+        g.drawImage(curveLayer, 0, 0, null);
+    }
+
+    /**
+     * Returns an image of the given size, reusing the old one if it fits
+     * @param old previous image, may be null
+     * @param w width
+     * @param h height
+     * @param transparency Transparency constant
+     * @return image compatible with the screen
+     */
+    private BufferedImage createLayer(BufferedImage old, int w, int h, int transparency) {
+        if (old != null && old.getWidth() == w && old.getHeight() == h) {
+            return old;
+        }
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != null) {
+            return gc.createCompatibleImage(w, h, transparency);
+        }
+        int type = transparency == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB
+                : BufferedImage.TYPE_INT_ARGB;
+        return new BufferedImage(w, h, type);
+    }
+
+    /**
+     * Draws the background, gridlines, axes and tick labels
+     * @param img grid layer
+     */
+    private void drawGrid(BufferedImage img) {
+        Graphics2D g = img.createGraphics();
+        try {
+            int w = img.getWidth();
+            int h = img.getHeight();
+            g.setColor(getBackground());
+            g.fillRect(0, 0, w, h);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            FontMetrics fm = g.getFontMetrics();
+
+            // vertical gridlines and x labels
+            double xStep = tickStep(xMax - xMin);
+            for (double x : ticks(xMin, xMax, xStep)) {
+                int px = (int) Math.round(toPixelX(x, w));
+                g.setColor(GRID_COLOR);
+                g.drawLine(px, MARGIN_TOP, px, h - MARGIN_BOTTOM);
+                String label = tickLabel(x, xStep);
+                g.setColor(AXIS_COLOR);
+                g.drawString(label, px - fm.stringWidth(label) / 2, h - MARGIN_BOTTOM + fm.getAscent() + 4);
+            }
+
+            // horizontal gridlines and y labels
+            double yStep = tickStep(yMax - yMin);
+            for (double y : ticks(yMin, yMax, yStep)) {
+                int py = (int) Math.round(toPixelY(y, h));
+                g.setColor(GRID_COLOR);
+                g.drawLine(MARGIN_LEFT, py, w - MARGIN_RIGHT, py);
+                String label = tickLabel(y, yStep);
+                g.setColor(AXIS_COLOR);
+                g.drawString(label, MARGIN_LEFT - fm.stringWidth(label) - 4, py + fm.getAscent() / 2);
+            }
+
+            // x and y axes if they are visible
+            g.setColor(AXIS_COLOR);
+            if (xMin <= 0 && 0 <= xMax) {
+                int px = (int) Math.round(toPixelX(0, w));
+                g.drawLine(px, MARGIN_TOP, px, h - MARGIN_BOTTOM);
+            }
+            if (yMin <= 0 && 0 <= yMax) {
+                int py = (int) Math.round(toPixelY(0, h));
+                g.drawLine(MARGIN_LEFT, py, w - MARGIN_RIGHT, py);
+            }
+            g.drawRect(MARGIN_LEFT, MARGIN_TOP, w - MARGIN_LEFT - MARGIN_RIGHT, h - MARGIN_TOP - MARGIN_BOTTOM);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Clears the curve layer and draws every series as one path
+     * @param img curve layer
+     */
+    private void drawCurves(BufferedImage img) {
+        Graphics2D g = img.createGraphics();
+        try {
+            int w = img.getWidth();
+            int h = img.getHeight();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, w, h);
+            g.setComposite(AlphaComposite.SrcOver);
+            boolean smooth = series.size() <= ANTIALIAS_LIMIT;
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, smooth
+                    ? RenderingHints.VALUE_ANTIALIAS_ON
+                    : RenderingHints.VALUE_ANTIALIAS_OFF);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.clipRect(MARGIN_LEFT, MARGIN_TOP, w - MARGIN_LEFT - MARGIN_RIGHT, h - MARGIN_TOP - MARGIN_BOTTOM);
+            g.setStroke(smooth ? SMOOTH_STROKE : FAST_STROKE);
+
+            g.setColor(BOUND_COLOR);
+            for (Bounds b : bounds.values()) {
+                for (int i = 0; i < b.x0.length; i++) {
+                    double px0 = toPixelX(b.x0[i], w);
+                    double px1 = toPixelX(b.x1[i], w);
+                    double top = Math.max(-h, toPixelY(b.hi[i], h));
+                    double bottom = Math.min(2.0 * h, toPixelY(b.lo[i], h));
+                    g.fill(new Rectangle2D.Double(px0, top, Math.max(1, px1 - px0), bottom - top));
+                }
+            }
+
+            for (Series s : series.values()) {
+                g.setColor(s.color);
+                g.draw(toPath(s, w, h));
+            }
+
+            g.setStroke(FAST_STROKE);
+            for (Markers m : markers.values()) {
+                for (int i = 0; i < m.xData.length; i++) {
+                    int px = (int) Math.round(toPixelX(m.xData[i], w));
+                    int py = (int) Math.round(toPixelY(m.yData[i], h));
+                    drawMarker(g, m.marker, px, py);
+                }
+            }
+
+            // legend in the top left corner of the plot area
+            FontMetrics fm = g.getFontMetrics();
+            int ly = MARGIN_TOP + fm.getAscent() + 4;
+            for (Map.Entry<String, Series> e : series.entrySet()) {
+                g.setColor(e.getValue().color);
+                g.fillRect(MARGIN_LEFT + 6, ly - fm.getAscent() / 2 - 1, 12, 3);
+                g.setColor(AXIS_COLOR);
+                g.drawString(e.getKey(), MARGIN_LEFT + 22, ly);
+                ly += fm.getHeight();
+            }
+            for (Map.Entry<String, Markers> e : markers.entrySet()) {
+                drawMarker(g, e.getValue().marker, MARGIN_LEFT + 12, ly - fm.getAscent() / 2);
+                g.setColor(AXIS_COLOR);
+                g.drawString(e.getKey(), MARGIN_LEFT + 22, ly);
+                ly += fm.getHeight();
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Draws one marker centered on a pixel
+     * @param g graphics of the curve layer
+     * @param marker marker shape
+     * @param px pixel column
+     * @param py pixel row
+     */
+    private static void drawMarker(Graphics2D g, Marker marker, int px, int py) {
+        int r = MARKER_RADIUS;
+        g.setColor(MARKER_COLOR);
+        switch (marker) {
+            case CIRCLE  -> g.fillOval(px - r, py - r, 2 * r, 2 * r);
+            case SQUARE  -> g.fillRect(px - r, py - r, 2 * r, 2 * r);
+            case DIAMOND -> g.fillPolygon(
+                    new int[] { px, px + r, px, px - r },
+                    new int[] { py - r, py, py + r, py }, 4);
+        }
+    }
+
+    /**
+     * Builds the pixel path of a series. Points that are not finite break
+     * the line, and points far off screen are clamped so the path stays in
+     * a range Java2D rasterizes correctly.
+     * @param s series to convert
+     * @param w image width
+     * @param h image height
+     * @return path in pixel coordinates
+     */
+    private Path2D toPath(Series s, int w, int h) {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, s.xData.length);
+        boolean penDown = false;
+        for (int i = 0; i < s.xData.length; i++) {
+            double y = s.yData[i];
+            if (!Double.isFinite(y)) {
+                penDown = false;
+                continue;
+            }
+            double px = toPixelX(s.xData[i], w);
+            double py = Math.max(-h, Math.min(2.0 * h, toPixelY(y, h)));
+            if (penDown) {
+                path.lineTo(px, py);
+            } else {
+                path.moveTo(px, py);
+                penDown = true;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Maps an x value to a pixel column
+     * @param x x value
+     * @param w image width
+     * @return pixel column
+     */
+    private double toPixelX(double x, int w) {
+        return MARGIN_LEFT + (x - xMin) / (xMax - xMin) * (w - MARGIN_LEFT - MARGIN_RIGHT);
+    }
+
+    /**
+     * Maps a y value to a pixel row, y grows upwards
+     * @param y y value
+     * @param h image height
+     * @return pixel row
+     */
+    private double toPixelY(double y, int h) {
+        return h - MARGIN_BOTTOM - (y - yMin) / (yMax - yMin) * (h - MARGIN_TOP - MARGIN_BOTTOM);
+    }
+
+    /**
+     * Picks a tick spacing of 1, 2 or 5 times a power of ten so that
+     * about TARGET_TICKS gridlines fit in the range
+     * @param range width of the axis
+     * @return tick spacing
+     */
+    private static double tickStep(double range) {
+        double raw = range / TARGET_TICKS;
+        double mag = Math.pow(10, Math.floor(Math.log10(raw)));
+        double norm = raw / mag;
+        if (norm < 1.5) return mag;
+        if (norm < 3.5) return 2 * mag;
+        if (norm < 7.5) return 5 * mag;
+        return 10 * mag;
+    }
+
+    /**
+     * Multiples of the step inside a range, computed from an integer index
+     * so a step below the ulp of the values cannot stall the loop
+     * @param min start of the range
+     * @param max end of the range
+     * @param step tick spacing
+     * @return tick values, at most MAX_TICKS + 1
+     */
+    private static double[] ticks(double min, double max, double step) {
+        double first = Math.ceil(min / step);
+        double count = Math.floor(max / step) - first + 1;
+        if (!(count > 0)) {
+            return new double[0];
+        }
+        double[] ticks = new double[(int) Math.min(count, MAX_TICKS + 1)];
+        for (int i = 0; i < ticks.length; i++) {
+            ticks[i] = (first + i) * step;
+        }
+        return ticks;
+    }
+
+    /**
+     * Formats a tick value with as many decimals as the step needs
+     * @param v tick value
+     * @param step tick spacing
+     * @return label text
+     */
+    private static String tickLabel(double v, double step) {
+        if (Math.abs(v) < step * 1e-9) {
+            v = 0;
+        }
+        int decimals = Math.max(0, (int) -Math.floor(Math.log10(step)));
+        if (Math.abs(v) >= 1e6 || (v != 0 && Math.abs(v) < 1e-4)) {
+            return String.format("%.2e", v);
+        }
+        return String.format("%." + decimals + "f", v);
+    }
+
+    /**
+     * Spans and y ranges of one bound set
+     */
+    private static final class Bounds {
+        private final double[] x0;
+        private final double[] x1;
+        private final double[] lo;
+        private final double[] hi;
+
+        private Bounds(double[] x0, double[] x1, double[] lo, double[] hi) {
+            this.x0 = x0;
+            this.x1 = x1;
+            this.lo = lo;
+            this.hi = hi;
+        }
+    }
+
+    /**
+     * Points and shape of one marker set
+     */
+    private static final class Markers {
+        private final double[] xData;
+        private final double[] yData;
+        private final Marker marker;
+
+        private Markers(double[] xData, double[] yData, Marker marker) {
+            this.xData = xData;
+            this.yData = yData;
+            this.marker = marker;
+        }
+    }
+
+    /**
+     * Points and color of one curve
+     */
+    private static final class Series {
+        private final Color color;
+        private double[] xData = new double[0];
+        private double[] yData = new double[0];
+
+        private Series(Color color) {
+            this.color = color;
+        }
+    }
+}
@@ -147,6 +147,8 @@ public class KeypadView extends View {
         sqrtButton.setVisible(true);
         plusNegButton.setVisible(true);
 
+        // restores buttons that GRAPHING mode reuses
+        restoreSharedButtons();
 
         // equal buttons solves
         equalButton.setText("=");
@@ -154,14 +156,21 @@ public class KeypadView extends View {
     }
 
     /**
-     * Sets the keypad for GRAPHING mode, makes x visible
-     * and symbolic "=" not visible.
+     * Sets the keypad for GRAPHING mode, makes x visible. The
+     * symbolic "=" and sqrt buttons are reused to add another
+     * curve and to clear all curves.
      */
     public void setGraphMode() {
         xVariable.setVisible(true);
-        equalSign.setVisible(false);
 
-        sqrtButton.setVisible(false);
+        equalSign.setVisible(true);
+        equalSign.setText("+ PLOT");
+        equalSign.setActionCommand("GRAPH_ADD");
+
+        sqrtButton.setVisible(true);
+        sqrtButton.setText("CLR PLOT");
+        sqrtButton.setActionCommand("GRAPH_CLR");
+
         LeftParen.setVisible(true);
         RightParen.setVisible(true);
         addButton.setVisible(true);
@@ -176,6 +185,8 @@ public class KeypadView extends View {
     }
 
     public void setUnitMode() {
+        restoreSharedButtons();
+
         xVariable.setVisible(false);
         equalSign.setVisible(false);
 
@@ -196,6 +207,8 @@ public class KeypadView extends View {
      * so users can input quadratics
      */
     public void setEquationMode() {
+        restoreSharedButtons();
+
         xVariable.setVisible(true);
         equalSign.setVisible(true);
 
@@ -213,6 +226,17 @@ public class KeypadView extends View {
         equalButton.setActionCommand("SOLVE_EQ");
     }
 
+    /**
+     * Restores the symbolic "=" and sqrt buttons after GRAPHING
+     * mode changed their text and tokens
+     */
+    private void restoreSharedButtons() {
+        equalSign.setText("=");
+        equalSign.setActionCommand("=");
+        sqrtButton.setText("sqrt");
+        sqrtButton.setActionCommand("√");
+    }
+
     /**
      * Model notifies KeypadView of changes
      */
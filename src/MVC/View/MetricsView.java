@@ -0,0 +1,99 @@
+package MVC.View;
+
+import Profiling.MetricsRegistry;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+
+/**
+ * MetricsView is a small debug window showing the latency histograms of
+ * the metrics registry (count, mean, p50, p90, p99, p99.9, max). It
+ * refreshes once a second while it is open and can reset the counts.
+ * Opened from the main window with Ctrl+Shift+M.
+ */
+public class MetricsView {
+    // refresh period of the table while visible
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final MetricsRegistry registry;
+    private final JDialog dialog;
+    private final JTextArea text = new JTextArea(12, 100);
+    private final Timer timer;
+
+    /**
+     * Constructor for MetricsView
+     * @param owner window the dialog belongs to
+     * @param registry metrics to show
+     */
+    public MetricsView(JFrame owner, MetricsRegistry registry) {
+        this.registry = registry;
+
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JButton reset = new JButton("Reset");
+        reset.addActionListener(e -> {
+            registry.reset();
+            refresh();
+        });
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(reset);
+
+        dialog = new JDialog(owner, "Latency", false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(text), BorderLayout.CENTER);
+        dialog.add(buttons, BorderLayout.SOUTH);
+        dialog.pack();
+
+        // only refreshes while the window is open
+        timer = new Timer(REFRESH_MILLIS, e -> refresh());
+        dialog.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentShown(ComponentEvent e) {
+                refresh();
+                timer.start();
+            }
+
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                timer.stop();
+            }
+        });
+    }
+
+    /**
+     * Opens the window with Ctrl+Shift+M pressed anywhere in the frame
+     * @param frame main window
+     */
+    public void bindShortcut(JFrame frame) {
+        JRootPane root = frame.getRootPane();
+        KeyStroke key = KeyStroke.getKeyStroke(KeyEvent.VK_M, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK);
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(key, "showMetrics");
+        root.getActionMap().put("showMetrics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                show();
+            }
+        });
+    }
+
+    /**
+     * Shows the window
+     */
+    public void show() {
+        dialog.setLocationRelativeTo(dialog.getOwner());
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Reloads the table from the registry
+     */
+    private void refresh() {
+        text.setText(registry.report());
+    }
+}
@@ -0,0 +1,76 @@
+package MVC.View;
+
+import javax.swing.*;
+import java.util.Collection;
+
+/**
+ * PlotBackend is the drawing surface used by GraphView. GraphView samples
+ * the curves and hands the points to the backend, the backend only draws
+ * them. This lets the XChart based chart be swapped for a lighter renderer
+ * without changing how curves are sampled.
+ */
+public interface PlotBackend {
+    /**
+     * Shapes used to mark single points on the plot
+     */
+    enum Marker {
+        CIRCLE,
+        SQUARE,
+        DIAMOND
+    }
+
+    /**
+     * Returns the swing component that shows the plot
+     * @return plot component
+     */
+    JComponent getComponent();
+
+    /**
+     * Adds a series or replaces the points of an existing one. The arrays
+     * may be reused by the caller, so they are read again on every refresh.
+     * @param name series name
+     * @param xData x values
+     * @param yData y values, same length as xData
+     */
+    void setSeries(String name, double[] xData, double[] yData);
+
+    /**
+     * Adds or replaces a set of marked points drawn without lines. An
+     * empty set removes the markers.
+     * @param name marker set name
+     * @param xData x values
+     * @param yData y values, same length as xData
+     * @param marker shape of the markers
+     */
+    void setMarkers(String name, double[] xData, double[] yData, Marker marker);
+
+    /**
+     * Adds or replaces a set of bounding boxes, each box is a span
+     * [x0, x1] and the range [lo, hi] the curve is known to stay in
+     * over it. An empty set removes the boxes.
+     * @param name bound set name
+     * @param x0 left ends of the spans
+     * @param x1 right ends of the spans
+     * @param lo lower bounds
+     * @param hi upper bounds
+     */
+    void setBounds(String name, double[] x0, double[] x1, double[] lo, double[] hi);
+
+    /**
+     * Removes every series, marker set and bound set whose name is not in names
+     * @param names series to keep
+     */
+    void retainSeries(Collection<String> names);
+
+    /**
+     * Pins the x-axis to the visible range
+     * @param xMin left boundary of x-axis
+     * @param xMax right boundary of x-axis
+     */
+    void setXRange(double xMin, double xMax);
+
+    /**
+     * Redraws the plot after series or ranges changed
+     */
+    void refresh();
+}
@@ -21,6 +21,9 @@ public class UnitView extends View implements ModelListener {
 
     private UnitModel.TypeState lastMode = null;
 
+    // true while the view itself changes the combos
+    private boolean updatingCombos = false;
+
     public void connect(EquationModel model, CalculatorController controller) {
         unitChangeButton.setActionCommand("SWAP_UNIT");
         unitChangeButton.addActionListener(
@@ -35,32 +38,21 @@ public class UnitView extends View implements ModelListener {
 
         imperialCombo.addActionListener(e -> {
             String unit = (String) imperialCombo.getSelectedItem();
-            if (unit != null) {
-                model.getUnitModel().setImperialUnit(unit);
+            if (unit != null && !updatingCombos) {
+                model.setImperialUnit(unit);
             }
         });
 
         metricCombo.addActionListener(e -> {
             String unit = (String) metricCombo.getSelectedItem();
-            if (unit != null) {
-                model.getUnitModel().setMetricUnit(unit);
+            if (unit != null && !updatingCombos) {
+                model.setMetricUnit(unit);
             }
         });
     }
 
     public UnitView() {
-        imperialCombo.removeAllItems();
-        metricCombo.removeAllItems();
-        imperialCombo.addItem("IN");
-        imperialCombo.addItem("FT");
-        imperialCombo.addItem("YD");
-        imperialCombo.addItem("MI");
-
-        metricCombo.addItem("MM");
-        metricCombo.addItem("CM");
-        metricCombo.addItem("M");
-        metricCombo.addItem("KM");
-
+        fillCombos(UnitModel.TypeState.LENGTH);
         unitChangeButton.setText("IMPERIAL");
     }
 
@@ -68,30 +60,26 @@ public class UnitView extends View implements ModelListener {
         return rootUnit;
     }
 
-    public void modCombosForLength() {
-        imperialCombo.removeAllItems();
-        metricCombo.removeAllItems();
-
-        imperialCombo.addItem("IN");
-        imperialCombo.addItem("FT");
-        imperialCombo.addItem("YD");
-        imperialCombo.addItem("MI");
-
-        metricCombo.addItem("MM");
-        metricCombo.addItem("CM");
-        metricCombo.addItem("M");
-        metricCombo.addItem("KM");
-
-        unitChangeButton.setText("IMPERIAL");
-    }
-
-    public void modCombosForTemperature() {
-        imperialCombo.removeAllItems();
-        metricCombo.removeAllItems();
-
-        imperialCombo.addItem("F°");
-
-        metricCombo.addItem("C°");
+    /**
+     * Fills the unit combos with the choices of a type. The combo
+     * listeners ignore the selection changes this causes.
+     * @param type kind of quantity
+     */
+    public void fillCombos(UnitModel.TypeState type) {
+        updatingCombos = true;
+        try {
+            imperialCombo.removeAllItems();
+            metricCombo.removeAllItems();
+
+            for (String unit : type.getImperialUnits()) {
+                imperialCombo.addItem(unit);
+            }
+            for (String unit : type.getMetricUnits()) {
+                metricCombo.addItem(unit);
+            }
+        } finally {
+            updatingCombos = false;
+        }
 
         unitChangeButton.setText("IMPERIAL");
     }
@@ -111,19 +99,19 @@ public class UnitView extends View implements ModelListener {
         }
 
         if (mode != lastMode) {
-            if (mode == UnitModel.TypeState.LENGTH) {
-                typeChangeButton.setText("LENGTH");
-                modCombosForLength();
-            } else {
-                typeChangeButton.setText("TEMP");
-                modCombosForTemperature();
-            }
+            typeChangeButton.setText(mode == UnitModel.TypeState.TEMPERATURE ? "TEMP" : mode.name());
+            fillCombos(mode);
             lastMode = mode;
         }
 
         UnitModel um = m.getUnitModel();
-        imperialCombo.setSelectedItem(um.getImperialUnit());
-        metricCombo.setSelectedItem(um.getMetricUnit());
+        updatingCombos = true;
+        try {
+            imperialCombo.setSelectedItem(um.getImperialUnit());
+            metricCombo.setSelectedItem(um.getMetricUnit());
+        } finally {
+            updatingCombos = false;
+        }
     }
 
 }
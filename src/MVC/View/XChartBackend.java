@@ -0,0 +1,129 @@
+package MVC.View;
+
+import org.knowm.xchart.XChartPanel;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+import org.knowm.xchart.XYSeries;
+import org.knowm.xchart.style.markers.SeriesMarkers;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * XChartBackend draws the plot with an XYChart from the XChart library.
+ * This is the default backend, it has titles, a legend and tooltips.
+ */
+public class XChartBackend implements PlotBackend {
+    // XChart objects
+    private final XYChart chart;
+    private final XChartPanel<XYChart> chartPanel;
+
+    /**
+     * Constructor for XChartBackend, builds the XYChart and its panel
+     */
+    public XChartBackend() {
+        this.chart = new XYChartBuilder()
+                .width(600).height(400)
+                .title("f(x)")
+                .xAxisTitle("x")
+                .yAxisTitle("f(x)")
+                .build();
+        this.chartPanel = new XChartPanel<>(chart);
+    }
+
+    @Override
+    public JComponent getComponent() {
+        return chartPanel;
+    }
+
+    @Override
+    public void setSeries(String name, double[] xData, double[] yData) {
+        // updates series or creates it
+        if (chart.getSeriesMap().containsKey(name)) {
+            chart.updateXYSeries(name, xData, yData, null);
+        } else {
+            chart.addSeries(name, xData, yData);
+        }
+    }
+
+    @Override
+    public void setMarkers(String name, double[] xData, double[] yData, Marker marker) {
+        // XChart can't show a series without points, so an empty set is removed
+        if (xData.length == 0) {
+            if (chart.getSeriesMap().containsKey(name)) {
+                chart.removeSeries(name);
+            }
+            return;
+        }
+
+        XYSeries series;
+        if (chart.getSeriesMap().containsKey(name)) {
+            series = chart.updateXYSeries(name, xData, yData, null);
+        } else {
+            series = chart.addSeries(name, xData, yData);
+        }
+        series.setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Scatter);
+        switch (marker) {
+            case CIRCLE  -> series.setMarker(SeriesMarkers.CIRCLE);
+            case SQUARE  -> series.setMarker(SeriesMarkers.SQUARE);
+            case DIAMOND -> series.setMarker(SeriesMarkers.DIAMOND);
+        }
+    }
+
+    @Override
+    public void setBounds(String name, double[] x0, double[] x1, double[] lo, double[] hi) {
+        if (x0.length == 0) {
+            if (chart.getSeriesMap().containsKey(name)) {
+                chart.removeSeries(name);
+            }
+            return;
+        }
+
+        // outlines every box as a closed line, a NaN y breaks the line between boxes
+        int n = x0.length;
+        double[] xs = new double[6 * n];
+        double[] ys = new double[6 * n];
+        for (int i = 0; i < n; i++) {
+            int j = 6 * i;
+            xs[j]     = x0[i]; ys[j]     = lo[i];
+            xs[j + 1] = x0[i]; ys[j + 1] = hi[i];
+            xs[j + 2] = x1[i]; ys[j + 2] = hi[i];
+            xs[j + 3] = x1[i]; ys[j + 3] = lo[i];
+            xs[j + 4] = x0[i]; ys[j + 4] = lo[i];
+            xs[j + 5] = x1[i]; ys[j + 5] = Double.NaN;
+        }
+
+        XYSeries series;
+        if (chart.getSeriesMap().containsKey(name)) {
+            series = chart.updateXYSeries(name, xs, ys, null);
+        } else {
+            series = chart.addSeries(name, xs, ys);
+        }
+        series.setMarker(SeriesMarkers.NONE);
+        series.setShowInLegend(false);
+    }
+
+    @Override
+    public void retainSeries(Collection<String> names) {
+        List<String> stale = new ArrayList<>(chart.getSeriesMap().keySet());
+        stale.removeAll(names);
+        for (String name : stale) {
+            chart.removeSeries(name);
+        }
+    }
+
+    @Override
+    public void setXRange(double xMin, double xMax) {
+        chart.getStyler().setXAxisMin(xMin);
+        chart.getStyler().setXAxisMax(xMax);
+    }
+
+    @Override
+    public void refresh() {
+        // paints swing component
+        chartPanel.revalidate();
+        chartPanel.repaint();
+    }
+}
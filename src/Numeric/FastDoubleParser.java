@@ -0,0 +1,231 @@
+package Numeric;
+
+import java.math.BigInteger;
+
+/**
+ * Parses decimal numbers into doubles with the Eisel-Lemire algorithm.
+ * The decimal significand (up to 19 digits) is multiplied by a 128-bit
+ * approximation of the power of ten and the result is rounded straight
+ * into the 53 bits of a double, giving the same correctly rounded value
+ * as Double.parseDouble. The rare inputs it cannot decide (more than 19
+ * digits, near-halfway products, subnormals) and any syntax outside
+ * [+-]digits[.digits][(e|E)[+-]digits] go through Double.parseDouble, so
+ * the results and errors are always those of Double.parseDouble.
+ *
+ * See D. Lemire, "Number Parsing at a Gigabyte per Second" (2021).
+ */
+public final class FastDoubleParser {
+    // range of decimal exponents in the table, outside it the value is 0 or infinite
+    private static final int MIN_EXPONENT = -342;
+    private static final int MAX_EXPONENT = 308;
+
+    // 128-bit truncated mantissas of 5^q, most significant bit set, high then low word
+    private static final long[] POW5 = new long[2 * (MAX_EXPONENT - MIN_EXPONENT + 1)];
+
+    // exact powers of ten for the fast path
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    static {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+            BigInteger m;
+            if (q >= 0) {
+                // 5^q shifted so its top bit is bit 127, truncated
+                m = BigInteger.valueOf(5).pow(q);
+                int shift = 128 - m.bitLength();
+                m = shift >= 0 ? m.shiftLeft(shift) : m.shiftRight(-shift);
+            } else {
+                // 2^b / 5^-q rounded up, then truncated to 128 bits
+                BigInteger p = BigInteger.valueOf(5).pow(-q);
+                int z = p.bitLength();
+                int b = (q >= -27) ? z + 127 : 2 * z + 128;
+                m = BigInteger.ONE.shiftLeft(b).divide(p).add(BigInteger.ONE);
+                while (m.compareTo(two128) >= 0) {
+                    m = m.shiftRight(1);
+                }
+            }
+            int i = 2 * (q - MIN_EXPONENT);
+            POW5[i] = m.shiftRight(64).longValue();
+            POW5[i + 1] = m.and(mask64).longValue();
+        }
+    }
+
+    private FastDoubleParser() {}
+
+    /**
+     * Parses a number, the same as Double.parseDouble
+     * @param s text of the number
+     * @return parsed value
+     * @throws NumberFormatException if s is not a number
+     */
+    public static double parseDouble(CharSequence s) {
+        int n = s.length();
+        int i = 0;
+        while (i < n && s.charAt(i) <= ' ') i++;
+        while (n > i && s.charAt(n - 1) <= ' ') n--;
+
+        boolean neg = false;
+        if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            neg = s.charAt(i) == '-';
+            i++;
+        }
+
+        long w = 0;
+        int digits = 0;
+        int exp = 0;
+        boolean any = false;
+
+        // integer part, leading zeros are not significant
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            any = true;
+            if (w != 0 || c != '0') {
+                if (digits == 19) {
+                    return Double.parseDouble(s.toString());
+                }
+                w = w * 10 + (c - '0');
+                digits++;
+            }
+        }
+        // fraction part, each digit lowers the exponent
+        if (i < n && s.charAt(i) == '.') {
+            for (i++; i < n; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                any = true;
+                if (w != 0 || c != '0') {
+                    if (digits == 19) {
+                        return Double.parseDouble(s.toString());
+                    }
+                    w = w * 10 + (c - '0');
+                    digits++;
+                }
+                exp--;
+            }
+        }
+        if (!any) {
+            return Double.parseDouble(s.toString());
+        }
+        // exponent
+        if (i < n && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean expNeg = false;
+            if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                expNeg = s.charAt(i) == '-';
+                i++;
+            }
+            int e = 0;
+            int start = i;
+            for (; i < n && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++) {
+                if (e < 100_000) {
+                    e = e * 10 + (s.charAt(i) - '0');
+                }
+            }
+            if (start == i) {
+                return Double.parseDouble(s.toString());
+            }
+            exp += expNeg ? -e : e;
+        }
+        if (i != n) {
+            // suffixes like "d" or "f", hex, NaN, Infinity
+            return Double.parseDouble(s.toString());
+        }
+
+        double v = toDouble(neg, w, exp);
+        return Double.isNaN(v) ? Double.parseDouble(s.toString()) : v;
+    }
+
+    /**
+     * Computes the double nearest to (-1)^neg * w * 10^q
+     * @param neg true for a negative number
+     * @param w decimal significand, an exact value of at most 19 digits
+     * @param q decimal exponent
+     * @return the correctly rounded value, or NaN if this method cannot
+     *         decide it and the caller has to fall back to a slower parser
+     */
+    public static double toDouble(boolean neg, long w, int q) {
+        double v;
+        if (w == 0) {
+            v = 0.0;
+        } else if (q >= -22 && q <= 22 && w >= 0 && w <= (1L << 53)) {
+            // Clinger's fast path, w and 10^|q| are exact so one operation rounds once
+            v = q < 0 ? w / POW10[-q] : w * POW10[q];
+        } else {
+            v = eiselLemire(w, q);
+            if (Double.isNaN(v)) {
+                return v;
+            }
+        }
+        return neg ? -v : v;
+    }
+
+    /**
+     * Eisel-Lemire for normal doubles, NaN when undecided
+     */
+    private static double eiselLemire(long w, int q) {
+        if (q < MIN_EXPONENT || q > MAX_EXPONENT) {
+            return Double.NaN;
+        }
+
+        // normalize w so its top bit is set
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        int index = 2 * (q - MIN_EXPONENT);
+        long hi = Math.multiplyHigh(w, POW5[index]) + ((w >> 63) & POW5[index]) + ((POW5[index] >> 63) & w);
+        long lo = w * POW5[index];
+
+        // the low 9 bits below the 55 we keep are all ones, the next word can still carry into them
+        if ((hi & 0x1FF) == 0x1FF) {
+            long hi2 = Math.multiplyHigh(w, POW5[index + 1]) + ((w >> 63) & POW5[index + 1])
+                    + ((POW5[index + 1] >> 63) & w);
+            long sum = lo + hi2;
+            if (Long.compareUnsigned(sum, lo) < 0) {
+                hi++;
+            }
+            lo = sum;
+            if (lo == -1L && (q < -27 || q > 55)) {
+                // product could still be off by one ulp of the 128-bit word
+                return Double.NaN;
+            }
+        }
+
+        int upperBit = (int) (hi >>> 63);
+        long mantissa = hi >>> (upperBit + 9);
+
+        // binary exponent, floor(q * log2(10)) + 63 plus the bias
+        int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperBit - lz + 1023;
+        if (power2 <= 0) {
+            // subnormal
+            return Double.NaN;
+        }
+
+        // exactly halfway between two doubles, round to even
+        if (Long.compareUnsigned(lo, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1) {
+            if ((mantissa << (upperBit + 9)) == hi) {
+                mantissa &= ~1L;
+            }
+        }
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << 52)) {
+            mantissa = 1L << 52;
+            power2++;
+        }
+        mantissa &= ~(1L << 52);
+        if (power2 >= 0x7FF) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Double.longBitsToDouble(mantissa | ((long) power2 << 52));
+    }
+}
@@ -0,0 +1,138 @@
+package Numeric;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Formats doubles with a fixed number of decimals, producing exactly what
+ * String.format("%.nf", v) gives, without building a Formatter.
+ * The value is scaled by 10^n and rounded in double arithmetic, only
+ * values that land within rounding error of a tie (xxx.5 after scaling)
+ * or are too large for a long go through String.format.
+ *
+ * The decimal separator is always '.', like Double.parseDouble expects,
+ * whatever the default locale is.
+ * ex: format(3.28084, 4) -> "3.2808"
+ */
+public final class FixedFormatter {
+    // most decimals supported by the fast path
+    public static final int MAX_DECIMALS = 9;
+
+    // longest fast path output: sign, 15 integer digits, point, 9 decimals
+    public static final int MAX_FAST_LENGTH = 26;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9
+    };
+
+    private static final long[] LONG_POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L,
+            10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private FixedFormatter() {}
+
+    /**
+     * Formats a value with a fixed number of decimals
+     * @param v value
+     * @param decimals digits after the decimal point, 0 to MAX_DECIMALS
+     * @return same text as String.format("%." + decimals + "f", v) in Locale.ROOT
+     */
+    public static String format(double v, int decimals) {
+        byte[] buf = new byte[MAX_FAST_LENGTH];
+        int n = formatFast(v, decimals, buf, 0);
+        if (n < 0) {
+            return slowFormat(v, decimals);
+        }
+        // ASCII digits, copied straight into a compact string
+        return new String(buf, 0, n, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Appends a formatted value
+     * @param sb output
+     * @param v value
+     * @param decimals digits after the decimal point, 0 to MAX_DECIMALS
+     * @return sb
+     */
+    public static StringBuilder append(StringBuilder sb, double v, int decimals) {
+        byte[] buf = new byte[MAX_FAST_LENGTH];
+        int n = formatFast(v, decimals, buf, 0);
+        if (n < 0) {
+            return sb.append(slowFormat(v, decimals));
+        }
+        for (int i = 0; i < n; i++) {
+            sb.append((char) buf[i]);
+        }
+        return sb;
+    }
+
+    /**
+     * Writes a formatted value as ASCII bytes if the fast path can decide
+     * the rounding. dst needs MAX_FAST_LENGTH bytes of room at pos.
+     * @param v value
+     * @param decimals digits after the decimal point, 0 to MAX_DECIMALS
+     * @param dst output bytes
+     * @param pos where to start writing
+     * @return position after the last byte written, or -1 if nothing was
+     *         written and the caller must use format instead
+     */
+    public static int formatFast(double v, int decimals, byte[] dst, int pos) {
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            throw new IllegalArgumentException("decimals must be between 0 and " + MAX_DECIMALS);
+        }
+        if (!Double.isFinite(v)) {
+            return -1;
+        }
+
+        double scaled = Math.abs(v) * POW10[decimals];
+        if (!(scaled < 1e15)) {
+            return -1;
+        }
+
+        // String.format rounds the shortest decimal form of v half up. That
+        // form and the product above are both within ~2^-52 relative of the
+        // exact scaled value, so outside this margin of a tie they round alike.
+        double floor = Math.floor(scaled);
+        double frac = scaled - floor;
+        double margin = scaled * 0x1p-50 + 0x1p-60;
+        if (Math.abs(frac - 0.5) <= margin) {
+            return -1;
+        }
+        long r = (long) floor + (frac > 0.5 ? 1 : 0);
+
+        // negative values keep their sign even when they round to zero
+        if (v < 0 || (v == 0 && 1 / v < 0)) {
+            dst[pos++] = '-';
+        }
+        long unit = LONG_POW10[decimals];
+        pos = writeDigits(r / unit, 1, dst, pos);
+        if (decimals > 0) {
+            dst[pos++] = '.';
+            pos = writeDigits(r % unit, decimals, dst, pos);
+        }
+        return pos;
+    }
+
+    /**
+     * Writes a non-negative number, left padded with zeros to width
+     */
+    private static int writeDigits(long v, int width, byte[] dst, int pos) {
+        int digits = 1;
+        for (long t = v / 10; t != 0; t /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, width);
+
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            dst[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        return end;
+    }
+
+    private static String slowFormat(double v, int decimals) {
+        return String.format(Locale.ROOT, "%." + decimals + "f", v);
+    }
+}
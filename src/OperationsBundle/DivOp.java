@@ -35,13 +35,13 @@ public class DivOp implements BinaryStrategy {
             throw new IllegalArgumentException("Division by zero");
         }
 
-        // init the result as zero polynomial
-        Polynomial result = Polynomial.zero();
-        for (int i = 0; i <= a.degree(); i++) {
-            result.set(i, a.get(i) / divisor);
+        // divides each stored coefficient into a new polynomial
+        Polynomial.Builder result = Polynomial.builder();
+        for (int i = 0; i < a.termCount(); i++) {
+            result.set(a.termExponent(i), a.termCoefficient(i) / divisor);
         }
 
-        return result;
+        return result.build();
     }
 
     /**
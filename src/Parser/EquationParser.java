@@ -1,11 +1,16 @@
 package Parser;
 
+import Algebra.ExactPolynomial;
+import Algebra.MultiPolynomial;
 import Algebra.Polynomial;
 import Parser.Lexer.TOK;
 import OperationsBundle.BinaryStrategy;
 import OperationsBundle.PowStrategy;
 import OperationsBundle.UnaryStrategy;
+import Profiling.LexEvent;
+import Profiling.ParseEvent;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,6 +22,10 @@ import java.util.List;
  * multiplication, division, negation, exponentiation). The parser
  * first tokenizes the input using the Lexer, then uses a pointer
  * p to walk through the token list.
+ *
+ * parseMultivariate() runs the same grammar with the variables x, y
+ * and z and builds a MultiPolynomial instead, parseExact() builds an
+ * ExactPolynomial with big integer coefficients.
  */
 public class EquationParser {
     // input expression
@@ -35,6 +44,18 @@ public class EquationParser {
     private final PowStrategy powOp;
     private final UnaryStrategy rootOp;
 
+    // arithmetic used by parse(), backed by the strategies
+    private final Ops<Polynomial> polynomialOps = new PolynomialOps();
+
+    // arithmetic used by parseMultivariate()
+    private final Ops<MultiPolynomial> multiOps = new MultiOps();
+
+    // arithmetic used by parseExact()
+    private final Ops<ExactPolynomial> exactOps = new ExactOps();
+
+    // largest degree a product or power may reach, checked before computing it
+    private int maxDegree = Integer.MAX_VALUE;
+
     /**
      * Constructor for parser, parsers for an expression
      * @param source Input string
@@ -63,6 +84,18 @@ public class EquationParser {
         this.rootOp = rootOp;
     }
 
+    /**
+     * Limits the degree of every product and power while parsing, so an
+     * input such as (x+1)^100000 is rejected before it is expanded
+     * @param maxDegree largest degree allowed, at least 0
+     */
+    public void setMaxDegree(int maxDegree) {
+        if (maxDegree < 0) {
+            throw new IllegalArgumentException("Maximum degree must not be negative: " + maxDegree);
+        }
+        this.maxDegree = maxDegree;
+    }
+
     /**
      * Returns the current look ahead token without consuming it
      * @return the token at the current position p
@@ -105,17 +138,53 @@ public class EquationParser {
      * @return a Polynomial representing the left side minus the right side
      */
     public Polynomial parse() {
-        String s = src.replaceAll("\\s+", "");
-        int eq = s.indexOf('=');
-
-        // If the expression has "=", parse both sides separately
-        if (eq >= 0) {
-            Polynomial L = parseSide(s.substring(0, eq));
-            Polynomial R = parseSide(s.substring(eq + 1));
-            return subOp.apply(L, R);
-        } else {
-            // pure expression no "="
-            return parseSide(s);
+        return parseWith(polynomialOps);
+    }
+
+    /**
+     * Parses the input as a polynomial in x, y and z. An equation
+     * Left = Right returns Left - Right like parse().
+     * @return a MultiPolynomial representing the left side minus the right side
+     */
+    public MultiPolynomial parseMultivariate() {
+        return parseWith(multiOps);
+    }
+
+    /**
+     * Parses the input as a polynomial in x with exact coefficients, so
+     * expansions such as (3x + 7)^2000 do not overflow. An equation
+     * Left = Right returns Left - Right like parse().
+     * @return an ExactPolynomial representing the left side minus the right side
+     */
+    public ExactPolynomial parseExact() {
+        return parseWith(exactOps);
+    }
+
+    /**
+     * Parses the whole input with the given arithmetic
+     * @param ops arithmetic for the result type
+     * @return the left side minus the right side, or the expression
+     */
+    private <T> T parseWith(Ops<T> ops) {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        T result = null;
+        try {
+            String s = src.replaceAll("\\s+", "");
+            int eq = s.indexOf('=');
+
+            // If the expression has "=", parse both sides separately
+            if (eq >= 0) {
+                T L = parseSide(s.substring(0, eq), ops);
+                T R = parseSide(s.substring(eq + 1), ops);
+                result = ops.sub(L, R);
+            } else {
+                // pure expression no "="
+                result = parseSide(s, ops);
+            }
+            return result;
+        } finally {
+            event.finish(src.length(), result == null ? -1 : ops.degree(result));
         }
     }
 
@@ -123,24 +192,31 @@ public class EquationParser {
      * Tokenizes a single side of an equation, then parses it using the
      * algorithm defined by parser.
      * @param expr
+     * @param ops arithmetic for the result type
      * @return
      */
-    private Polynomial parseSide(String expr) {
+    private <T> T parseSide(String expr, Ops<T> ops) {
         toks.clear();
         p = 0;
 
         // Creates a fresh lexer for substring
+        LexEvent event = new LexEvent();
+        event.begin();
         Lexer lex = new Lexer(expr);
 
         // Scans all token until EOF
-        for (;;) {
-            Lexer.Token t = lex.next();
-            toks.add(t);
-            if (t.tok == TOK.EOF) break;
+        try {
+            for (;;) {
+                Lexer.Token t = lex.next();
+                toks.add(t);
+                if (t.tok == TOK.EOF) break;
+            }
+        } finally {
+            event.finish(expr.length(), toks.size());
         }
 
         // Parses full expression and ensures no trailing strings
-        Polynomial result = parseSum();
+        T result = parseSum(ops);
         need(TOK.EOF, "Unexpected trailing input");
         return result;
     }
@@ -150,8 +226,8 @@ public class EquationParser {
      * an initial term followed by zero or more "+" or "-" pairs.
      * @return the Polynomial after applying all additions and subtractions
      */
-    private Polynomial parseSum() {
-        Polynomial acc = parseTerm();
+    private <T> T parseSum(Ops<T> ops) {
+        T acc = parseTerm(ops);
 
         // Continues parsing as long as next token is + or -
         while (at(TOK.PLUS) || at(TOK.MINUS)) {
@@ -160,11 +236,11 @@ public class EquationParser {
             // consumes + or -
             eat();
 
-            Polynomial rhs = parseTerm();
+            T rhs = parseTerm(ops);
 
             // if plus, apply addOp, else subOp
-            acc = plus ? addOp.apply(acc, rhs)
-                    : subOp.apply(acc, rhs);
+            acc = plus ? ops.add(acc, rhs)
+                    : ops.sub(acc, rhs);
         }
         return acc;
     }
@@ -174,28 +250,30 @@ public class EquationParser {
      * multiplications or divisions, including implicit multiplication.
      * @return the resulting Polynomial after evaluating the term
      */
-    private Polynomial parseTerm() {
+    private <T> T parseTerm(Ops<T> ops) {
         // Parse the initial factor of the term
-        Polynomial acc = parseFactor();
+        T acc = parseFactor(ops);
 
         // Consumes factors as long as a multiplication condition holds
         while (true) {
             // Explicit multiplication "*"
             if (at(TOK.MUL)) {
                 eat();
-                Polynomial rhs = parseFactor();
-                acc = mulOp.apply(acc, rhs);
+                T rhs = parseFactor(ops);
+                checkDegree((long) ops.degree(acc) + ops.degree(rhs));
+                acc = ops.mul(acc, rhs);
 
                 // Explicit division "/"
             } else if (at(TOK.DIV)) {
                 eat();
-                Polynomial rhs = parseFactor();
-                acc = divOp.apply(acc, rhs);
+                T rhs = parseFactor(ops);
+                acc = ops.div(acc, rhs);
 
                 // Implicit multiplication (ie 2x, x(x+1), etc.)
             } else if (startsImplicitMult()) {
-                Polynomial rhs = parseFactor();
-                acc = mulOp.apply(acc, rhs);
+                T rhs = parseFactor(ops);
+                checkDegree((long) ops.degree(acc) + ops.degree(rhs));
+                acc = ops.mul(acc, rhs);
             } else {
                 break;
             }
@@ -208,7 +286,7 @@ public class EquationParser {
      * followed by a primary expression, and optionally a power operation.
      * @return the resulting Polynomial after applying negation and exponentiation
      */
-    private Polynomial parseFactor() {
+    private <T> T parseFactor(Ops<T> ops) {
         // Tracks whether the factor is negated; multiple "-" flip the sign
         boolean neg = false;
 
@@ -220,15 +298,15 @@ public class EquationParser {
         }
 
         // Parse the underlying primary expression (number, variable, or parenthesized expression)
-        Polynomial base;
+        T base;
 
         // handle unary root
         if (at(TOK.ROOT)) {
             eat();
-            Polynomial inner = parsePrimary();
-            base = rootOp.apply(inner);
+            T inner = parsePrimary(ops);
+            base = ops.root(inner);
         } else {
-            base = parsePrimary();
+            base = parsePrimary(ops);
         }
 
         // Handle optional exponentiation: base "^" integer
@@ -238,31 +316,42 @@ public class EquationParser {
 
             // exponent value
             int e = eat().val;
-            base = powOp.apply(base, e);
+            checkDegree((long) ops.degree(base) * e);
+            base = ops.pow(base, e);
         }
 
         // Apply unary negation if an odd number of "-" was found
-        return neg ? negOp.apply(base) : base;
+        return neg ? ops.neg(base) : base;
+    }
+
+    /**
+     * Rejects a product or power whose degree would exceed the limit
+     * @param degree degree of the result, before computing it
+     */
+    private void checkDegree(long degree) {
+        if (degree > maxDegree) {
+            throw new IllegalArgumentException("Degree " + degree + " exceeds the limit of " + maxDegree);
+        }
     }
 
     /**
      * Parses a primary expression. A primary is one of the following:
      *   - an integer constant
-     *   - the variable x
+     *   - a variable
      *   - a subexpression enclosed in parentheses
-     * @return the Polynomial representation of the primary
+     * @param ops arithmetic for the result type
+     * @return the representation of the primary
      */
-    private Polynomial parsePrimary() {
+    private <T> T parsePrimary(Ops<T> ops) {
         // Integer literal, return constant polynomial
         if (at(TOK.INT)) {
             int v = eat().val;
-            return Polynomial.constant(v);
+            return ops.constant(v);
         }
 
-        // Variable "x" return polynomial representing x
-        if (at(TOK.X)) {
-            eat();
-            return Polynomial.x();
+        // Variable "x", "y" or "z", return polynomial representing it
+        if (at(TOK.X) || at(TOK.Y) || at(TOK.Z)) {
+            return ops.variable(eat().tok);
         }
 
         // expression enclosed in parentheses, parse recursively as a full sum
@@ -270,7 +359,7 @@ public class EquationParser {
             // consumes "("
             eat();
             // parses inner expression
-            Polynomial inside = parseSum();
+            T inside = parseSum(ops);
             need(TOK.RIGHT_PAREN, "Missing ')'");
             //consumes ")"
             eat();
@@ -291,7 +380,227 @@ public class EquationParser {
         TOK t = peek().tok;
 
         // Implicit multiplication is allowed when the next token
-        // starts a primary expression: INT, X, or '('
-        return t == TOK.INT || t == TOK.X || t == TOK.LEFT_PAREN;
+        // starts a primary expression: INT, a variable, or '('
+        return t == TOK.INT || t == TOK.X || t == TOK.Y || t == TOK.Z || t == TOK.LEFT_PAREN;
+    }
+
+    /**
+     * Arithmetic the grammar is evaluated with, so one descent builds
+     * either polynomials in x or polynomials in x, y and z.
+     * @param <T> result type of the parser
+     */
+    private interface Ops<T> {
+        T constant(int c);
+        T variable(TOK var);
+        T add(T a, T b);
+        T sub(T a, T b);
+        T mul(T a, T b);
+        T div(T a, T b);
+        T neg(T a);
+        T pow(T base, int exponent);
+        T root(T a);
+        int degree(T a);
+    }
+
+    /**
+     * Polynomials in x, every operation goes through the injected strategy
+     */
+    private final class PolynomialOps implements Ops<Polynomial> {
+        @Override
+        public Polynomial constant(int c) {
+            return Polynomial.constant(c);
+        }
+
+        @Override
+        public Polynomial variable(TOK var) {
+            if (var != TOK.X) {
+                throw new IllegalArgumentException("Only the variable x is supported here (found " + var + ")");
+            }
+            return Polynomial.x();
+        }
+
+        @Override
+        public Polynomial add(Polynomial a, Polynomial b) {
+            return addOp.apply(a, b);
+        }
+
+        @Override
+        public Polynomial sub(Polynomial a, Polynomial b) {
+            return subOp.apply(a, b);
+        }
+
+        @Override
+        public Polynomial mul(Polynomial a, Polynomial b) {
+            return mulOp.apply(a, b);
+        }
+
+        @Override
+        public Polynomial div(Polynomial a, Polynomial b) {
+            return divOp.apply(a, b);
+        }
+
+        @Override
+        public Polynomial neg(Polynomial a) {
+            return negOp.apply(a);
+        }
+
+        @Override
+        public Polynomial pow(Polynomial base, int exponent) {
+            return powOp.apply(base, exponent);
+        }
+
+        @Override
+        public Polynomial root(Polynomial a) {
+            return rootOp.apply(a);
+        }
+
+        @Override
+        public int degree(Polynomial a) {
+            return a.degree();
+        }
+    }
+
+    /**
+     * Polynomials in x, y and z. Roots and divisors must be constants,
+     * the same rules the univariate strategies apply.
+     */
+    private final class MultiOps implements Ops<MultiPolynomial> {
+        @Override
+        public MultiPolynomial constant(int c) {
+            return MultiPolynomial.constant(c);
+        }
+
+        @Override
+        public MultiPolynomial variable(TOK var) {
+            return switch (var) {
+                case X -> MultiPolynomial.x();
+                case Y -> MultiPolynomial.y();
+                case Z -> MultiPolynomial.z();
+                default -> throw new IllegalArgumentException("Not a variable: " + var);
+            };
+        }
+
+        @Override
+        public MultiPolynomial add(MultiPolynomial a, MultiPolynomial b) {
+            return a.add(b);
+        }
+
+        @Override
+        public MultiPolynomial sub(MultiPolynomial a, MultiPolynomial b) {
+            return a.sub(b);
+        }
+
+        @Override
+        public MultiPolynomial mul(MultiPolynomial a, MultiPolynomial b) {
+            return a.mul(b);
+        }
+
+        @Override
+        public MultiPolynomial div(MultiPolynomial a, MultiPolynomial b) {
+            // allows only division by constants
+            if (b.degree() != 0) {
+                throw new IllegalArgumentException("Only division by constants is supported");
+            }
+            return a.divConst(b.get(0, 0, 0));
+        }
+
+        @Override
+        public MultiPolynomial neg(MultiPolynomial a) {
+            return a.mulConst(-1);
+        }
+
+        @Override
+        public MultiPolynomial pow(MultiPolynomial base, int exponent) {
+            return base.pow(exponent);
+        }
+
+        @Override
+        public MultiPolynomial root(MultiPolynomial a) {
+            // constants only, y and z would not convert to a polynomial in x
+            if (a.degree() > 0) {
+                throw new IllegalArgumentException("Square Root only supports integer constants");
+            }
+            return MultiPolynomial.of(rootOp.apply(a.toPolynomial()));
+        }
+
+        @Override
+        public int degree(MultiPolynomial a) {
+            return a.degree();
+        }
+    }
+
+    /**
+     * Polynomials in x with exact coefficients. Roots and divisors must
+     * be constants, the same rules the univariate strategies apply.
+     */
+    private static final class ExactOps implements Ops<ExactPolynomial> {
+        @Override
+        public ExactPolynomial constant(int c) {
+            return ExactPolynomial.constant(BigInteger.valueOf(c));
+        }
+
+        @Override
+        public ExactPolynomial variable(TOK var) {
+            if (var != TOK.X) {
+                throw new IllegalArgumentException("Only the variable x is supported here (found " + var + ")");
+            }
+            return ExactPolynomial.x();
+        }
+
+        @Override
+        public ExactPolynomial add(ExactPolynomial a, ExactPolynomial b) {
+            return a.add(b);
+        }
+
+        @Override
+        public ExactPolynomial sub(ExactPolynomial a, ExactPolynomial b) {
+            return a.sub(b);
+        }
+
+        @Override
+        public ExactPolynomial mul(ExactPolynomial a, ExactPolynomial b) {
+            return a.mul(b);
+        }
+
+        @Override
+        public ExactPolynomial div(ExactPolynomial a, ExactPolynomial b) {
+            // allows only division by constants
+            if (b.degree() != 0) {
+                throw new IllegalArgumentException("Only division by constants is supported");
+            }
+            return a.divConst(b.get(0));
+        }
+
+        @Override
+        public ExactPolynomial neg(ExactPolynomial a) {
+            return a.mulConst(BigInteger.ONE.negate());
+        }
+
+        @Override
+        public ExactPolynomial pow(ExactPolynomial base, int exponent) {
+            return base.pow(exponent);
+        }
+
+        @Override
+        public ExactPolynomial root(ExactPolynomial a) {
+            // only constants allowed
+            if (a.degree() != 0) {
+                throw new IllegalArgumentException("Square Root only supports integer constants");
+            }
+            BigInteger value = a.get(0);
+            if (value.signum() < 0) {
+                throw new IllegalArgumentException("Cannot solve square root of negative values");
+            }
+            BigInteger root = value.sqrt();
+            if (!root.multiply(root).equals(value)) {
+                throw new IllegalArgumentException("Square root is not integer");
+            }
+            return ExactPolynomial.constant(root);
+        }
+
+        @Override
+        public int degree(ExactPolynomial a) {
+            return a.degree();
+        }
     }
 }
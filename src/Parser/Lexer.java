@@ -18,6 +18,8 @@ public class Lexer {
     public enum TOK {
         INT,
         X,
+        Y,
+        Z,
         PLUS,
         MINUS,
         MUL,
@@ -108,6 +110,8 @@ public class Lexer {
         // switch statement to return Token type depending on char
         return switch (c) {
             case 'x' -> new Token(TOK.X);
+            case 'y' -> new Token(TOK.Y);
+            case 'z' -> new Token(TOK.Z);
             case '+' -> new Token(TOK.PLUS);
             case '-' -> new Token(TOK.MINUS);
             case '*' -> new Token(TOK.MUL);
@@ -0,0 +1,55 @@
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for sampling and plotting curves in the graph view
+ */
+@Name("calculator.Graph")
+@Label("Graph")
+@Category({"Calculator", "Graph"})
+@Description("Sampling curves and handing the points to the plot")
+@StackTrace(false)
+public final class GraphEvent extends Event {
+    @Label("Operation")
+    @Description("render for the model's curves, graph for a single polynomial")
+    String operation;
+
+    @Label("Curves")
+    int curves;
+
+    @Label("Max Degree")
+    int maxDegree;
+
+    @Label("Samples")
+    @Description("Points per curve, 0 if nothing was re-sampled")
+    int samples;
+
+    @Label("Interval Mode")
+    boolean intervalMode;
+
+    /**
+     * Ends the event and commits it if it is recorded
+     * @param operation "render" or "graph"
+     * @param curves curves plotted
+     * @param maxDegree highest degree among the curves
+     * @param samples points per curve, 0 if nothing was re-sampled
+     * @param intervalMode true if curves are plotted with bounds
+     */
+    public void finish(String operation, int curves, int maxDegree, int samples, boolean intervalMode) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.curves = curves;
+            this.maxDegree = maxDegree;
+            this.samples = samples;
+            this.intervalMode = intervalMode;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package Profiling;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram in the style of HdrHistogram. Values are counted in
+ * log-linear buckets: exact below 128 ns, above that every power of two
+ * is split into 64 buckets, so a percentile is off by less than 1.6%
+ * across the whole long range with a fixed 3712 counters. Recording is
+ * a few shifts and atomic increments, without locks or allocation, so
+ * it can stay on in production and be called from any thread.
+ */
+public final class LatencyHistogram {
+    // sub-buckets per power of two are 2^SUB_BITS
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = index(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one latency
+     * @param nanos latency in nanoseconds, negative values count as 0
+     */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(index(v));
+        total.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Records the time elapsed since a System.nanoTime() reading
+     * @param startNanos System.nanoTime() at the start of the operation
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Copies the current counts. Recording may continue meanwhile, the
+     * copy then holds some but not all of the concurrent values.
+     * @return snapshot for reading percentiles
+     */
+    public Snapshot snapshot() {
+        long[] c = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            c[i] = counts.get(i);
+            n += c[i];
+        }
+        return new Snapshot(c, n, sum.sum(), max.get());
+    }
+
+    /**
+     * Clears all recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns the number of values recorded
+     * @return count
+     */
+    public long getCount() {
+        return total.sum();
+    }
+
+    /**
+     * Bucket of a value: the top 7 significant bits pick the bucket
+     * within the value's power of two
+     * @param v non negative value
+     * @return bucket index
+     */
+    static int index(long v) {
+        if (v < 2 * SUB_COUNT) {
+            return (int) v;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return SUB_COUNT * shift + (int) (v >>> shift);
+    }
+
+    /**
+     * Highest value that falls into a bucket
+     * @param index bucket index
+     * @return largest value of the bucket
+     */
+    static long highestValue(int index) {
+        if (index < 2 * SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long sub = index - (long) SUB_COUNT * shift;
+        long high = ((sub + 1) << shift) - 1;
+        // the last bucket would overflow
+        return high < 0 ? Long.MAX_VALUE : high;
+    }
+
+    /**
+     * Recorded values at one point in time
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxNanos() {
+            return max;
+        }
+
+        /**
+         * Mean of the recorded values
+         * @return mean in nanoseconds, 0 if nothing was recorded
+         */
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Value at or below which the given share of the values fall,
+         * rounded up to the end of its bucket
+         * ex: percentileNanos(99) is the p99 latency
+         * @param percentile 0 to 100
+         * @return latency in nanoseconds, 0 if nothing was recorded
+         */
+        public long percentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for tokenizing one side of an expression
+ */
+@Name("calculator.Lex")
+@Label("Lex")
+@Category({"Calculator", "Parser"})
+@Description("Tokenizing one side of an equation")
+@StackTrace(false)
+public final class LexEvent extends Event {
+    @Label("Expression Length")
+    int expressionLength;
+
+    @Label("Tokens")
+    int tokens;
+
+    /**
+     * Ends the event and commits it if it is recorded
+     * @param expressionLength characters tokenized
+     * @param tokens tokens produced, including EOF
+     */
+    public void finish(int expressionLength, int tokens) {
+        end();
+        if (shouldCommit()) {
+            this.expressionLength = expressionLength;
+            this.tokens = tokens;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package Profiling;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named latency histograms of the running calculator, ex: "ui.keystroke"
+ * or "model.solve". Histograms are created on first use and live as long
+ * as the registry, so callers may keep the returned histogram. The
+ * global registry is what the debug panel shows and what the headless
+ * entry points print when they finish.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    // percentiles shown in reports
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the registry shared by the whole process
+     * @return global registry
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the histogram of a name, creating it if needed
+     * @param name metric name
+     * @return histogram for the name
+     */
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram h = histograms.get(name);
+        return h != null ? h : histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Takes a snapshot of every histogram
+     * @return snapshots sorted by name
+     */
+    public Map<String, LatencyHistogram.Snapshot> snapshot() {
+        Map<String, LatencyHistogram.Snapshot> out = new TreeMap<>();
+        histograms.forEach((name, h) -> out.put(name, h.snapshot()));
+        return out;
+    }
+
+    /**
+     * Clears every histogram
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Formats every histogram as a table in milliseconds
+     * @return report text, one line per metric
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-24s %9s %9s", "metric", "count", "mean"));
+        for (double p : PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, " %9s", "p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p))));
+        }
+        sb.append(String.format(Locale.ROOT, " %9s  (ms)%n", "max"));
+
+        for (Map.Entry<String, LatencyHistogram.Snapshot> e : snapshot().entrySet()) {
+            LatencyHistogram.Snapshot s = e.getValue();
+            sb.append(String.format(Locale.ROOT, "%-24s %9d %9.3f", e.getKey(), s.getCount(), s.getMeanNanos() / 1e6));
+            for (double p : PERCENTILES) {
+                sb.append(String.format(Locale.ROOT, " %9.3f", s.percentileNanos(p) / 1e6));
+            }
+            sb.append(String.format(Locale.ROOT, " %9.3f%n", s.getMaxNanos() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Prints the report
+     * @param out stream to print to
+     */
+    public void dump(PrintStream out) {
+        out.print(report());
+        out.flush();
+    }
+}
@@ -0,0 +1,57 @@
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a model operation (solve, graph, addGraph, convert),
+ * from reading the state to publishing the new snapshot
+ */
+@Name("calculator.ModelOperation")
+@Label("Model Operation")
+@Category({"Calculator", "Model"})
+@Description("A model operation including its compare-and-set retries")
+@StackTrace(false)
+public final class ModelOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Input Length")
+    int inputLength;
+
+    @Label("Degree")
+    @Description("Degree of the polynomial produced, -1 if none")
+    int degree;
+
+    @Label("Attempts")
+    @Description("Times the change was applied, more than 1 when other threads published first")
+    int attempts;
+
+    @Label("Failed")
+    @Description("True if the operation stored an error message")
+    boolean failed;
+
+    /**
+     * Ends the event and commits it if it is recorded
+     * @param operation model method, ex: "solve"
+     * @param inputLength characters of input the operation read
+     * @param degree degree of the polynomial produced, -1 if none
+     * @param attempts times the change was applied
+     * @param failed true if the operation stored an error
+     */
+    public void finish(String operation, int inputLength, int degree, int attempts, boolean failed) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.inputLength = inputLength;
+            this.degree = degree;
+            this.attempts = attempts;
+            this.failed = failed;
+            commit();
+        }
+    }
+}
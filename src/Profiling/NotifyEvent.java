@@ -0,0 +1,46 @@
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Set;
+
+/**
+ * JFR event for delivering one coalesced notification to the views
+ */
+@Name("calculator.Notify")
+@Label("Notify")
+@Category({"Calculator", "Model"})
+@Description("Delivering merged model events to the subscribed listeners")
+@StackTrace(false)
+public final class NotifyEvent extends Event {
+    @Label("Events")
+    String events;
+
+    @Label("Listeners")
+    int listeners;
+
+    @Label("Delivered")
+    @Description("Listeners subscribed to at least one of the events")
+    int delivered;
+
+    /**
+     * Ends the event and commits it if it is recorded
+     * @param events merged events
+     * @param listeners listeners registered
+     * @param delivered listeners that were called
+     */
+    public void finish(Set<?> events, int listeners, int delivered) {
+        end();
+        if (shouldCommit()) {
+            this.events = events.toString();
+            this.listeners = listeners;
+            this.delivered = delivered;
+            commit();
+        }
+    }
+}
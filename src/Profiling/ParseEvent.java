@@ -0,0 +1,41 @@
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for parsing an expression into a polynomial. The duration
+ * includes lexing (see LexEvent) and expanding the products and powers,
+ * so parse minus lex time is the time spent in polynomial arithmetic.
+ */
+@Name("calculator.Parse")
+@Label("Parse")
+@Category({"Calculator", "Parser"})
+@Description("Lexing, parsing and expanding an expression into a polynomial")
+@StackTrace(false)
+public final class ParseEvent extends Event {
+    @Label("Expression Length")
+    int expressionLength;
+
+    @Label("Degree")
+    @Description("Degree of the result, -1 if parsing failed")
+    int degree;
+
+    /**
+     * Ends the event and commits it if it is recorded
+     * @param expressionLength characters in the expression
+     * @param degree degree of the result, -1 if parsing failed
+     */
+    public void finish(int expressionLength, int degree) {
+        end();
+        if (shouldCommit()) {
+            this.expressionLength = expressionLength;
+            this.degree = degree;
+            commit();
+        }
+    }
+}
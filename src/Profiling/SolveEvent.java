@@ -0,0 +1,44 @@
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for solving an equation for x
+ */
+@Name("calculator.Solve")
+@Label("Solve")
+@Category({"Calculator", "Solver"})
+@Description("Parsing and solving an equation for x")
+@StackTrace(false)
+public final class SolveEvent extends Event {
+    @Label("Expression Length")
+    int expressionLength;
+
+    @Label("Degree")
+    @Description("Degree of the equation, -1 if it could not be parsed")
+    int degree;
+
+    @Label("Solved")
+    boolean solved;
+
+    /**
+     * Ends the event and commits it if it is recorded
+     * @param expressionLength characters in the equation
+     * @param degree degree of the equation, -1 if it could not be parsed
+     * @param solved false if solving threw
+     */
+    public void finish(int expressionLength, int degree, boolean solved) {
+        end();
+        if (shouldCommit()) {
+            this.expressionLength = expressionLength;
+            this.degree = degree;
+            this.solved = solved;
+            commit();
+        }
+    }
+}
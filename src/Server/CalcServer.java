@@ -0,0 +1,320 @@
+package Server;
+
+import Algebra.EquationSolver;
+import Algebra.Polynomial;
+import Numeric.FastDoubleParser;
+import OperationsBundle.*;
+import Parser.EquationParser;
+import Profiling.LatencyHistogram;
+import Profiling.MetricsRegistry;
+import UnitConversion.UnitConversion;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CalcServer exposes the calculator engines over local HTTP using the
+ * JDK's built in com.sun.net.httpserver. Every endpoint takes its
+ * arguments as query parameters and answers with JSON.
+ *
+ * GET /parse?expr=(x+1)^2                     expanded polynomial
+ * GET /solve?expr=x^2-4                       solution text and real roots
+ * GET /sample?expr=x^3&xmin=-2&xmax=2&n=200   curve samples
+ * GET /convert?value=60&from=mi/h&to=m/s       any units of the same dimension
+ *
+ * Each request runs on its own virtual thread when the JDK has them,
+ * otherwise on a cached thread pool.
+ */
+public class CalcServer {
+    // most samples one /sample request may ask for
+    public static final int MAX_SAMPLES = 100_000;
+
+    // longest expression accepted, in characters
+    public static final int MAX_EXPRESSION_LENGTH = 10_000;
+
+    // deepest parenthesis nesting accepted, the parser recurses per level
+    public static final int MAX_NESTING = 200;
+
+    // largest degree an expression may reach, bounds the expansion and
+    // evaluation work one request can cause
+    public static final int MAX_DEGREE = 1000;
+
+    // samples used when /sample has no n
+    private static final int DEFAULT_SAMPLES = 200;
+
+    static {
+        // small responses otherwise wait ~40 ms on Nagle and delayed ACKs,
+        // must be set before the JDK server reads its configuration
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // Operator Strategies used by the parser, stateless so requests share them
+    private final BinaryStrategy addOp = new AddOp();
+    private final BinaryStrategy subOp = new SubOp();
+    private final BinaryStrategy mulOp = new MultOp();
+    private final BinaryStrategy divOp = new DivOp();
+    private final UnaryStrategy negOp = new NegOp();
+    private final PowStrategy powOp = new PowOp();
+    private final UnaryStrategy rootOp = new RootOp();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server bound to the loopback interface
+     * @param port port to listen on, 0 picks a free port
+     * @throws IOException if the port cannot be bound
+     */
+    public CalcServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/parse", handler("server.parse", this::parse));
+        server.createContext("/solve", handler("server.solve", this::solve));
+        server.createContext("/sample", handler("server.sample", this::sample));
+        server.createContext("/convert", handler("server.convert", this::convert));
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting at most a second for running requests
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port the server listens on
+     * @return bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns an executor with one virtual thread per task. Looked up
+     * reflectively so the project still builds and runs on JDK 17, where
+     * a cached pool of platform threads is used instead.
+     * @return request executor
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    //------------------------------------------------------------
+
+    private String parse(Map<String, String> q) {
+        Polynomial p = parseExpr(q);
+        return "{\"result\":" + Json.quote(p.toString())
+                + ",\"degree\":" + p.degree() + "}";
+    }
+
+    private String solve(Map<String, String> q) {
+        String expr = expression(q);
+        Polynomial p = parseExpr(q);
+
+        StringBuilder sb = new StringBuilder("{\"solution\":");
+        try {
+            sb.append(Json.quote(EquationSolver.solveForX(
+                    expr, addOp, subOp, mulOp, divOp, negOp, powOp, rootOp)));
+        } catch (IllegalArgumentException e) {
+            // higher degrees only have the numeric roots
+            sb.append("null");
+        }
+        double[] roots = EquationSolver.realRoots(p);
+        sb.append(",\"roots\":");
+        Json.array(sb, roots, roots.length);
+        return sb.append('}').toString();
+    }
+
+    private String sample(Map<String, String> q) {
+        Polynomial p = parseExpr(q);
+        double xMin = number(q, "xmin", -10);
+        double xMax = number(q, "xmax", 10);
+        int n = (int) number(q, "n", DEFAULT_SAMPLES);
+
+        if (!(xMin < xMax)) {
+            throw new IllegalArgumentException("xmin must be less than xmax");
+        }
+        if (n < 2 || n > MAX_SAMPLES) {
+            throw new IllegalArgumentException("n must be between 2 and " + MAX_SAMPLES);
+        }
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double step = (xMax - xMin) / (n - 1);
+        for (int i = 0; i < n; i++) {
+            x[i] = xMin + i * step;
+            y[i] = p.evaluate(x[i]);
+        }
+
+        StringBuilder sb = new StringBuilder(n * 40);
+        sb.append("{\"x\":");
+        Json.array(sb, x, n);
+        sb.append(",\"y\":");
+        Json.array(sb, y, n);
+        return sb.append('}').toString();
+    }
+
+    private String convert(Map<String, String> q) {
+        double value = number(q, "value", Double.NaN);
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Missing parameter: value");
+        }
+        double result = UnitConversion.compile(require(q, "from"), require(q, "to")).apply(value);
+        return "{\"result\":" + Json.number(result) + "}";
+    }
+
+    private Polynomial parseExpr(Map<String, String> q) {
+        EquationParser parser = new EquationParser(
+                expression(q), addOp, subOp, mulOp, divOp, negOp, powOp, rootOp);
+        parser.setMaxDegree(MAX_DEGREE);
+        return parser.parse();
+    }
+
+    /**
+     * Returns the expr parameter after checking its length and nesting,
+     * so a hostile expression cannot overflow the parser's stack
+     * @param q query parameters
+     * @return the expression
+     */
+    static String expression(Map<String, String> q) {
+        String expr = require(q, "expr");
+        if (expr.length() > MAX_EXPRESSION_LENGTH) {
+            throw new IllegalArgumentException("Expression longer than " + MAX_EXPRESSION_LENGTH + " characters");
+        }
+        int depth = 0;
+        for (int i = 0; i < expr.length(); i++) {
+            char c = expr.charAt(i);
+            if (c == '(' && ++depth > MAX_NESTING) {
+                throw new IllegalArgumentException("Parentheses nested deeper than " + MAX_NESTING);
+            } else if (c == ')') {
+                depth--;
+            }
+        }
+        return expr;
+    }
+
+    //------------------------------------------------------------
+
+    /**
+     * Wraps an endpoint into an HttpHandler that decodes the query,
+     * writes the JSON answer and turns invalid input into 400 responses.
+     * Any other failure, including errors such as StackOverflowError,
+     * answers 500, so every request gets a response. The time from
+     * receiving the request to sending the answer is recorded in the
+     * metric's histogram.
+     * @param metric name of the latency histogram
+     * @param endpoint builds the JSON answer from the query parameters
+     * @return handler for the endpoint
+     */
+    private static HttpHandler handler(String metric, Endpoint endpoint) {
+        LatencyHistogram latency = MetricsRegistry.global().histogram(metric);
+        return exchange -> {
+            long start = System.nanoTime();
+            int status = 200;
+            String body;
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    status = 405;
+                    body = "{\"error\":\"Only GET is supported\"}";
+                } else {
+                    body = endpoint.handle(query(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // invalid input, the lexer reports unknown characters as illegal state
+                status = 400;
+                body = "{\"error\":" + Json.quote(String.valueOf(e.getMessage())) + "}";
+            } catch (Throwable e) {
+                status = 500;
+                body = "{\"error\":" + Json.quote("Internal error: " + e.getClass().getSimpleName()) + "}";
+            }
+            send(exchange, status, body);
+            latency.recordSince(start);
+        };
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Decodes a raw query string into parameters
+     * ex: "expr=x%2B1&n=5" -> {expr=x+1, n=5}
+     * @param raw raw query, may be null
+     * @return decoded parameters
+     */
+    static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String require(Map<String, String> q, String name) {
+        String v = q.get(name);
+        if (v == null || v.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return v;
+    }
+
+    private static double number(Map<String, String> q, String name, double fallback) {
+        String v = q.get(name);
+        if (v == null || v.isBlank()) {
+            return fallback;
+        }
+        try {
+            return FastDoubleParser.parseDouble(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + name + ": " + v);
+        }
+    }
+
+    /**
+     * One endpoint, turns query parameters into a JSON answer
+     */
+    private interface Endpoint {
+        String handle(Map<String, String> query);
+    }
+}
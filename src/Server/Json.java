@@ -0,0 +1,62 @@
+package Server;
+
+/**
+ * Minimal JSON writing helpers for the server responses.
+ */
+final class Json {
+
+    private Json() {}
+
+    /**
+     * Quotes and escapes a string
+     * @param s string to quote
+     * @return JSON string literal
+     */
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Formats a number, JSON has no NaN or infinity so those become null
+     * @param v value
+     * @return JSON number or null
+     */
+    static String number(double v) {
+        return Double.isFinite(v) ? Double.toString(v) : "null";
+    }
+
+    /**
+     * Appends the first n values as a JSON array
+     * @param sb output
+     * @param values values to write
+     * @param n number of values
+     */
+    static void array(StringBuilder sb, double[] values, int n) {
+        sb.append('[');
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(number(values[i]));
+        }
+        sb.append(']');
+    }
+}
@@ -0,0 +1,191 @@
+package Server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Closed loop load generator for CalcServer. A number of clients each
+ * send requests back to back, cycling through a mix of all endpoints,
+ * for a fixed time. Reports throughput and latency percentiles.
+ */
+public class LoadGenerator {
+    // request mix, one of each endpoint and a larger sample
+    private static final String[] PATHS = {
+            "/parse?expr=" + encode("(x+1)^5"),
+            "/solve?expr=" + encode("x^2-5x+6"),
+            "/solve?expr=" + encode("x^3-2x"),
+            "/sample?expr=" + encode("x^3-3x") + "&xmin=-3&xmax=3&n=200",
+            "/sample?expr=" + encode("x^4-x") + "&n=2000",
+            "/convert?value=12.5&from=FT&to=M",
+            "/convert?value=98.6&from=F&to=C",
+    };
+
+    private final URI base;
+    private final int clients;
+    private final Duration duration;
+
+    /**
+     * @param base server address, ex: http://127.0.0.1:8080
+     * @param clients number of concurrent clients
+     * @param duration how long to send requests
+     */
+    public LoadGenerator(URI base, int clients, Duration duration) {
+        if (clients < 1) {
+            throw new IllegalArgumentException("clients must be at least 1");
+        }
+        this.base = base;
+        this.clients = clients;
+        this.duration = duration;
+    }
+
+    /**
+     * Runs the load and collects the latencies of every request
+     * @return throughput and latency report
+     * @throws InterruptedException if interrupted while waiting for clients
+     */
+    public Report run() throws InterruptedException {
+        ExecutorService pool = CalcServer.newRequestExecutor();
+        HttpClient http = HttpClient.newBuilder()
+                .executor(pool)
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int first = c;
+            results.add(pool.submit(() -> client(http, first, end)));
+        }
+
+        List<long[]> latencies = new ArrayList<>();
+        int errors = 0;
+        for (Future<long[]> f : results) {
+            try {
+                long[] l = f.get();
+                latencies.add(l);
+                // the last slot holds the error count
+                errors += (int) l[l.length - 1];
+            } catch (ExecutionException e) {
+                errors++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        int total = 0;
+        for (long[] l : latencies) {
+            total += l.length - 1;
+        }
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] l : latencies) {
+            System.arraycopy(l, 0, all, at, l.length - 1);
+            at += l.length - 1;
+        }
+        Arrays.sort(all);
+        return new Report(all, errors, elapsed);
+    }
+
+    /**
+     * One client sending requests until the end time
+     * @return latencies in nanoseconds followed by the error count
+     */
+    private long[] client(HttpClient http, int first, long end) {
+        long[] lat = new long[1024];
+        int n = 0;
+        long errors = 0;
+        int next = first;
+
+        while (System.nanoTime() < end) {
+            HttpRequest req = HttpRequest.newBuilder(base.resolve(PATHS[next++ % PATHS.length])).GET().build();
+            long t0 = System.nanoTime();
+            try {
+                HttpResponse<byte[]> res = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+                if (res.statusCode() != 200) {
+                    errors++;
+                }
+            } catch (IOException e) {
+                errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (n == lat.length) {
+                lat = Arrays.copyOf(lat, n * 2);
+            }
+            lat[n++] = System.nanoTime() - t0;
+        }
+
+        long[] out = Arrays.copyOf(lat, n + 1);
+        out[n] = errors;
+        return out;
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Result of one load run
+     */
+    public static final class Report {
+        // sorted latencies in nanoseconds
+        private final long[] latencies;
+        private final int errors;
+        private final long elapsedNanos;
+
+        private Report(long[] latencies, int errors, long elapsedNanos) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getRequests() {
+            return latencies.length;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public double getRequestsPerSecond() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Returns a latency percentile
+         * @param p percentile between 0 and 100
+         * @return latency in milliseconds, 0 if there were no requests
+         */
+        public double percentileMillis(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int i = (int) Math.ceil(p / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(i, latencies.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%d requests, %d errors, %.0f req/s, p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                    getRequests(), errors, getRequestsPerSecond(),
+                    percentileMillis(50), percentileMillis(99), percentileMillis(99.9), percentileMillis(100));
+        }
+    }
+}
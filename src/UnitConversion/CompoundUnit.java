@@ -0,0 +1,161 @@
+package UnitConversion;
+
+/**
+ * A unit built from named units with products, quotients and integer
+ * powers, ex: "mi/h", "kg*m/s^2", "ft^2". It is reduced to one scale to
+ * the SI base units and a dimension vector. Operators are read left to
+ * right, so "kg/m/s" is kg / (m s). Units with an offset (°F, °C) can only
+ * stand alone, the offset has no meaning inside a product.
+ */
+public final class CompoundUnit {
+    private final String symbol;
+    private final Dimension dimension;
+    private final double scale;
+    private final double offset;
+
+    private CompoundUnit(String symbol, Dimension dimension, double scale, double offset) {
+        this.symbol = symbol;
+        this.dimension = dimension;
+        this.scale = scale;
+        this.offset = offset;
+    }
+
+    /**
+     * Wraps a named unit
+     * @param u unit
+     * @return compound unit of the single unit
+     */
+    public static CompoundUnit of(Unit u) {
+        return new CompoundUnit(u.getSymbol(), u.getDimension(), u.getScale(), u.getOffset());
+    }
+
+    /**
+     * Parses a unit expression
+     * ex: "mi/h" -> speed, scale 0.44704
+     * @param text unit expression, symbols joined by '*', '·' or '/', with optional ^n, n, ² or ³
+     * @return compound unit
+     * @throws IllegalArgumentException if the expression is malformed or names an unknown unit
+     */
+    public static CompoundUnit parse(String text) {
+        String src = text.trim();
+        if (src.isEmpty()) {
+            throw new IllegalArgumentException("Empty unit");
+        }
+
+        Dimension dim = Dimension.NONE;
+        double scale = 1.0;
+        Unit single = null;
+        Unit offsetUnit = null;
+        int factors = 0;
+
+        int i = 0;
+        boolean divide = false;
+        while (true) {
+            // symbol, letters and a degree sign
+            int start = i;
+            while (i < src.length() && (Character.isLetter(src.charAt(i)) || src.charAt(i) == '°')) {
+                i++;
+            }
+            Unit u = null;
+            if (start < i) {
+                u = Unit.parse(src.substring(start, i));
+            } else if (factors == 0 && src.startsWith("1", i)) {
+                // "1/s", a dimensionless numerator
+                i++;
+            } else {
+                throw new IllegalArgumentException("Expected a unit in " + text + " at " + (i + 1));
+            }
+
+            // optional power
+            int power = 1;
+            if (i < src.length() && src.charAt(i) == '^') {
+                int p = ++i;
+                if (i < src.length() && src.charAt(i) == '-') {
+                    i++;
+                }
+                while (i < src.length() && Character.isDigit(src.charAt(i))) {
+                    i++;
+                }
+                try {
+                    power = Integer.parseInt(src.substring(p, i));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad power in " + text);
+                }
+            } else if (u != null && i < src.length() && Character.isDigit(src.charAt(i))) {
+                // "m2", digits right after a symbol
+                int p = i;
+                while (i < src.length() && Character.isDigit(src.charAt(i))) {
+                    i++;
+                }
+                power = Integer.parseInt(src.substring(p, i));
+            } else if (i < src.length() && src.charAt(i) == '²') {
+                power = 2;
+                i++;
+            } else if (i < src.length() && src.charAt(i) == '³') {
+                power = 3;
+                i++;
+            }
+
+            if (u != null) {
+                if (divide) {
+                    power = -power;
+                }
+                dim = dim.times(u.getDimension().pow(power));
+                scale *= Math.pow(u.getScale(), power);
+                single = (factors == 0 && power == 1) ? u : null;
+                if (u.getOffset() != 0) {
+                    offsetUnit = u;
+                }
+            }
+            factors++;
+
+            if (i == src.length()) {
+                break;
+            }
+            char op = src.charAt(i++);
+            if (op == '/') {
+                divide = true;
+            } else if (op != '*' && op != '·' && op != '.') {
+                throw new IllegalArgumentException("Unexpected '" + op + "' in " + text);
+            }
+        }
+
+        if (factors == 1 && single != null) {
+            return new CompoundUnit(src, single.getDimension(), single.getScale(), single.getOffset());
+        }
+        if (offsetUnit != null) {
+            throw new IllegalArgumentException(
+                    "Unit " + offsetUnit.getSymbol() + " has an offset and cannot be combined in " + src);
+        }
+        return new CompoundUnit(src, dim, scale, 0);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Factor from this unit to the SI base units of its dimension
+     * @return scale
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Offset added after scaling, 0 except for a single temperature unit
+     * @return offset
+     */
+    public double getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
@@ -0,0 +1,84 @@
+package UnitConversion;
+
+/**
+ * A compiled conversion between two units of the same dimension,
+ * to = from * scale + offset. However many units the two sides are built
+ * from, converting a value is one multiply-add. Immutable.
+ */
+public final class Conversion {
+    private final String from;
+    private final String to;
+    private final double scale;
+    private final double offset;
+
+    Conversion(String from, String to, double scale, double offset) {
+        this.from = from;
+        this.to = to;
+        this.scale = scale;
+        this.offset = offset;
+    }
+
+    /**
+     * Compiles the conversion between two units
+     * @param from unit of the values
+     * @param to unit to convert to
+     * @return conversion
+     * @throws IllegalArgumentException if the units have different dimensions
+     */
+    public static Conversion between(CompoundUnit from, CompoundUnit to) {
+        if (!from.getDimension().equals(to.getDimension())) {
+            throw new IllegalArgumentException("Cannot convert " + from + " (" + from.getDimension().getName()
+                    + ") to " + to + " (" + to.getDimension().getName() + ")");
+        }
+        // base = v * from.scale + from.offset, result = (base - to.offset) / to.scale
+        double scale = from.getScale() / to.getScale();
+        double offset = (from.getOffset() - to.getOffset()) / to.getScale();
+        return new Conversion(from.getSymbol(), to.getSymbol(), scale, offset);
+    }
+
+    /**
+     * Converts one value
+     * @param value value in the from unit
+     * @return value in the to unit
+     */
+    public double apply(double value) {
+        return value * scale + offset;
+    }
+
+    /**
+     * Converts an array of values, in and out may be the same array
+     * @param in values to convert
+     * @param out receives the converted values, at least as long as in
+     */
+    public void apply(double[] in, double[] out) {
+        if (out.length < in.length) {
+            throw new IndexOutOfBoundsException("out is shorter than in");
+        }
+        double a = scale;
+        double b = offset;
+        for (int i = 0; i < in.length; i++) {
+            out[i] = in[i] * a + b;
+        }
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return from + " -> " + to + ": x * " + scale + " + " + offset;
+    }
+}
@@ -0,0 +1,461 @@
+package UnitConversion;
+
+import Numeric.FastDoubleParser;
+import Numeric.FixedFormatter;
+import Profiling.LatencyHistogram;
+import Profiling.MetricsRegistry;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Converts selected columns of a CSV file between units, streaming the
+ * file through NIO channels. The input is memory mapped and cut into
+ * chunks that end on line boundaries, chunks are converted in parallel
+ * and written out in order. Fields are parsed and formatted straight from
+ * and into bytes, rows never become Strings, and untouched fields are
+ * copied as byte ranges.
+ *
+ * Fields may be quoted, but a quoted field must not contain a line break.
+ * A selected field that is not a plain number (empty, text) is copied
+ * unchanged.
+ * ex: new CsvColumnConverter().column(1, Unit.FT, Unit.M).column(2, Unit.F, Unit.C)
+ *         .convert(Path.of("log.csv"), Path.of("log_metric.csv"));
+ */
+public class CsvColumnConverter {
+    // bytes per chunk handed to one task
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    // per column scale and offset, NaN scale for columns left alone
+    private double[] scale = new double[0];
+    private double[] offset = new double[0];
+
+    private int decimals = 4;
+    private boolean header = false;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Selects a column to convert
+     * @param index column index, the first column is 0
+     * @param from unit the column is written in
+     * @param to unit to write it in
+     * @return this converter
+     * @throws IllegalArgumentException if the units measure different things
+     */
+    public CsvColumnConverter column(int index, Unit from, Unit to) {
+        return column(index, UnitConversion.scale(from, to), UnitConversion.offset(from, to));
+    }
+
+    private CsvColumnConverter column(int index, double a, double b) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Column index must not be negative");
+        }
+        if (index >= scale.length) {
+            int n = scale.length;
+            scale = Arrays.copyOf(scale, index + 1);
+            offset = Arrays.copyOf(offset, index + 1);
+            Arrays.fill(scale, n, scale.length, Double.NaN);
+        }
+        scale[index] = a;
+        offset[index] = b;
+        return this;
+    }
+
+    /**
+     * Selects a column to convert, units may be compound such as "mi/h"
+     * @param index column index, the first column is 0
+     * @param from unit expression the column is written in
+     * @param to unit expression to write it in
+     * @return this converter
+     * @throws IllegalArgumentException if a unit is unknown or the dimensions differ
+     */
+    public CsvColumnConverter column(int index, String from, String to) {
+        Conversion c = UnitConversion.compile(from, to);
+        return column(index, c.getScale(), c.getOffset());
+    }
+
+    /**
+     * Sets the digits written after the decimal point of converted values
+     * @param decimals digits, 0 to 9
+     * @return this converter
+     */
+    public CsvColumnConverter decimals(int decimals) {
+        if (decimals < 0 || decimals > 9) {
+            throw new IllegalArgumentException("decimals must be between 0 and 9");
+        }
+        this.decimals = decimals;
+        return this;
+    }
+
+    /**
+     * Sets whether the first line is a header that is copied unchanged
+     * @param header true if the file has a header line
+     * @return this converter
+     */
+    public CsvColumnConverter header(boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads converting chunks
+     * @param threads thread count, at least 1
+     * @return this converter
+     */
+    public CsvColumnConverter threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the target chunk size, chunks are extended to the next line end
+     * @param chunkSize bytes per chunk
+     * @return this converter
+     */
+    public CsvColumnConverter chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Converts a file
+     * @param input CSV file to read
+     * @param output file to write, replaced if it exists
+     * @return bytes processed and throughput
+     * @throws IOException if reading or writing fails
+     */
+    public Stats convert(Path input, Path output) throws IOException {
+        long t0 = System.nanoTime();
+        long written = 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = in.size();
+            long pos = 0;
+
+            // header is copied as is
+            if (header && size > 0) {
+                long end = lineEnd(in, 0, size);
+                written += in.transferTo(0, end, out);
+                pos = end;
+            }
+
+            // keeps a bounded number of chunks in flight, written in order
+            LatencyHistogram chunkTime = MetricsRegistry.global().histogram("csv.chunk");
+            ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            while (pos < size) {
+                long end = lineEnd(in, Math.min(size, pos + chunkSize), size);
+                MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, pos, end - pos);
+                inFlight.add(pool.submit(() -> {
+                    long start = System.nanoTime();
+                    Chunk c = convertChunk(buf);
+                    chunkTime.recordSince(start);
+                    return c;
+                }));
+                pos = end;
+
+                if (inFlight.size() >= threads * 2) {
+                    written += write(out, inFlight.poll());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                written += write(out, inFlight.poll());
+            }
+
+            return new Stats(size, written, System.nanoTime() - t0);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long write(FileChannel out, Future<Chunk> f) throws IOException {
+        Chunk c;
+        try {
+            c = f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Conversion failed", e.getCause());
+        }
+        ByteBuffer b = ByteBuffer.wrap(c.bytes, 0, c.length);
+        while (b.hasRemaining()) {
+            out.write(b);
+        }
+        return c.length;
+    }
+
+    /**
+     * Finds the end of the line containing pos, just after its '\n'
+     * @return position after the line break, or size at the end of the file
+     */
+    private static long lineEnd(FileChannel in, long pos, long size) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(64 * 1024);
+        while (pos < size) {
+            b.clear();
+            int n = in.read(b, pos);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (b.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * Converts one chunk of whole lines
+     * @param in chunk bytes
+     * @return converted bytes
+     */
+    Chunk convertChunk(ByteBuffer in) {
+        int n = in.limit();
+        // converted numbers are usually about as long as the originals
+        Chunk out = new Chunk(n + n / 8 + 64);
+
+        int col = 0;
+        int fieldStart = 0;
+        // start of the bytes not yet copied to out
+        int copyFrom = 0;
+        boolean quoted = false;
+
+        for (int i = 0; i <= n; i++) {
+            byte c = i < n ? in.get(i) : (byte) '\n';
+            if (c == '"') {
+                quoted = !quoted;
+                continue;
+            }
+            if (quoted || (c != ',' && c != '\n')) {
+                continue;
+            }
+
+            // field is [fieldStart, fieldEnd), a '\r' before '\n' is not part of it
+            int fieldEnd = (c == '\n' && i > fieldStart && in.get(i - 1) == '\r') ? i - 1 : i;
+
+            if (col < scale.length && !Double.isNaN(scale[col])) {
+                double v = parse(in, fieldStart, fieldEnd);
+                if (!Double.isNaN(v)) {
+                    out.append(in, copyFrom, fieldStart);
+                    format(out, v * scale[col] + offset[col], decimals);
+                    copyFrom = fieldEnd;
+                }
+            }
+
+            if (c == '\n') {
+                col = 0;
+            } else {
+                col++;
+            }
+            fieldStart = i + 1;
+        }
+        out.append(in, copyFrom, n);
+        return out;
+    }
+
+    /**
+     * Parses a decimal number from bytes, [-+]digits[.digits][(e|E)[-+]digits],
+     * surrounded by optional spaces. The digits are collected here and
+     * rounded by FastDoubleParser, the rare numbers it cannot decide go
+     * through Double.parseDouble.
+     * @return parsed value, NaN if the field is not a number
+     */
+    static double parse(ByteBuffer b, int from, int to) {
+        while (from < to && b.get(from) == ' ') from++;
+        while (to > from && b.get(to - 1) == ' ') to--;
+        if (from == to) {
+            return Double.NaN;
+        }
+
+        int i = from;
+        boolean neg = false;
+        byte c = b.get(i);
+        if (c == '-' || c == '+') {
+            neg = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exp = 0;
+        boolean dot = false;
+        boolean any = false;
+        for (; i < to; i++) {
+            c = b.get(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                // leading zeros do not count as significant digits
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > 19) {
+                        return slowParse(b, from, to);
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (dot) {
+                    exp--;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if ((c == 'e' || c == 'E') && any) {
+                break;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!any) {
+            return Double.NaN;
+        }
+
+        if (i < to) {
+            // exponent
+            i++;
+            boolean expNeg = false;
+            if (i < to && (b.get(i) == '-' || b.get(i) == '+')) {
+                expNeg = b.get(i) == '-';
+                i++;
+            }
+            if (i == to) {
+                return Double.NaN;
+            }
+            int e = 0;
+            for (; i < to; i++) {
+                c = b.get(i);
+                if (c < '0' || c > '9') {
+                    return Double.NaN;
+                }
+                if (e < 100_000) {
+                    e = e * 10 + (c - '0');
+                }
+            }
+            exp += expNeg ? -e : e;
+        }
+
+        double v = FastDoubleParser.toDouble(neg, mantissa, exp);
+        return Double.isNaN(v) ? slowParse(b, from, to) : v;
+    }
+
+    private static double slowParse(ByteBuffer b, int from, int to) {
+        byte[] text = new byte[to - from];
+        b.get(from, text);
+        try {
+            return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Writes v with a fixed number of decimals, ex: 3.28084 -> "3.2808"
+     */
+    static void format(Chunk out, double v, int decimals) {
+        out.ensure(FixedFormatter.MAX_FAST_LENGTH);
+        int end = FixedFormatter.formatFast(v, decimals, out.bytes, out.length);
+        if (end >= 0) {
+            out.length = end;
+        } else if (Double.isFinite(v)) {
+            out.append(FixedFormatter.format(v, decimals).getBytes(StandardCharsets.US_ASCII));
+        } else {
+            out.append(Double.toString(v).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Growable byte output of one chunk
+     */
+    static final class Chunk {
+        private byte[] bytes;
+        private int length;
+
+        Chunk(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + extra, bytes.length * 2));
+            }
+        }
+
+        void append(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, length, b.length);
+            length += b.length;
+        }
+
+        void append(ByteBuffer src, int from, int to) {
+            int n = to - from;
+            if (n <= 0) {
+                return;
+            }
+            ensure(n);
+            src.get(from, bytes, length, n);
+            length += n;
+        }
+    }
+
+    /**
+     * Size and speed of one conversion
+     */
+    public static final class Stats {
+        private final long bytesIn;
+        private final long bytesOut;
+        private final long nanos;
+
+        private Stats(long bytesIn, long bytesOut, long nanos) {
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.nanos = nanos;
+        }
+
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        public double getSeconds() {
+            return nanos / 1e9;
+        }
+
+        /**
+         * Input throughput
+         * @return megabytes (10^6 bytes) read per second
+         */
+        public double getMegabytesPerSecond() {
+            return bytesIn / 1e6 / getSeconds();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f MB in, %.1f MB out, %.3f s, %.1f MB/s",
+                    bytesIn / 1e6, bytesOut / 1e6, getSeconds(), getMegabytesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package UnitConversion;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The physical dimension of a unit as a vector of exponents of the SI base
+ * quantities, ex: speed is m^1 s^-1 and energy is m^2 kg s^-2. Two units
+ * can be converted into each other exactly when their dimensions are equal.
+ * Dimensions are immutable.
+ */
+public final class Dimension {
+    // SI base units, in the order of the exponent vector
+    private static final String[] BASE = {"m", "kg", "s", "A", "K", "mol", "cd"};
+
+    public static final Dimension NONE = new Dimension(new int[BASE.length]);
+    public static final Dimension LENGTH = base(0);
+    public static final Dimension MASS = base(1);
+    public static final Dimension TIME = base(2);
+    public static final Dimension CURRENT = base(3);
+    public static final Dimension TEMPERATURE = base(4);
+    public static final Dimension AMOUNT = base(5);
+    public static final Dimension LUMINOSITY = base(6);
+
+    public static final Dimension AREA = LENGTH.pow(2);
+    public static final Dimension VOLUME = LENGTH.pow(3);
+    public static final Dimension SPEED = LENGTH.over(TIME);
+    public static final Dimension ACCELERATION = SPEED.over(TIME);
+    public static final Dimension FORCE = MASS.times(ACCELERATION);
+    public static final Dimension PRESSURE = FORCE.over(AREA);
+    public static final Dimension ENERGY = FORCE.times(LENGTH);
+    public static final Dimension POWER = ENERGY.over(TIME);
+
+    // readable names of the common dimensions
+    private static final Map<Dimension, String> NAMES = new LinkedHashMap<>();
+
+    static {
+        NAMES.put(NONE, "dimensionless");
+        NAMES.put(LENGTH, "length");
+        NAMES.put(MASS, "mass");
+        NAMES.put(TIME, "time");
+        NAMES.put(CURRENT, "current");
+        NAMES.put(TEMPERATURE, "temperature");
+        NAMES.put(AMOUNT, "amount");
+        NAMES.put(LUMINOSITY, "luminosity");
+        NAMES.put(AREA, "area");
+        NAMES.put(VOLUME, "volume");
+        NAMES.put(SPEED, "speed");
+        NAMES.put(ACCELERATION, "acceleration");
+        NAMES.put(FORCE, "force");
+        NAMES.put(PRESSURE, "pressure");
+        NAMES.put(ENERGY, "energy");
+        NAMES.put(POWER, "power");
+    }
+
+    // exponent of each SI base quantity
+    private final int[] exponents;
+
+    private Dimension(int[] exponents) {
+        this.exponents = exponents;
+    }
+
+    private static Dimension base(int i) {
+        int[] e = new int[BASE.length];
+        e[i] = 1;
+        return new Dimension(e);
+    }
+
+    /**
+     * Dimension of the product of two quantities, exponents add
+     * @param d other dimension
+     * @return this * d
+     */
+    public Dimension times(Dimension d) {
+        int[] e = new int[BASE.length];
+        for (int i = 0; i < e.length; i++) {
+            e[i] = exponents[i] + d.exponents[i];
+        }
+        return new Dimension(e);
+    }
+
+    /**
+     * Dimension of the quotient of two quantities, exponents subtract
+     * @param d other dimension
+     * @return this / d
+     */
+    public Dimension over(Dimension d) {
+        return times(d.pow(-1));
+    }
+
+    /**
+     * Dimension of a quantity raised to a power, exponents multiply
+     * @param n power
+     * @return this^n
+     */
+    public Dimension pow(int n) {
+        int[] e = new int[BASE.length];
+        for (int i = 0; i < e.length; i++) {
+            e[i] = exponents[i] * n;
+        }
+        return new Dimension(e);
+    }
+
+    /**
+     * Returns the exponent of an SI base quantity
+     * @param i index in m, kg, s, A, K, mol, cd order
+     * @return exponent
+     */
+    public int exponent(int i) {
+        return exponents[i];
+    }
+
+    /**
+     * Returns a readable name, ex: "speed", or the base unit form
+     * @return name of the dimension
+     */
+    public String getName() {
+        String name = NAMES.get(this);
+        return name != null ? name : toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Dimension && Arrays.equals(exponents, ((Dimension) o).exponents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(exponents);
+    }
+
+    /**
+     * Base unit form, ex: "m^2 kg s^-2"
+     * @return dimension in SI base units
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < BASE.length; i++) {
+            if (exponents[i] == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(BASE[i]);
+            if (exponents[i] != 1) {
+                sb.append('^').append(exponents[i]);
+            }
+        }
+        return sb.length() == 0 ? "1" : sb.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package UnitConversion;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Named units known to the converter. Each unit converts linearly to the
+ * SI base unit of its dimension: base = value * scale + offset. Only the
+ * temperature scales have an offset. Units can be combined into compound
+ * units such as "mi/h" with CompoundUnit.
+ */
+public enum Unit {
+    // length, base meter
+    IN("in", Dimension.LENGTH, 0.0254),
+    FT("ft", Dimension.LENGTH, 0.3048),
+    YD("yd", Dimension.LENGTH, 0.9144),
+    MI("mi", Dimension.LENGTH, 1609.344),
+    NMI("nmi", Dimension.LENGTH, 1852.0),
+    MM("mm", Dimension.LENGTH, 0.001),
+    CM("cm", Dimension.LENGTH, 0.01),
+    M("m", Dimension.LENGTH, 1.0),
+    KM("km", Dimension.LENGTH, 1000.0),
+
+    // mass, base kilogram
+    OZ("oz", Dimension.MASS, 0.028349523125),
+    LB("lb", Dimension.MASS, 0.45359237),
+    G("g", Dimension.MASS, 0.001),
+    KG("kg", Dimension.MASS, 1.0),
+    T("t", Dimension.MASS, 1000.0),
+
+    // time, base second
+    S("s", Dimension.TIME, 1.0),
+    MIN("min", Dimension.TIME, 60.0),
+    H("h", Dimension.TIME, 3600.0),
+
+    // temperature, base kelvin
+    F("F", Dimension.TEMPERATURE, 1 / 1.8, 273.15 - 32 / 1.8),
+    C("C", Dimension.TEMPERATURE, 1.0, 273.15),
+    K("K", Dimension.TEMPERATURE, 1.0, 0),
+
+    // area, base square meter
+    ACRE("acre", Dimension.AREA, 4046.8564224),
+    HA("ha", Dimension.AREA, 10000.0),
+
+    // volume, base cubic meter
+    GAL("gal", Dimension.VOLUME, 0.003785411784),
+    ML("ml", Dimension.VOLUME, 1e-6),
+    L("l", Dimension.VOLUME, 0.001),
+
+    // speed, base meter per second
+    KN("kn", Dimension.SPEED, 1852.0 / 3600.0),
+
+    // force, base newton
+    LBF("lbf", Dimension.FORCE, 4.4482216152605),
+    N("N", Dimension.FORCE, 1.0),
+
+    // pressure, base pascal
+    PSI("psi", Dimension.PRESSURE, 6894.757293168361),
+    PA("Pa", Dimension.PRESSURE, 1.0),
+    KPA("kPa", Dimension.PRESSURE, 1000.0),
+    BAR("bar", Dimension.PRESSURE, 100000.0),
+    ATM("atm", Dimension.PRESSURE, 101325.0),
+
+    // energy, base joule
+    BTU("BTU", Dimension.ENERGY, 1055.05585262),
+    J("J", Dimension.ENERGY, 1.0),
+    KJ("kJ", Dimension.ENERGY, 1000.0),
+    CAL("cal", Dimension.ENERGY, 4.184),
+    KCAL("kcal", Dimension.ENERGY, 4184.0),
+    WH("Wh", Dimension.ENERGY, 3600.0),
+    KWH("kWh", Dimension.ENERGY, 3.6e6),
+
+    // power, base watt
+    HP("hp", Dimension.POWER, 745.69987158227022),
+    W("W", Dimension.POWER, 1.0),
+    KW("kW", Dimension.POWER, 1000.0);
+
+    // units by upper case symbol and name
+    private static final Map<String, Unit> BY_SYMBOL = new HashMap<>();
+
+    static {
+        for (Unit u : values()) {
+            BY_SYMBOL.put(u.symbol.toUpperCase(), u);
+            BY_SYMBOL.put(u.name(), u);
+        }
+    }
+
+    private final String symbol;
+    private final Dimension dimension;
+    private final double scale;
+    private final double offset;
+
+    Unit(String symbol, Dimension dimension, double scale) {
+        this(symbol, dimension, scale, 0);
+    }
+
+    Unit(String symbol, Dimension dimension, double scale, double offset) {
+        this.symbol = symbol;
+        this.dimension = dimension;
+        this.scale = scale;
+        this.offset = offset;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Factor from this unit to the SI base unit of its dimension
+     * @return scale
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Offset added after scaling to the base unit, 0 except for temperatures
+     * @return offset
+     */
+    public double getOffset() {
+        return offset;
+    }
+
+    /**
+     * Finds a unit by its symbol, ignoring case and a degree sign
+     * ex: "ft" -> FT, "F°" -> F, "kwh" -> KWH
+     * @param symbol unit symbol
+     * @return unit
+     * @throws IllegalArgumentException if the symbol is unknown
+     */
+    public static Unit parse(String symbol) {
+        Unit u = BY_SYMBOL.get(symbol.trim().toUpperCase().replace("°", ""));
+        if (u == null) {
+            throw new IllegalArgumentException("Unknown unit: " + symbol);
+        }
+        return u;
+    }
+}
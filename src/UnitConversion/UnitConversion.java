@@ -1,40 +1,149 @@
 package UnitConversion;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Converts values between units. The scale and offset of every from -> to
+ * pair of named units is computed once into a matrix indexed by the units'
+ * ordinals, so a conversion is two array loads and a multiply-add, with no
+ * map lookups or boxing. Arrays of values are converted in bulk with one
+ * tight loop. Conversions between compound units such as mi/h -> m/s are
+ * compiled once into a Conversion and cached.
+ */
 public class UnitConversion {
-    // base unit: meter
-    private final Map<String, Double> lengthUnitMap = new HashMap<>();
+    private static final Unit[] UNITS = Unit.values();
 
-    public UnitConversion() {
-        lengthUnitMap.put("IN", 0.0254);
-        lengthUnitMap.put("FT", 0.3048);
-        lengthUnitMap.put("YD", 0.9144);
-        lengthUnitMap.put("MI", 1609.34);
+    // compiled conversions cache, cleared when it reaches this size
+    private static final int MAX_COMPILED = 4096;
+    private static final Map<String, Conversion> COMPILED = new ConcurrentHashMap<>();
 
-        lengthUnitMap.put("MM", 0.001);
-        lengthUnitMap.put("CM", 0.01);
-        lengthUnitMap.put("M", 1.0);
-        lengthUnitMap.put("KM", 1000.0);
+    // to = from * SCALE[from][to] + OFFSET[from][to], NaN if the dimensions differ
+    private static final double[][] SCALE = new double[UNITS.length][UNITS.length];
+    private static final double[][] OFFSET = new double[UNITS.length][UNITS.length];
+
+    static {
+        for (Unit from : UNITS) {
+            for (Unit to : UNITS) {
+                int i = from.ordinal();
+                int j = to.ordinal();
+                if (!from.getDimension().equals(to.getDimension())) {
+                    SCALE[i][j] = Double.NaN;
+                    OFFSET[i][j] = Double.NaN;
+                } else if (from == to) {
+                    SCALE[i][j] = 1.0;
+                    OFFSET[i][j] = 0.0;
+                } else {
+                    // base = v * from.scale + from.offset, to = (base - to.offset) / to.scale
+                    SCALE[i][j] = from.getScale() / to.getScale();
+                    OFFSET[i][j] = (from.getOffset() - to.getOffset()) / to.getScale();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the compiled conversion between two unit expressions, parsing
+     * and reducing them only the first time the pair is asked for
+     * ex: compile("mi/h", "m/s").apply(60) -> 26.8224
+     * @param from unit expression of the values
+     * @param to unit expression to convert to
+     * @return conversion
+     * @throws IllegalArgumentException if a unit is unknown or the dimensions differ
+     */
+    public static Conversion compile(String from, String to) {
+        String key = from + '\u0000' + to;
+        Conversion c = COMPILED.get(key);
+        if (c == null) {
+            c = Conversion.between(CompoundUnit.parse(from), CompoundUnit.parse(to));
+            if (COMPILED.size() >= MAX_COMPILED) {
+                COMPILED.clear();
+            }
+            COMPILED.put(key, c);
+        }
+        return c;
+    }
+
+    /**
+     * Converts one value
+     * @param value value in the from unit
+     * @param from unit of value
+     * @param to unit to convert to
+     * @return value in the to unit
+     * @throws IllegalArgumentException if the units measure different things
+     */
+    public static double convert(double value, Unit from, Unit to) {
+        double a = scale(from, to);
+        return value * a + OFFSET[from.ordinal()][to.ordinal()];
+    }
+
+    /**
+     * Converts an array of values, out[i] = in[i] converted. in and out
+     * may be the same array to convert in place.
+     * @param from unit of the input values
+     * @param to unit to convert to
+     * @param in values to convert
+     * @param out receives the converted values, at least as long as in
+     * @throws IllegalArgumentException if the units measure different things
+     */
+    public static void convert(Unit from, Unit to, double[] in, double[] out) {
+        convert(from, to, in, 0, out, 0, in.length);
+    }
+
+    /**
+     * Converts a range of an array of values
+     * @param from unit of the input values
+     * @param to unit to convert to
+     * @param in values to convert
+     * @param inPos first value to convert
+     * @param out receives the converted values
+     * @param outPos index of the first converted value in out
+     * @param length number of values
+     * @throws IllegalArgumentException if the units measure different things
+     * @throws IndexOutOfBoundsException if a range lies outside its array
+     */
+    public static void convert(Unit from, Unit to, double[] in, int inPos,
+                               double[] out, int outPos, int length) {
+        // overflow-safe, inPos + length may wrap around for a huge length
+        Objects.checkFromIndexSize(inPos, length, in.length);
+        Objects.checkFromIndexSize(outPos, length, out.length);
+        double a = scale(from, to);
+        double b = OFFSET[from.ordinal()][to.ordinal()];
+
+        // one multiply-add per value, simple enough for the JIT to vectorize
+        for (int i = 0; i < length; i++) {
+            out[outPos + i] = in[inPos + i] * a + b;
+        }
+    }
+
+    /**
+     * Scale of the from -> to conversion
+     * @throws IllegalArgumentException if the units measure different things
+     */
+    static double scale(Unit from, Unit to) {
+        double a = SCALE[from.ordinal()][to.ordinal()];
+        if (Double.isNaN(a)) {
+            throw new IllegalArgumentException("Cannot convert " + from + " to " + to);
+        }
+        return a;
+    }
+
+    /**
+     * Offset of the from -> to conversion, added after scaling
+     */
+    static double offset(Unit from, Unit to) {
+        return OFFSET[from.ordinal()][to.ordinal()];
     }
 
     // source -> base (meters)
     public double convertToBase(String fromUnit, double value) {
-        Double fromFactor = lengthUnitMap.get(fromUnit);
-        if (fromFactor == null) {
-            throw new IllegalArgumentException("Unknown length unit: " + fromUnit);
-        }
-        return value * fromFactor;
+        return convert(value, lengthUnit(fromUnit), Unit.M);
     }
 
     // base (meters) -> target
     public double convertToTarget(String toUnit, double valueInBase) {
-        Double toFactor = lengthUnitMap.get(toUnit);
-        if (toFactor == null) {
-            throw new IllegalArgumentException("Unknown length unit: " + toUnit);
-        }
-        return valueInBase / toFactor;
+        return convert(valueInBase, Unit.M, lengthUnit(toUnit));
     }
 
     public double convertToFahr(double celsius) {
@@ -44,4 +153,16 @@ public class UnitConversion {
     public double convertToCel(double fahr) {
         return (fahr - 32.0) / 1.8;
     }
+
+    private static Unit lengthUnit(String name) {
+        try {
+            Unit u = Unit.parse(name);
+            if (u.getDimension().equals(Dimension.LENGTH)) {
+                return u;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below with the old message
+        }
+        throw new IllegalArgumentException("Unknown length unit: " + name);
+    }
 }
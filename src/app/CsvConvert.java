@@ -0,0 +1,43 @@
+package app;
+
+import Profiling.MetricsRegistry;
+import UnitConversion.CsvColumnConverter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Batch mode converting columns of a CSV file between units.
+ * ex: java app.CsvConvert in.csv out.csv 1:FT:M 2:F:C 3:mi/h:m/s --header
+ * Columns are counted from 0. Options: --header, --threads n, --decimals d
+ */
+public class CsvConvert {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: CsvConvert <in.csv> <out.csv> <column>:<from>:<to>... "
+                    + "[--header] [--threads n] [--decimals d]");
+            System.exit(2);
+        }
+
+        CsvColumnConverter converter = new CsvColumnConverter();
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--header" -> converter.header(true);
+                case "--threads" -> converter.threads(Integer.parseInt(args[++i]));
+                case "--decimals" -> converter.decimals(Integer.parseInt(args[++i]));
+                default -> {
+                    String[] spec = args[i].split(":");
+                    if (spec.length != 3) {
+                        throw new IllegalArgumentException("Expected column:from:to, got " + args[i]);
+                    }
+                    converter.column(Integer.parseInt(spec[0]), spec[1], spec[2]);
+                }
+            }
+        }
+
+        CsvColumnConverter.Stats stats = converter.convert(Path.of(args[0]), Path.of(args[1]));
+        System.out.println(stats);
+        MetricsRegistry.global().dump(System.out);
+    }
+}
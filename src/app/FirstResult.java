@@ -0,0 +1,58 @@
+package app;
+
+import MVC.Model.EquationModel;
+
+import javax.swing.*;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Headless measurement of the first result after launch. Starts the
+ * warm-up like the calculator does, waits while a user would be looking
+ * at the window, then times the first "=" on the model against a later
+ * one. Run it with and without the warm-up to see what it saves.
+ * ex: java app.FirstResult 1000
+ *     java -Dcalc.warmup=false app.FirstResult 1000
+ * The argument is the idle time in milliseconds before the first input.
+ */
+public class FirstResult {
+    // typed in BASIC mode and then solved
+    private static final String INPUT = "3x^2+2(x-1)^3-5";
+
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+        long idleMillis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+
+        // the window's event thread is running by the time a user types
+        SwingUtilities.invokeAndWait(() -> { });
+
+        EquationModel model = new EquationModel();
+        WarmUp warmUp = WarmUp.start();
+        Thread.sleep(idleMillis);
+
+        // first real input
+        if (warmUp != null) {
+            warmUp.cancel();
+        }
+        long first = timeSolve(model);
+        long later = timeSolve(model);
+
+        System.out.printf("warm-up %s, idle %d ms: first result %.3f ms, second %.3f ms%n",
+                warmUp == null ? "off" : warmUp.getRounds() + " rounds", idleMillis, first / 1e6, later / 1e6);
+        System.exit(0);
+    }
+
+    /**
+     * Types the input, presses "=" and waits for the notification
+     * @param model model to work on
+     * @return nanoseconds from the first key to the delivered result
+     */
+    private static long timeSolve(EquationModel model) {
+        long start = System.nanoTime();
+        model.clear();
+        for (char c : INPUT.toCharArray()) {
+            model.appendToken(String.valueOf(c));
+        }
+        model.solve();
+        model.flushNotifications();
+        return System.nanoTime() - start;
+    }
+}
@@ -2,21 +2,48 @@ package app;
 
 import MVC.Controller.CalculatorController;
 import MVC.Model.EquationModel;
+import MVC.Observer.ModelEvent;
 import MVC.View.DisplayView;
 import MVC.View.GraphView;
 import MVC.View.KeypadView;
+import MVC.View.MetricsView;
 import MVC.View.UnitView;
+import Profiling.MetricsRegistry;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.AWTEventListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
 
+/**
+ * Starts the calculator window. The graph and unit views are built by
+ * the controller when their mode is first entered. Once the window is
+ * up, a background WarmUp compiles the parser and algebra paths until
+ * the first key or mouse press, -Dcalc.warmup=false turns it off.
+ * The time until the first frame is painted is recorded as
+ * "ui.firstFrame". With -Dcalc.startup.report=true it is printed, and
+ * every metric, ex: "ui.firstResult", is printed on exit, so the first
+ * result can be compared with and without the warm-up.
+ */
 public class Main {
+    // metric of the time from main() to the first painted frame
+    public static final String FIRST_FRAME = "ui.firstFrame";
+
+    // system property that prints the startup times
+    public static final String STARTUP_REPORT_PROPERTY = "calc.startup.report";
+
     public static void main(String[] args) {
+        long mainStart = System.nanoTime();
+
         EquationModel model = new EquationModel();
         DisplayView displayView = new DisplayView();
-        GraphView graphView = new GraphView();
         KeypadView keypadView = new KeypadView();
-        UnitView unitView = new UnitView();
 
         JFrame frame = new JFrame("Advanced Calculator");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -29,20 +56,80 @@ public class Main {
         center.add(keypadView.getComponent(), BorderLayout.CENTER);
 
         CalculatorController controller = new CalculatorController(
-                model, keypadView, graphView, frame, displayView, unitView, topArea);
+                model, keypadView, GraphView::new, frame, displayView, UnitView::new, topArea);
 
         keypadView.connect(controller);
-        unitView.connect(model, controller);
 
-        model.addListener(displayView);
-        model.addListener(graphView);
-        model.addListener(unitView);
+        // each view only hears about the changes it shows, the graph and
+        // unit views subscribe when the controller builds them
+        model.addListener(displayView,
+                EnumSet.of(ModelEvent.INPUT, ModelEvent.RESULT, ModelEvent.ERROR));
 
         frame.add(displayView.getComponent(), BorderLayout.NORTH);
         frame.add(center, BorderLayout.CENTER);
 
+        // latency histograms, Ctrl+Shift+M
+        new MetricsView(frame, MetricsRegistry.global()).bindShortcut(frame);
+
+        reportFirstFrame(frame, mainStart);
+
+        if (Boolean.getBoolean(STARTUP_REPORT_PROPERTY)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> MetricsRegistry.global().dump(System.out)));
+        }
+
         frame.pack();
         frame.setLocationByPlatform(true);
         frame.setVisible(true);
     }
+
+    /**
+     * Records the time until the window has been painted once, then
+     * starts the warm-up. The window is opened and its first paint queued
+     * before the opened event is handled, so an event posted from there
+     * runs after the paint.
+     * @param frame main window
+     * @param mainStart System.nanoTime() at the start of main
+     */
+    private static void reportFirstFrame(JFrame frame, long mainStart) {
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                frame.removeWindowListener(this);
+                SwingUtilities.invokeLater(() -> {
+                    long nanos = System.nanoTime() - mainStart;
+                    MetricsRegistry.global().histogram(FIRST_FRAME).record(nanos);
+
+                    if (Boolean.getBoolean(STARTUP_REPORT_PROPERTY)) {
+                        // the process start time is only known to about 10 ms
+                        String sinceStart = ProcessHandle.current().info().startInstant()
+                                .map(t -> Duration.between(t, Instant.now()).toMillis() + " ms")
+                                .orElse("unknown");
+                        System.out.printf("first frame: %.1f ms after main, %s after process start%n",
+                                nanos / 1e6, sinceStart);
+                    }
+                    startWarmUp();
+                });
+            }
+        });
+    }
+
+    /**
+     * Starts the background warm-up and cancels it on the first key or
+     * mouse press in any window of the calculator
+     */
+    private static void startWarmUp() {
+        WarmUp warmUp = WarmUp.start();
+        if (warmUp == null) {
+            return;
+        }
+        Toolkit.getDefaultToolkit().addAWTEventListener(new AWTEventListener() {
+            @Override
+            public void eventDispatched(AWTEvent e) {
+                if (e.getID() == MouseEvent.MOUSE_PRESSED || e.getID() == KeyEvent.KEY_PRESSED) {
+                    warmUp.cancel();
+                    Toolkit.getDefaultToolkit().removeAWTEventListener(this);
+                }
+            }
+        }, AWTEvent.MOUSE_EVENT_MASK | AWTEvent.KEY_EVENT_MASK);
+    }
 }
@@ -0,0 +1,147 @@
+package app;
+
+import Algebra.Polynomial;
+import MVC.Model.EquationModel;
+import MVC.Model.ModelSnapshot;
+import Profiling.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless stress run for EquationModel. Many threads change one shared
+ * model at the same time while reader threads check that every snapshot
+ * they see is consistent. Exits with status 1 if an update was lost or
+ * a torn state was observed.
+ * ex: java app.ModelStress 8 2000
+ */
+public class ModelStress {
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int readers = Math.max(2, writers / 4);
+
+        EquationModel model = new EquationModel();
+        AtomicLong reads = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        List<String> failures = new ArrayList<>();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        // writers append one digit per op, every 100th op is a batch of two
+        for (int i = 0; i < writers; i++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int k = 0; k < ops; k++) {
+                    if (k % 100 == 0) {
+                        model.batch(() -> {
+                            model.appendToken("1");
+                            model.appendToken("1");
+                        });
+                    } else {
+                        model.appendToken("1");
+                    }
+                }
+            }, "writer-" + i));
+        }
+
+        List<Thread> readerThreads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            readerThreads.add(new Thread(() -> {
+                await(start);
+                int lastLength = 0;
+                while (!done.get()) {
+                    ModelSnapshot s = model.snapshot();
+                    String text = s.getDisplayText();
+                    String expected = s.getLastError() != null
+                            ? "ERR: " + s.getLastError()
+                            : s.getInput().isEmpty() ? s.getLastResult().toString() : s.getInput();
+                    if (!text.equals(expected)) {
+                        record(failures, "display text does not match its snapshot");
+                    }
+                    if (s.getInput().length() < lastLength) {
+                        record(failures, "input went backwards");
+                    }
+                    lastLength = s.getInput().length();
+                    reads.incrementAndGet();
+                }
+            }, "reader-" + i));
+        }
+
+        threads.forEach(Thread::start);
+        readerThreads.forEach(Thread::start);
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        long elapsed = System.nanoTime() - t0;
+        done.set(true);
+        for (Thread t : readerThreads) {
+            t.join();
+        }
+
+        long expected = (long) writers * (ops + (ops + 99) / 100);
+        String input = model.getInput();
+        if (input.length() != expected || input.chars().anyMatch(c -> c != '1')) {
+            record(failures, "lost updates, input length " + input.length() + " expected " + expected);
+        }
+
+        // concurrent curve additions must each get their own name
+        List<Thread> graphers = new ArrayList<>();
+        model.showSolution("x");
+        for (int i = 0; i < writers; i++) {
+            graphers.add(new Thread(() -> {
+                for (int k = 0; k < 50; k++) {
+                    model.addGraph();
+                }
+            }));
+        }
+        graphers.forEach(Thread::start);
+        for (Thread t : graphers) {
+            t.join();
+        }
+        int curves = model.getGraphs().size();
+        if (curves != writers * 50) {
+            record(failures, "lost curves, " + curves + " expected " + writers * 50);
+        }
+        for (Polynomial p : model.getGraphs().values()) {
+            if (p.degree() != 1) {
+                record(failures, "wrong curve " + p);
+                break;
+            }
+        }
+
+        double seconds = elapsed / 1e9;
+        System.out.printf("%d writers, %d ops each: %.0f updates/s, %d consistent reads%n",
+                writers, ops, expected / seconds, reads.get());
+        MetricsRegistry.global().dump(System.out);
+
+        if (!failures.isEmpty()) {
+            failures.forEach(f -> System.out.println("FAIL: " + f));
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void record(List<String> failures, String msg) {
+        synchronized (failures) {
+            failures.add(msg);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package app;
+
+import Profiling.MetricsRegistry;
+import Server.CalcServer;
+import Server.LoadGenerator;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Runs the calculator as a local HTTP service.
+ * ex: java app.ServerMain 8080
+ * With --load it starts a server on a free port, runs the load generator
+ * against it and prints the report.
+ * ex: java app.ServerMain --load 64 10   (64 clients for 10 seconds)
+ * The per endpoint latency histograms are printed when the server stops
+ * or the load run ends.
+ */
+public class ServerMain {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--load")) {
+            int clients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+            int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+            CalcServer server = new CalcServer(0);
+            server.start();
+            try {
+                URI base = URI.create("http://127.0.0.1:" + server.getPort());
+                LoadGenerator load = new LoadGenerator(base, clients, Duration.ofSeconds(seconds));
+
+                // short warm up so the report measures compiled code
+                new LoadGenerator(base, clients, Duration.ofSeconds(1)).run();
+                // only the measured run goes into the histograms
+                MetricsRegistry.global().reset();
+                System.out.println(clients + " clients, " + seconds + " s: " + load.run());
+                MetricsRegistry.global().dump(System.out);
+            } finally {
+                server.stop();
+            }
+            return;
+        }
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        CalcServer server = new CalcServer(port);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> MetricsRegistry.global().dump(System.out)));
+        System.out.println("Calculator server listening on http://127.0.0.1:" + server.getPort());
+    }
+}
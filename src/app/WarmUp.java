@@ -0,0 +1,160 @@
+package app;
+
+import Algebra.EquationSolver;
+import Algebra.Polynomial;
+import Numeric.FastDoubleParser;
+import Numeric.FixedFormatter;
+import OperationsBundle.*;
+import Parser.EquationParser;
+import Profiling.MetricsRegistry;
+import UnitConversion.UnitConversion;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a corpus of typical inputs through the lexer, parser, polynomial
+ * arithmetic, solver, number formatting and unit conversion on a low
+ * priority daemon thread, so the JIT has compiled these paths before the
+ * user's first "=". It works on its own strategy objects and never
+ * touches the model. cancel() stops it between two inputs, the
+ * calculator calls it on the first key or mouse press so the warm-up
+ * never competes with real work.
+ * ex: WarmUp w = WarmUp.start(); ... w.cancel();
+ */
+public final class WarmUp implements Runnable {
+    // system property that turns the warm-up off, ex: -Dcalc.warmup=false
+    public static final String PROPERTY = "calc.warmup";
+
+    // histogram of how long the warm-up ran
+    public static final String METRIC = "warmup";
+
+    // longest the warm-up keeps a core busy
+    private static final long MAX_NANOS = 3_000_000_000L;
+
+    // rounds over the corpus, about the invocation count that gets a method to C2
+    private static final int MAX_ROUNDS = 1500;
+
+    // expressions like the ones typed in each mode, the last one fails
+    // so the error path is compiled too
+    private static final List<String> EXPRESSIONS = List.of(
+            "12+34*5-6/3",
+            "(7-2)^3+√16",
+            "3x^2+2(x-1)^3-5",
+            "(x+1)(x-2)(x+3)",
+            "(2x-1)^5",
+            "x^4-10x^2+9",
+            "(4x^3+6x-2)/2",
+            "-(x-4)^2+16",
+            "(x+1)/(x-1)");
+
+    // equations like the ones solved in EQUATION mode
+    private static final List<String> EQUATIONS = List.of(
+            "3x-7=2",
+            "2x^2-3x-5=0",
+            "x^2+4x+13=0",
+            "(x+2)^2=9");
+
+    // unit pairs like the ones converted in UNIT mode
+    private static final String[][] CONVERSIONS = {
+            {"FT", "M"}, {"F°", "C°"}, {"LB", "KG"}, {"mi/h", "km/h"}, {"GAL", "L"}};
+
+    private final BinaryStrategy addOp = new AddOp();
+    private final BinaryStrategy subOp = new SubOp();
+    private final BinaryStrategy mulOp = new MultOp();
+    private final BinaryStrategy divOp = new DivOp();
+    private final UnaryStrategy negOp = new NegOp();
+    private final PowStrategy powOp = new PowOp();
+    private final UnaryStrategy rootOp = new RootOp();
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    // keeps results alive so the work is not optimized away
+    private volatile double sink;
+
+    private volatile int rounds;
+
+    /**
+     * Starts the warm-up on a daemon thread unless -Dcalc.warmup=false
+     * @return the running warm-up, or null if it is turned off
+     */
+    public static WarmUp start() {
+        if (!Boolean.parseBoolean(System.getProperty(PROPERTY, "true"))) {
+            return null;
+        }
+        WarmUp w = new WarmUp();
+        Thread t = new Thread(w, "calculator-warmup");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+        return w;
+    }
+
+    /**
+     * Asks the warm-up to stop, it finishes the input it is on
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Returns the completed rounds over the corpus
+     * @return rounds done so far
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        try {
+            for (int r = 0; r < MAX_ROUNDS; r++) {
+                if (!round() || System.nanoTime() - start > MAX_NANOS) {
+                    return;
+                }
+                rounds = r + 1;
+            }
+        } finally {
+            MetricsRegistry.global().histogram(METRIC).recordSince(start);
+        }
+    }
+
+    /**
+     * Runs every input of the corpus once
+     * @return false if cancelled on the way
+     */
+    private boolean round() {
+        double acc = 0;
+        for (String expr : EXPRESSIONS) {
+            if (cancelled.get()) {
+                return false;
+            }
+            try {
+                Polynomial p = new EquationParser(expr, addOp, subOp, mulOp, divOp, negOp, powOp, rootOp).parse();
+                acc += p.toString().length() + p.evaluate(1.5) + EquationSolver.realRoots(p).length;
+            } catch (IllegalArgumentException e) {
+                acc += e.getMessage().length();
+            }
+        }
+        for (String eq : EQUATIONS) {
+            if (cancelled.get()) {
+                return false;
+            }
+            acc += EquationSolver.solveForX(eq, addOp, subOp, mulOp, divOp, negOp, powOp, rootOp).length();
+        }
+        for (String[] c : CONVERSIONS) {
+            if (cancelled.get()) {
+                return false;
+            }
+            double v = FastDoubleParser.parseDouble("72.5");
+            acc += FixedFormatter.format(UnitConversion.compile(c[0], c[1]).apply(v), 4).length();
+        }
+        sink = acc;
+        return true;
+    }
+}